@@ -0,0 +1,73 @@
+package com.radovan.spring.broker;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.radovan.spring.utils.GatewayResponseCache;
+import com.radovan.spring.utils.NatsUtils;
+import com.radovan.spring.utils.RequestCoalescer;
+
+import io.nats.client.Connection;
+import io.nats.client.Dispatcher;
+import io.nats.client.Message;
+import io.nats.client.MessageHandler;
+
+@Component
+public class GatewayNatsListener {
+
+	private NatsUtils natsUtils;
+	private ObjectMapper objectMapper;
+	private GatewayResponseCache responseCache;
+	private RequestCoalescer requestCoalescer;
+
+	@Autowired
+	private void initialize(NatsUtils natsUtils, ObjectMapper objectMapper, GatewayResponseCache responseCache,
+			RequestCoalescer requestCoalescer) {
+		this.natsUtils = natsUtils;
+		this.objectMapper = objectMapper;
+		this.responseCache = responseCache;
+		this.requestCoalescer = requestCoalescer;
+		initListeners();
+	}
+
+	public void initListeners() {
+		Connection connection = natsUtils.getConnection();
+		if (connection != null) {
+			Dispatcher dispatcher = connection.createDispatcher();
+			dispatcher.subscribe("gateway.cache.invalidate", onCacheInvalidate);
+			dispatcher.subscribe("user.suspended", onUserSuspended);
+		} else {
+			System.err.println("*** NATS connection unavailable — gateway.cache.invalidate listener not initialized");
+		}
+	}
+
+	// Poruka nosi prefikse putanja, npr. {"paths": ["/api/products", "/api/categories"]}
+	private final MessageHandler onCacheInvalidate = (Message msg) -> {
+		try {
+			JsonNode payload = objectMapper.readTree(msg.getData());
+			List<String> paths = new ArrayList<>();
+			payload.path("paths").forEach(path -> paths.add(path.asText()));
+			requestCoalescer.detachInFlight(paths);
+			responseCache.invalidatePaths(paths);
+		} catch (Exception e) {
+			System.err.println("*** Failed to process cache invalidation: " + e.getMessage());
+		}
+	};
+
+	// auth-service objavljuje {"subject": email}, keširani odgovori tog korisnika se brišu
+	private final MessageHandler onUserSuspended = (Message msg) -> {
+		try {
+			String subject = objectMapper.readTree(msg.getData()).path("subject").asText(null);
+			if (subject != null) {
+				responseCache.invalidateSubject(subject);
+			}
+		} catch (Exception e) {
+			System.err.println("*** Failed to process user suspension: " + e.getMessage());
+		}
+	};
+}
@@ -0,0 +1,123 @@
+package com.radovan.spring.config;
+
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManager;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import com.radovan.spring.utils.GatewayRoute;
+import com.radovan.spring.utils.RouteTable;
+
+// Pooled keep-alive connections to the upstream services, one pool per host:port route
+@Configuration
+public class HttpClientConfiguration {
+
+	private final int maxTotal = readEnv("GATEWAY_POOL_MAX_TOTAL", 200);
+	private final int maxPerRoute = readEnv("GATEWAY_POOL_MAX_PER_ROUTE", 50);
+	private final int keepAliveSeconds = readEnv("GATEWAY_POOL_KEEP_ALIVE_SECONDS", 30);
+	private final int idleEvictionSeconds = readEnv("GATEWAY_POOL_IDLE_EVICTION_SECONDS", 30);
+	private final int connectTimeoutSeconds = readEnv("GATEWAY_CONNECT_TIMEOUT_SECONDS", 5);
+
+	@Bean(destroyMethod = "close")
+	public PoolingHttpClientConnectionManager getConnectionManager() {
+		return PoolingHttpClientConnectionManagerBuilder.create()
+				.setMaxConnTotal(maxTotal)
+				.setMaxConnPerRoute(maxPerRoute)
+				.setDefaultConnectionConfig(getConnectionConfig())
+				.build();
+	}
+
+	@Bean(destroyMethod = "close")
+	public CloseableHttpClient getHttpClient(PoolingHttpClientConnectionManager connectionManager) {
+		return HttpClients.custom()
+				.setConnectionManager(connectionManager)
+				.setDefaultRequestConfig(getRequestConfig())
+				.evictExpiredConnections()
+				.evictIdleConnections(TimeValue.ofSeconds(idleEvictionSeconds))
+				.disableCookieManagement()
+				.build();
+	}
+
+	@Bean
+	public RestTemplate getRestTemplate(CloseableHttpClient httpClient, RouteTable routeTable) {
+		HttpComponentsClientHttpRequestFactory requestFactory = new HttpComponentsClientHttpRequestFactory(httpClient);
+		// Ruta sa sopstvenim timeout-om dobija svoj RequestConfig, ostale koriste podrazumevani klijenta
+		requestFactory.setHttpContextFactory((method, uri) -> {
+			GatewayRoute route = routeTable.resolve(uri.getRawPath());
+			if (route == null || route.getTimeoutMillis() <= 0) {
+				return null;
+			}
+			HttpClientContext context = HttpClientContext.create();
+			context.setRequestConfig(RequestConfig.copy(getRequestConfig())
+					.setResponseTimeout(Timeout.ofMilliseconds(route.getTimeoutMillis()))
+					.build());
+			return context;
+		});
+		return new RestTemplate(requestFactory);
+	}
+
+	@Bean(destroyMethod = "close")
+	public PoolingAsyncClientConnectionManager getAsyncConnectionManager() {
+		return PoolingAsyncClientConnectionManagerBuilder.create()
+				.setMaxConnTotal(maxTotal)
+				.setMaxConnPerRoute(maxPerRoute)
+				.setDefaultConnectionConfig(getConnectionConfig())
+				.build();
+	}
+
+	@Bean(destroyMethod = "close")
+	public CloseableHttpAsyncClient getHttpAsyncClient(PoolingAsyncClientConnectionManager asyncConnectionManager) {
+		// Telo zahteva se strimuje i ne može se ponoviti, zato bez retry-a i praćenja redirekcija
+		CloseableHttpAsyncClient httpAsyncClient = HttpAsyncClients.custom()
+				.setConnectionManager(asyncConnectionManager)
+				.setDefaultRequestConfig(getRequestConfig())
+				.evictExpiredConnections()
+				.evictIdleConnections(TimeValue.ofSeconds(idleEvictionSeconds))
+				.disableAutomaticRetries()
+				.disableRedirectHandling()
+				.disableCookieManagement()
+				.build();
+		httpAsyncClient.start();
+		return httpAsyncClient;
+	}
+
+	private ConnectionConfig getConnectionConfig() {
+		return ConnectionConfig.custom()
+				.setConnectTimeout(Timeout.ofSeconds(connectTimeoutSeconds))
+				// Konekcija koja je dugo stajala se proverava pre ponovne upotrebe
+				.setValidateAfterInactivity(TimeValue.ofSeconds(2))
+				.build();
+	}
+
+	private RequestConfig getRequestConfig() {
+		return RequestConfig.custom()
+				.setConnectionKeepAlive(TimeValue.ofSeconds(keepAliveSeconds))
+				.build();
+	}
+
+	private static int readEnv(String name, int defaultValue) {
+		String value = System.getenv(name);
+		if (value == null || value.isBlank()) {
+			return defaultValue;
+		}
+		try {
+			return Integer.parseInt(value.trim());
+		} catch (NumberFormatException e) {
+			System.err.println("Invalid value for " + name + ": " + value + ", using " + defaultValue);
+			return defaultValue;
+		}
+	}
+}
@@ -1,7 +1,6 @@
 package com.radovan.spring.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
 
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.prometheusmetrics.PrometheusConfig;
@@ -12,7 +11,7 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
 
 import org.springframework.scheduling.annotation.EnableScheduling;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.EnableWebMvc;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
@@ -25,12 +24,7 @@ public class SpringMvcConfiguration implements WebMvcConfigurer {
 
 	@Bean
 	public ObjectMapper getObjectMapper() {
-		return new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
-	}
-
-	@Bean
-	public RestTemplate getRestTemplate() {
-		return new RestTemplate();
+		return new ObjectMapper();
 	}
 
 	@Bean
@@ -44,6 +38,15 @@ public class SpringMvcConfiguration implements WebMvcConfigurer {
 		return prometheusRegistry;
 	}
 	
+	// Podrazumevani scheduler ima jednu nit, pa bi spor health check zadržao osvežavanje registra, instanci i metrika
+	@Bean
+	public ThreadPoolTaskScheduler taskScheduler() {
+		ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+		scheduler.setPoolSize(5);
+		scheduler.setThreadNamePrefix("gateway-scheduler-");
+		return scheduler;
+	}
+
 	@Override
     public void addCorsMappings(CorsRegistry registry) {
         registry.addMapping("/**")
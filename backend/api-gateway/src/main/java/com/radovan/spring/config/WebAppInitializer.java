@@ -19,6 +19,7 @@ public class WebAppInitializer implements WebApplicationInitializer {
 				new DispatcherServlet(webContext));
 
 		initializer.setLoadOnStartup(1);
+		initializer.setAsyncSupported(true);
 		initializer.addMapping("/");
 
 	}
@@ -1,9 +1,11 @@
 package com.radovan.spring.controllers;
 
-import java.util.Map;
+import java.io.IOException;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -12,8 +14,11 @@ import org.springframework.web.bind.annotation.RestController;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonMappingException;
 import com.radovan.spring.services.ApiGatewayService;
+import com.radovan.spring.utils.GatewayRoute;
+import com.radovan.spring.utils.RouteTable;
 
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 
 @RestController
 @RequestMapping("/api/**") // Hvata sve rute pod /api/
@@ -22,36 +27,36 @@ public class ApiGatewayController {
 
 	@Autowired
 	private ApiGatewayService apiGatewayService;
+
+	// Rute i njihova podešavanja (streaming, konverzija, keš, timeout, autentifikacija) se čitaju jednom pri startu
+	@Autowired
+	private RouteTable routeTable;
+
 	// @Autowired
 	// private ObjectMapper objectMapper;
 
 	@RequestMapping
-	public ResponseEntity<String> proxyRequest(HttpServletRequest request)
-			throws JsonMappingException, JsonProcessingException {
+	public ResponseEntity<?> proxyRequest(HttpServletRequest request, HttpServletResponse response)
+			throws JsonMappingException, JsonProcessingException, IOException {
 		String requestUri = request.getRequestURI(); // /api/products ili /api/categories
-		String[] pathSegments = requestUri.split("/");
 
-		if (pathSegments.length < 3) {
-			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Invalid API request format");
+		GatewayRoute route = routeTable.resolve(requestUri);
+		if (route == null) {
+			return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Unknown service for path: " + requestUri);
 		}
 
-		String firstSegment = pathSegments[2]; // products ili categories
-
-		// Mapiranje segmenta na servis
-		String serviceName = mapSegmentToService(firstSegment);
-		if (serviceName == null) {
-			return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Unknown service for segment: " + firstSegment);
+		// Zahtev bez tokena ne može proći autorizaciju servisa, odbija se pre nego što zauzme konekciju
+		if (route.isAuthRequired() && request.getHeader(HttpHeaders.AUTHORIZATION) == null) {
+			return ResponseEntity.status(HttpStatus.UNAUTHORIZED).contentType(MediaType.APPLICATION_JSON)
+					.body("{\"message\": \"Authentication required\"}");
 		}
 
-		return apiGatewayService.forwardRequest(serviceName, request);
-
-	}
+		if (route.isStreaming()) {
+			apiGatewayService.streamRequest(route, request, response);
+			return null; // Odgovor se upisuje asinhrono
+		}
 
-	private String mapSegmentToService(String segment) {
-		Map<String, String> serviceMappings = Map.of("products", "product-service", "categories", "product-service",
-				"auth", "auth-service", "cart", "cart-service", "order", "order-service", "customers",
-				"customer-service", "addresses", "customer-service");
+		return apiGatewayService.forwardRequest(route, request);
 
-		return serviceMappings.get(segment);
 	}
 }
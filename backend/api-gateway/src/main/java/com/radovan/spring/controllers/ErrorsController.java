@@ -1,10 +1,15 @@
 package com.radovan.spring.controllers;
 
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.client.HttpClientErrorException;
 
+import com.radovan.spring.exceptions.ServiceUnavailableException;
+
 @RestControllerAdvice
 public class ErrorsController {
 
@@ -12,4 +17,12 @@ public class ErrorsController {
 	public ResponseEntity<String> handleHttpClientErrorException(HttpClientErrorException ex) {
 		return ResponseEntity.status(ex.getStatusCode()).body(ex.getResponseBodyAsString());
 	}
+
+	@ExceptionHandler(ServiceUnavailableException.class)
+	public ResponseEntity<String> handleServiceUnavailableException(ServiceUnavailableException ex) {
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+				.header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+				.contentType(MediaType.APPLICATION_JSON)
+				.body("{\"message\": \"" + ex.getTargetError().getMessage() + "\"}");
+	}
 }
@@ -0,0 +1,23 @@
+package com.radovan.spring.exceptions;
+
+import javax.management.RuntimeErrorException;
+
+public class ServiceUnavailableException extends RuntimeErrorException {
+
+	/**
+	 * 
+	 */
+	private static final long serialVersionUID = 1L;
+
+	private final long retryAfterSeconds;
+
+	public ServiceUnavailableException(Error e, long retryAfterSeconds) {
+		super(e);
+		this.retryAfterSeconds = retryAfterSeconds;
+	}
+
+	public long getRetryAfterSeconds() {
+		return retryAfterSeconds;
+	}
+
+}
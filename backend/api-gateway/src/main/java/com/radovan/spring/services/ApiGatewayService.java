@@ -1,14 +1,21 @@
 package com.radovan.spring.services;
 
+import java.io.IOException;
+
 import org.springframework.http.ResponseEntity;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonMappingException;
+import com.radovan.spring.utils.GatewayRoute;
 
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 
 public interface ApiGatewayService {
 
-	ResponseEntity<String> forwardRequest(String serviceName, HttpServletRequest request) throws JsonMappingException, JsonProcessingException;
+	ResponseEntity<?> forwardRequest(GatewayRoute route, HttpServletRequest request)
+			throws JsonMappingException, JsonProcessingException;
+
+	void streamRequest(GatewayRoute route, HttpServletRequest request, HttpServletResponse response) throws IOException;
 
 }
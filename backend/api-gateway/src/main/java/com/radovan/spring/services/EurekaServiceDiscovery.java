@@ -1,7 +1,17 @@
 package com.radovan.spring.services;
 
+import java.util.List;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
 public interface EurekaServiceDiscovery {
 
 	String getServiceUrl(String serviceName);
 
+	List<String> getServiceUrls(String serviceName);
+
+	String resolveInstanceUrl(String serviceName, JsonNode instance);
+
+	JsonNode fetchApplications(boolean delta);
+
 }
@@ -0,0 +1,12 @@
+package com.radovan.spring.services;
+
+import com.radovan.spring.utils.UpstreamInstance;
+
+public interface LoadBalancerService {
+
+	UpstreamInstance chooseInstance(String serviceName);
+
+	void refreshInstances();
+
+	void checkInstanceHealth();
+}
@@ -1,64 +1,100 @@
 package com.radovan.spring.services.impl;
 
+import java.io.IOException;
 import java.util.Collections;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.*;
-import org.springframework.http.client.BufferingClientHttpRequestFactory;
-import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StreamUtils;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientResponseException;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonMappingException;
 import com.radovan.spring.services.ApiGatewayService;
+import com.radovan.spring.services.LoadBalancerService;
+import com.radovan.spring.utils.CachedResponse;
+import com.radovan.spring.utils.GatewayResponseCache;
+import com.radovan.spring.utils.GatewayRoute;
+import com.radovan.spring.utils.ProxyHeaders;
+import com.radovan.spring.utils.RequestCoalescer;
 import com.radovan.spring.utils.ResponseHandler;
-import com.radovan.spring.utils.ServiceUrlProvider;
+import com.radovan.spring.utils.StreamingProxyHandler;
+import com.radovan.spring.utils.UpstreamGuard;
+import com.radovan.spring.utils.UpstreamInstance;
 
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 
 @Service
 public class ApiGatewayServiceImpl implements ApiGatewayService {
 
-	private ServiceUrlProvider serviceUrlProvider;
-	private RestTemplate restTemplate;
+	private LoadBalancerService loadBalancerService;
 	private ResponseHandler responseHandler;
-
-	// Cache za servis URL-ove (TTL se može dodati)
-	private final Map<String, String> cachedServiceUrls = new ConcurrentHashMap<>();
+	private StreamingProxyHandler streamingProxyHandler;
+	private GatewayResponseCache responseCache;
+	private RequestCoalescer requestCoalescer;
+	private UpstreamGuard upstreamGuard;
 
 	@Autowired
-	private void initialize(ServiceUrlProvider serviceUrlProvider, RestTemplate restTemplate,
-			ResponseHandler responseHandler) {
-		this.serviceUrlProvider = serviceUrlProvider;
-		this.restTemplate = restTemplate;
+	private void initialize(LoadBalancerService loadBalancerService, ResponseHandler responseHandler,
+			StreamingProxyHandler streamingProxyHandler, GatewayResponseCache responseCache,
+			RequestCoalescer requestCoalescer, UpstreamGuard upstreamGuard) {
+		this.loadBalancerService = loadBalancerService;
 		this.responseHandler = responseHandler;
+		this.streamingProxyHandler = streamingProxyHandler;
+		this.responseCache = responseCache;
+		this.requestCoalescer = requestCoalescer;
+		this.upstreamGuard = upstreamGuard;
 
 	}
 
 	@Override
-	public ResponseEntity<String> forwardRequest(String serviceName, HttpServletRequest request)
+	public ResponseEntity<?> forwardRequest(GatewayRoute route, HttpServletRequest request)
 			throws JsonMappingException, JsonProcessingException {
-		String serviceUrl = cachedServiceUrls.computeIfAbsent(serviceName,
-				key -> serviceUrlProvider.getServiceUrl(serviceName));
+		String serviceName = route.getServiceName();
+		boolean convertResponse = route.isConvertResponse();
+		// Keširaju se samo GET odgovori, konvertovani ili prosleđeni bez izmena
+		boolean cacheable = route.isCacheResponse() && HttpMethod.GET.matches(request.getMethod());
+		String cacheKey = null;
+		CachedResponse cached = null;
+		long fetchGeneration = 0;
+		if (cacheable) {
+			cacheKey = responseCache.keyFor(request);
+			cached = responseCache.get(cacheKey);
+			if (cached != null && cached.isFresh(System.currentTimeMillis())) {
+				return responseCache.toResponse(cached, request, "HIT");
+			}
+			fetchGeneration = responseCache.currentGeneration();
+		}
+
+		UpstreamInstance instance = loadBalancerService.chooseInstance(serviceName);
 
-		if (serviceUrl == null) {
+		if (instance == null) {
 			return ResponseEntity.status(HttpStatus.BAD_GATEWAY).body("Service " + serviceName + " not found");
 		}
 
 		HttpMethod method = HttpMethod.valueOf(request.getMethod());
 
 		HttpHeaders headers = new HttpHeaders();
-		// Kopiraj sve zaglavlja osim Content-Length (neka RestTemplate to sam obradi)
+		// Kopiraj sva zaglavlja osim hop-by-hop i Content-Length (HTTP klijent ih sam postavlja)
 		Collections.list(request.getHeaderNames()).forEach(headerName -> {
-			if (!"content-length".equalsIgnoreCase(headerName)) {
+			if (ProxyHeaders.isForwardableRequestHeader(headerName)) {
 				headers.addAll(headerName, Collections.list(request.getHeaders(headerName)));
 			}
 		});
 
+		// Uslovne zahteve klijenta gateway razrešava sam, upstream se pita samo za revalidaciju keša
+		if (cacheable) {
+			headers.remove(HttpHeaders.IF_NONE_MATCH);
+			headers.remove(HttpHeaders.IF_MODIFIED_SINCE);
+			if (cached != null && cached.getUpstreamEtag() != null) {
+				headers.setIfNoneMatch(cached.getUpstreamEtag());
+			}
+		}
+
 		// Obrada tela zahteva
 		byte[] requestBody = null;
 		if (method == HttpMethod.POST || method == HttpMethod.PUT || method == HttpMethod.PATCH) {
@@ -72,11 +108,95 @@ public class ApiGatewayServiceImpl implements ApiGatewayService {
 
 		HttpEntity<byte[]> entity = new HttpEntity<>(requestBody, headers);
 
-		String fullUrl = serviceUrl + request.getRequestURI();
+		String fullUrl = buildFullUrl(instance.getUrl(), request);
+
+		Supplier<ResponseEntity<byte[]>> upstreamCall = () -> callInstance(serviceName, instance,
+				() -> convertResponse ? responseHandler.fetchConverted(fullUrl, method, entity)
+						: responseHandler.fetchPassThrough(fullUrl, method, entity));
+		ResponseEntity<byte[]> response = RequestCoalescer.isCoalescible(method)
+				? requestCoalescer.execute(RequestCoalescer.keyFor(method, pathAndQuery(request), headers), upstreamCall)
+				: upstreamCall.get();
+		if (!cacheable) {
+			return response;
+		}
+
+		if (cached != null && response.getStatusCode().value() == HttpStatus.NOT_MODIFIED.value()) {
+			responseCache.markRevalidated(cacheKey, cached);
+			return responseCache.toResponse(cached, request, "REVALIDATED");
+		}
+		if (response.getStatusCode().value() != HttpStatus.OK.value()) {
+			return response;
+		}
+
+		CachedResponse stored = responseCache.store(cacheKey, request, response, fetchGeneration);
+		return responseCache.toResponse(stored, request, "MISS");
+	}
+
+	@Override
+	public void streamRequest(GatewayRoute route, HttpServletRequest request, HttpServletResponse response)
+			throws IOException {
+		String serviceName = route.getServiceName();
+		UpstreamInstance instance = loadBalancerService.chooseInstance(serviceName);
+
+		if (instance == null) {
+			response.setStatus(HttpStatus.BAD_GATEWAY.value());
+			response.getWriter().write("Service " + serviceName + " not found");
+			return;
+		}
+
+		UpstreamGuard.Permit permit = upstreamGuard.acquire(serviceName);
+		try {
+			streamingProxyHandler.forward(instance, permit, buildFullUrl(instance.getUrl(), request),
+					route.getTimeoutMillis(), request, response);
+		} catch (IOException | RuntimeException e) {
+			permit.release(false);
+			throw e;
+		}
+	}
+
+	private <T, E extends Exception> ResponseEntity<T> callInstance(String serviceName, UpstreamInstance instance,
+			UpstreamCall<T, E> call) throws E {
+		// Odbijen zahtev ne zauzima ni instancu ni konekciju iz pool-a
+		UpstreamGuard.Permit permit = upstreamGuard.acquire(serviceName);
+		boolean success = true;
+		instance.acquire();
+		try {
+			ResponseEntity<T> response = call.execute();
+			instance.recordSuccess();
+			success = !isUpstreamFailure(response.getStatusCode());
+			return response;
+		} catch (ResourceAccessException e) {
+			// Greška na nivou konekcije, a ne odgovor servisa, računa se protiv instance
+			instance.recordFailure();
+			success = false;
+			throw e;
+		} catch (RestClientResponseException e) {
+			success = !isUpstreamFailure(e.getStatusCode());
+			throw e;
+		} finally {
+			instance.release();
+			permit.release(success);
+		}
+	}
+
+	// Samo statusi koji znače da servis nije dostupan otvaraju breaker, 4xx i 500 su odgovori servisa
+	private boolean isUpstreamFailure(HttpStatusCode status) {
+		int code = status.value();
+		return code == HttpStatus.BAD_GATEWAY.value() || code == HttpStatus.SERVICE_UNAVAILABLE.value()
+				|| code == HttpStatus.GATEWAY_TIMEOUT.value();
+	}
 
-		// Konfiguriši RestTemplate da pravilno obrađuje chunked transfer encoding
-		restTemplate.setRequestFactory(new BufferingClientHttpRequestFactory(new SimpleClientHttpRequestFactory()));
-		return responseHandler.fetchAndConvertToJson(fullUrl, method, entity);
+	private String buildFullUrl(String serviceUrl, HttpServletRequest request) {
+		return serviceUrl + pathAndQuery(request);
+	}
+
+	private String pathAndQuery(HttpServletRequest request) {
+		String queryString = request.getQueryString();
+		return request.getRequestURI() + (queryString == null ? "" : "?" + queryString);
+	}
 
+	@FunctionalInterface
+	private interface UpstreamCall<T, E extends Exception> {
+		ResponseEntity<T> execute() throws E;
 	}
 }
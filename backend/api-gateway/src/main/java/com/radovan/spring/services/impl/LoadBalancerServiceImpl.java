@@ -0,0 +1,132 @@
+package com.radovan.spring.services.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.client5.http.async.methods.SimpleRequestBuilder;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.radovan.spring.services.LoadBalancerService;
+import com.radovan.spring.utils.ServiceUrlProvider;
+import com.radovan.spring.utils.UpstreamInstance;
+
+@Service
+public class LoadBalancerServiceImpl implements LoadBalancerService {
+
+	private static final String HEALTH_PATH = "/api/health";
+	private static final Timeout HEALTH_CHECK_TIMEOUT = Timeout.ofSeconds(2);
+
+	private final Map<String, List<UpstreamInstance>> instancesByService = new ConcurrentHashMap<>();
+	private ServiceUrlProvider serviceUrlProvider;
+	private CloseableHttpAsyncClient httpAsyncClient;
+
+	@Autowired
+	private void initialize(ServiceUrlProvider serviceUrlProvider, CloseableHttpAsyncClient httpAsyncClient) {
+		this.serviceUrlProvider = serviceUrlProvider;
+		this.httpAsyncClient = httpAsyncClient;
+	}
+
+	// Power-of-two-choices: od dve nasumične dostupne instance bira se ona sa manje zahteva u toku
+	@Override
+	public UpstreamInstance chooseInstance(String serviceName) {
+		List<UpstreamInstance> instances = instancesByService.get(serviceName);
+		if (instances == null) {
+			// Prazan rezultat se ne pamti, servis koji se registruje posle prvog zahteva dobija instance odmah
+			List<UpstreamInstance> loaded = loadInstances(serviceName);
+			if (loaded.isEmpty()) {
+				return null;
+			}
+			instances = instancesByService.computeIfAbsent(serviceName, key -> loaded);
+		}
+
+		long now = System.currentTimeMillis();
+		List<UpstreamInstance> candidates = new ArrayList<>(instances.size());
+		for (UpstreamInstance instance : instances) {
+			if (instance.isAvailable(now)) {
+				candidates.add(instance);
+			}
+		}
+		// Ako su sve instance izbačene, bolje je pokušati nego odmah vratiti grešku
+		if (candidates.isEmpty()) {
+			candidates = instances;
+		}
+
+		int size = candidates.size();
+		if (size == 1) {
+			return candidates.get(0);
+		}
+
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		int first = random.nextInt(size);
+		int second = random.nextInt(size - 1);
+		if (second >= first) {
+			second++;
+		}
+		UpstreamInstance a = candidates.get(first);
+		UpstreamInstance b = candidates.get(second);
+		return a.getOutstandingRequests() <= b.getOutstandingRequests() ? a : b;
+	}
+
+	// Nove replike se dodaju, ugašene uklanjaju, a postojeće zadržavaju brojače.
+	// Servis bez ijedne instance se izbacuje, pa ga sledeći zahtev ponovo traži u registru
+	@Override
+	@Scheduled(fixedDelay = 30000)
+	public void refreshInstances() {
+		for (String serviceName : instancesByService.keySet()) {
+			instancesByService.computeIfPresent(serviceName, (name, current) -> {
+				List<String> urls = serviceUrlProvider.getServiceUrls(name);
+				if (urls.isEmpty()) {
+					return null;
+				}
+				Map<String, UpstreamInstance> existing = current.stream()
+						.collect(Collectors.toMap(UpstreamInstance::getUrl, Function.identity()));
+				return urls.stream().map(url -> existing.getOrDefault(url, new UpstreamInstance(url)))
+						.collect(Collectors.toUnmodifiableList());
+			});
+		}
+	}
+
+	@Override
+	@Scheduled(fixedDelay = 10000)
+	public void checkInstanceHealth() {
+		RequestConfig requestConfig = RequestConfig.custom().setResponseTimeout(HEALTH_CHECK_TIMEOUT).build();
+		instancesByService.values().forEach(instances -> instances.forEach(instance -> {
+			SimpleHttpRequest healthRequest = SimpleRequestBuilder.get(instance.getUrl() + HEALTH_PATH)
+					.setRequestConfig(requestConfig).build();
+			httpAsyncClient.execute(healthRequest, new FutureCallback<SimpleHttpResponse>() {
+				@Override
+				public void completed(SimpleHttpResponse result) {
+					instance.setHealthy(result.getCode() >= 200 && result.getCode() < 300);
+				}
+
+				@Override
+				public void failed(Exception ex) {
+					instance.setHealthy(false);
+				}
+
+				@Override
+				public void cancelled() {
+					instance.setHealthy(false);
+				}
+			});
+		}));
+	}
+
+	private List<UpstreamInstance> loadInstances(String serviceName) {
+		return serviceUrlProvider.getServiceUrls(serviceName).stream().map(UpstreamInstance::new)
+				.collect(Collectors.toUnmodifiableList());
+	}
+}
@@ -0,0 +1,65 @@
+package com.radovan.spring.utils;
+
+import org.springframework.http.HttpHeaders;
+
+// Upstream response held by the gateway cache, the body is never modified after it is stored
+public class CachedResponse {
+
+	private final String path;
+	// Subject tokena za koji je odgovor keširan, null za anonimne zahteve
+	private final String subject;
+	private final int status;
+	private final HttpHeaders headers;
+	private final byte[] body;
+	private final String etag;
+	private final String upstreamEtag;
+	private volatile long expiresAtMillis;
+
+	public CachedResponse(String path, String subject, int status, HttpHeaders headers, byte[] body, String etag,
+			String upstreamEtag, long expiresAtMillis) {
+		this.path = path;
+		this.subject = subject;
+		this.status = status;
+		this.headers = HttpHeaders.readOnlyHttpHeaders(headers);
+		this.body = body;
+		this.etag = etag;
+		this.upstreamEtag = upstreamEtag;
+		this.expiresAtMillis = expiresAtMillis;
+	}
+
+	public String getPath() {
+		return path;
+	}
+
+	public String getSubject() {
+		return subject;
+	}
+
+	public int getStatus() {
+		return status;
+	}
+
+	public HttpHeaders getHeaders() {
+		return headers;
+	}
+
+	public byte[] getBody() {
+		return body;
+	}
+
+	public String getEtag() {
+		return etag;
+	}
+
+	public String getUpstreamEtag() {
+		return upstreamEtag;
+	}
+
+	public boolean isFresh(long nowMillis) {
+		return nowMillis < expiresAtMillis;
+	}
+
+	public void setExpiresAtMillis(long expiresAtMillis) {
+		this.expiresAtMillis = expiresAtMillis;
+	}
+}
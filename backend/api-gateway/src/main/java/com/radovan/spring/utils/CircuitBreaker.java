@@ -0,0 +1,79 @@
+package com.radovan.spring.utils;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Opens after consecutive failures, lets a single probe through once the open period ends and closes again if it succeeds
+public class CircuitBreaker {
+
+	public enum State {
+		CLOSED, OPEN, HALF_OPEN
+	}
+
+	private final int failureThreshold;
+	private final long openMillis;
+	private final AtomicInteger consecutiveFailures = new AtomicInteger();
+	private volatile State state = State.CLOSED;
+	private long openedAtMillis;
+	private boolean probeInFlight;
+
+	public CircuitBreaker(int failureThreshold, long openMillis) {
+		this.failureThreshold = failureThreshold;
+		this.openMillis = openMillis;
+	}
+
+	public State getState() {
+		return state;
+	}
+
+	public boolean tryAcquire() {
+		if (state == State.CLOSED) {
+			return true;
+		}
+		synchronized (this) {
+			if (state == State.OPEN && System.currentTimeMillis() - openedAtMillis >= openMillis) {
+				state = State.HALF_OPEN;
+				probeInFlight = false;
+			}
+			if (state == State.HALF_OPEN && !probeInFlight) {
+				probeInFlight = true;
+				return true;
+			}
+			return state == State.CLOSED;
+		}
+	}
+
+	public void onSuccess() {
+		if (state == State.CLOSED) {
+			consecutiveFailures.set(0);
+			return;
+		}
+		synchronized (this) {
+			if (state == State.HALF_OPEN) {
+				state = State.CLOSED;
+				consecutiveFailures.set(0);
+				probeInFlight = false;
+			}
+		}
+	}
+
+	public void onFailure() {
+		if (state == State.CLOSED && consecutiveFailures.incrementAndGet() < failureThreshold) {
+			return;
+		}
+		synchronized (this) {
+			if (state != State.OPEN) {
+				state = State.OPEN;
+				openedAtMillis = System.currentTimeMillis();
+				probeInFlight = false;
+				consecutiveFailures.set(0);
+			}
+		}
+	}
+
+	public long remainingOpenSeconds() {
+		synchronized (this) {
+			long remainingMillis = openMillis - (System.currentTimeMillis() - openedAtMillis);
+			return Math.max(1, (remainingMillis + 999) / 1000);
+		}
+	}
+}
@@ -0,0 +1,88 @@
+package com.radovan.spring.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManager;
+import org.apache.hc.core5.pool.ConnPoolControl;
+import org.apache.hc.core5.pool.PoolStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MultiGauge;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PostConstruct;
+
+// Exposes upstream connection pool utilization, totals per client and per upstream host
+@Component
+public class ConnectionPoolMetrics {
+
+	private MeterRegistry registry;
+	private PoolingHttpClientConnectionManager connectionManager;
+	private PoolingAsyncClientConnectionManager asyncConnectionManager;
+
+	private MultiGauge leasedByUpstream;
+	private MultiGauge availableByUpstream;
+	private MultiGauge pendingByUpstream;
+	private MultiGauge maxByUpstream;
+
+	@Autowired
+	private void initialize(MeterRegistry registry, PoolingHttpClientConnectionManager connectionManager,
+			PoolingAsyncClientConnectionManager asyncConnectionManager) {
+		this.registry = registry;
+		this.connectionManager = connectionManager;
+		this.asyncConnectionManager = asyncConnectionManager;
+	}
+
+	@PostConstruct
+	public void init() {
+		registerTotals("blocking", connectionManager);
+		registerTotals("async", asyncConnectionManager);
+
+		leasedByUpstream = MultiGauge.builder("gateway_pool_upstream_leased_connections").register(registry);
+		availableByUpstream = MultiGauge.builder("gateway_pool_upstream_available_connections").register(registry);
+		pendingByUpstream = MultiGauge.builder("gateway_pool_upstream_pending_requests").register(registry);
+		maxByUpstream = MultiGauge.builder("gateway_pool_upstream_max_connections").register(registry);
+	}
+
+	// Rute nastaju tek kada se servis prvi put pozove, zato se lista periodično osvežava
+	@Scheduled(fixedDelay = 15000)
+	public void refreshUpstreamGauges() {
+		leasedByUpstream.register(rows(PoolStats::getLeased), true);
+		availableByUpstream.register(rows(PoolStats::getAvailable), true);
+		pendingByUpstream.register(rows(PoolStats::getPending), true);
+		maxByUpstream.register(rows(PoolStats::getMax), true);
+	}
+
+	private void registerTotals(String client, ConnPoolControl<HttpRoute> pool) {
+		Gauge.builder("gateway_pool_leased_connections", pool, p -> p.getTotalStats().getLeased())
+				.tag("client", client).register(registry);
+		Gauge.builder("gateway_pool_available_connections", pool, p -> p.getTotalStats().getAvailable())
+				.tag("client", client).register(registry);
+		Gauge.builder("gateway_pool_pending_requests", pool, p -> p.getTotalStats().getPending())
+				.tag("client", client).register(registry);
+		Gauge.builder("gateway_pool_max_connections", pool, p -> p.getTotalStats().getMax())
+				.tag("client", client).register(registry);
+	}
+
+	private List<MultiGauge.Row<?>> rows(ToIntFunction<PoolStats> metric) {
+		List<MultiGauge.Row<?>> rows = new ArrayList<>();
+		addRows(rows, "blocking", connectionManager, metric);
+		addRows(rows, "async", asyncConnectionManager, metric);
+		return rows;
+	}
+
+	private void addRows(List<MultiGauge.Row<?>> rows, String client, ConnPoolControl<HttpRoute> pool,
+			ToIntFunction<PoolStats> metric) {
+		for (HttpRoute route : pool.getRoutes()) {
+			Tags tags = Tags.of("client", client, "upstream", route.getTargetHost().toHostString());
+			rows.add(MultiGauge.Row.of(tags, pool, p -> metric.applyAsInt(p.getStats(route))));
+		}
+	}
+}
@@ -0,0 +1,231 @@
+package com.radovan.spring.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+// Size-bounded cache for GET responses of configured routes, one entry per URL and Authorization header
+@Component
+public class GatewayResponseCache {
+
+	private static final int MAX_ENTRY_BYTES = 1024 * 1024;
+	// Istekli unosi sa upstream ETag-om ostaju duže da bi se revalidirali umesto ponovnog preuzimanja
+	private static final int STALE_FACTOR = 5;
+	// Koliko poslednjih invalidacija se pamti za proveru punjenja koja su još u toku
+	private static final int MAX_RECENT_INVALIDATIONS = 256;
+
+	private final long ttlMillis = readEnv("GATEWAY_CACHE_TTL_SECONDS", 60) * 1000;
+	private final Deque<Invalidation> recentInvalidations = new ArrayDeque<>();
+	private long generation;
+	private ObjectMapper objectMapper;
+	private final Cache<String, CachedResponse> cache = Caffeine.newBuilder()
+			.maximumWeight(readEnv("GATEWAY_CACHE_MAX_BYTES", 64L * 1024 * 1024))
+			.weigher((String key, CachedResponse entry) -> key.length() + entry.getBody().length)
+			.expireAfterWrite(Duration.ofMillis(ttlMillis * STALE_FACTOR)).build();
+
+	@Autowired
+	private void initialize(ObjectMapper objectMapper) {
+		this.objectMapper = objectMapper;
+	}
+
+	// Autorizacija je deo ključa jer product-service sam proverava token, odgovor se ne deli između korisnika
+	public String keyFor(HttpServletRequest request) {
+		String queryString = request.getQueryString();
+		String authorization = request.getHeader(HttpHeaders.AUTHORIZATION);
+		return request.getRequestURI() + (queryString == null ? "" : "?" + queryString) + "|"
+				+ (authorization == null ? "" : digest(authorization));
+	}
+
+	public CachedResponse get(String key) {
+		return cache.getIfPresent(key);
+	}
+
+	// Vrednost se uzima pre poziva upstream-a, punjenje se odbacuje ako je u međuvremenu stigla invalidacija
+	public synchronized long currentGeneration() {
+		return generation;
+	}
+
+	public CachedResponse store(String key, HttpServletRequest request, ResponseEntity<byte[]> response,
+			long fetchGeneration) {
+		byte[] body = response.getBody() == null ? new byte[0] : response.getBody();
+		HttpHeaders headers = response.getHeaders();
+		String upstreamEtag = headers.getETag();
+		CachedResponse entry = new CachedResponse(request.getRequestURI(),
+				subjectOf(request.getHeader(HttpHeaders.AUTHORIZATION)), response.getStatusCode().value(), headers,
+				body, upstreamEtag != null ? upstreamEtag : computeEtag(body), upstreamEtag,
+				System.currentTimeMillis() + ttlMillis);
+
+		if (isStorable(response, body)) {
+			synchronized (this) {
+				// Odbacuje se samo punjenje koje pogađa neka od invalidacija stiglih posle početka poziva
+				if (!isInvalidatedSince(entry, fetchGeneration)) {
+					cache.put(key, entry);
+				}
+			}
+		}
+		return entry;
+	}
+
+	public void markRevalidated(String key, CachedResponse entry) {
+		entry.setExpiresAtMillis(System.currentTimeMillis() + ttlMillis);
+		cache.put(key, entry);
+	}
+
+	public void invalidatePaths(Collection<String> pathPrefixes) {
+		List<String> prefixes = List.copyOf(pathPrefixes);
+		invalidate(entry -> isUnderAnyPrefix(entry.getPath(), prefixes));
+	}
+
+	// Suspendovanom korisniku se keširani odgovori više ne služe, sledeći zahtev ide do servisa koji ga odbija
+	public void invalidateSubject(String subject) {
+		invalidate(entry -> Objects.equals(subject, entry.getSubject()));
+	}
+
+	// Prefiks pogađa samu putanju i sve ispod nje, /api/products/5 ne pogađa /api/products/50
+	static boolean isUnderAnyPrefix(String path, Collection<String> prefixes) {
+		for (String prefix : prefixes) {
+			if (path.startsWith(prefix) && (path.length() == prefix.length() || prefix.endsWith("/")
+					|| path.charAt(prefix.length()) == '/')) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private synchronized void invalidate(Predicate<CachedResponse> matcher) {
+		generation++;
+		recentInvalidations.addLast(new Invalidation(generation, matcher));
+		if (recentInvalidations.size() > MAX_RECENT_INVALIDATIONS) {
+			recentInvalidations.removeFirst();
+		}
+		cache.asMap().values().removeIf(matcher);
+	}
+
+	private boolean isInvalidatedSince(CachedResponse entry, long fetchGeneration) {
+		if (fetchGeneration == generation) {
+			return false;
+		}
+		Invalidation oldest = recentInvalidations.peekFirst();
+		// Invalidacije starije od zapamćenih se ne mogu proveriti, punjenje se tada odbacuje
+		if (oldest == null || oldest.generation() > fetchGeneration + 1) {
+			return true;
+		}
+		for (Invalidation invalidation : recentInvalidations) {
+			if (invalidation.generation() > fetchGeneration && invalidation.matcher().test(entry)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	// Subject se čita iz tela tokena bez provere potpisa, služi samo za invalidaciju, ključ keša ostaje ceo token
+	private String subjectOf(String authorization) {
+		if (authorization == null || !authorization.startsWith("Bearer ")) {
+			return null;
+		}
+		String[] parts = authorization.substring(7).trim().split("\\.");
+		if (parts.length < 2) {
+			return null;
+		}
+		try {
+			return objectMapper.readTree(Base64.getUrlDecoder().decode(parts[1])).path("sub").asText(null);
+		} catch (Exception e) {
+			return null;
+		}
+	}
+
+	public ResponseEntity<byte[]> toResponse(CachedResponse entry, HttpServletRequest request, String cacheStatus) {
+		if (matchesIfNoneMatch(request.getHeader(HttpHeaders.IF_NONE_MATCH), entry.getEtag())) {
+			return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(entry.getEtag())
+					.header("X-Cache", cacheStatus).build();
+		}
+		return ResponseEntity.status(entry.getStatus()).headers(entry.getHeaders()).eTag(entry.getEtag())
+				.header("X-Cache", cacheStatus).body(entry.getBody());
+	}
+
+	private boolean isStorable(ResponseEntity<byte[]> response, byte[] body) {
+		if (response.getStatusCode().value() != HttpStatus.OK.value() || body.length > MAX_ENTRY_BYTES
+				|| response.getHeaders().containsKey(HttpHeaders.SET_COOKIE)) {
+			return false;
+		}
+		String cacheControl = response.getHeaders().getCacheControl();
+		if (cacheControl != null && (cacheControl.contains("no-store")
+				|| cacheControl.contains("private"))) {
+			return false;
+		}
+		String vary = response.getHeaders().getFirst(HttpHeaders.VARY);
+		return vary == null || !vary.contains("*");
+	}
+
+	private boolean matchesIfNoneMatch(String ifNoneMatch, String etag) {
+		if (ifNoneMatch == null || etag == null) {
+			return false;
+		}
+		String expected = stripWeak(etag);
+		for (String candidate : ifNoneMatch.split(",")) {
+			String value = candidate.trim();
+			if (value.equals("*") || stripWeak(value).equals(expected)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private String stripWeak(String etag) {
+		return etag.startsWith("W/") ? etag.substring(2) : etag;
+	}
+
+	private String computeEtag(byte[] body) {
+		byte[] hash = sha256(body);
+		return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(hash).substring(0, 22) + "\"";
+	}
+
+	private String digest(String value) {
+		return HexFormat.of().formatHex(sha256(value.getBytes(StandardCharsets.UTF_8)));
+	}
+
+	private byte[] sha256(byte[] value) {
+		try {
+			return MessageDigest.getInstance("SHA-256").digest(value);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not available", e);
+		}
+	}
+
+	private static long readEnv(String name, long defaultValue) {
+		String value = System.getenv(name);
+		if (value == null || value.isBlank()) {
+			return defaultValue;
+		}
+		try {
+			return Long.parseLong(value.trim());
+		} catch (NumberFormatException e) {
+			System.err.println("Invalid value for " + name + ": " + value + ", using " + defaultValue);
+			return defaultValue;
+		}
+	}
+
+	private record Invalidation(long generation, Predicate<CachedResponse> matcher) {
+	}
+}
@@ -0,0 +1,58 @@
+package com.radovan.spring.utils;
+
+// Podešavanja jedne rute, nepromenljiva i deljena između svih zahteva
+public final class GatewayRoute {
+
+	private final String prefix;
+	private final String serviceName;
+	private final boolean streaming;
+	private final boolean convertResponse;
+	private final boolean cacheResponse;
+	private final boolean authRequired;
+	private final long timeoutMillis;
+
+	GatewayRoute(String prefix, String serviceName, boolean streaming, boolean convertResponse,
+			boolean cacheResponse, boolean authRequired, long timeoutMillis) {
+		this.prefix = prefix;
+		this.serviceName = serviceName;
+		this.streaming = streaming;
+		this.convertResponse = convertResponse;
+		this.cacheResponse = cacheResponse;
+		this.authRequired = authRequired;
+		this.timeoutMillis = timeoutMillis;
+	}
+
+	public String getPrefix() {
+		return prefix;
+	}
+
+	public String getServiceName() {
+		return serviceName;
+	}
+
+	public boolean isStreaming() {
+		return streaming;
+	}
+
+	public boolean isConvertResponse() {
+		return convertResponse;
+	}
+
+	public boolean isCacheResponse() {
+		return cacheResponse;
+	}
+
+	public boolean isAuthRequired() {
+		return authRequired;
+	}
+
+	// 0 znači podrazumevani timeout HTTP klijenta
+	public long getTimeoutMillis() {
+		return timeoutMillis;
+	}
+
+	@Override
+	public String toString() {
+		return "/api/" + prefix + " -> " + serviceName;
+	}
+}
@@ -0,0 +1,38 @@
+package com.radovan.spring.utils;
+
+import java.util.Locale;
+import java.util.Set;
+
+import org.springframework.http.HttpHeaders;
+
+public final class ProxyHeaders {
+
+	// Zaglavlja koja važe samo za jednu konekciju, plus ona koja gateway sam postavlja
+	private static final Set<String> HOP_BY_HOP_HEADERS = Set.of("connection", "keep-alive", "proxy-authenticate",
+			"proxy-authorization", "te", "trailer", "transfer-encoding", "upgrade", "host", "content-length");
+
+	private ProxyHeaders() {
+	}
+
+	public static boolean isForwardableRequestHeader(String headerName) {
+		return !HOP_BY_HOP_HEADERS.contains(headerName.toLowerCase(Locale.ROOT));
+	}
+
+	public static boolean isForwardableResponseHeader(String headerName) {
+		String name = headerName.toLowerCase(Locale.ROOT);
+		// CORS zaglavlja postavlja gateway, upstream kopije bi ih duplirale
+		return !HOP_BY_HOP_HEADERS.contains(name) && !name.startsWith("access-control-");
+	}
+
+	public static HttpHeaders forwardableResponseHeaders(HttpHeaders upstreamHeaders) {
+		HttpHeaders headers = new HttpHeaders();
+		if (upstreamHeaders != null) {
+			upstreamHeaders.forEach((name, values) -> {
+				if (isForwardableResponseHeader(name)) {
+					headers.addAll(name, values);
+				}
+			});
+		}
+		return headers;
+	}
+}
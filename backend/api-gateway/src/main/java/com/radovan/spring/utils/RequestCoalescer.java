@@ -0,0 +1,103 @@
+package com.radovan.spring.utils;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+// Identical idempotent requests that arrive while one is already in flight wait for its response instead of going upstream
+@Component
+public class RequestCoalescer {
+
+	// Zaglavlja koja mogu da promene odgovor, zahtevi se spajaju samo ako su ona ista
+	private static final List<String> KEY_HEADERS = List.of(HttpHeaders.AUTHORIZATION, HttpHeaders.ACCEPT,
+			HttpHeaders.ACCEPT_ENCODING, HttpHeaders.ACCEPT_LANGUAGE, HttpHeaders.COOKIE, HttpHeaders.IF_NONE_MATCH,
+			HttpHeaders.IF_MODIFIED_SINCE);
+
+	private final Map<String, CompletableFuture<ResponseEntity<byte[]>>> inFlight = new ConcurrentHashMap<>();
+	private Counter coalescedRequests;
+
+	@Autowired
+	private void initialize(MeterRegistry registry) {
+		this.coalescedRequests = Counter.builder("gateway_coalesced_requests_total")
+				.description("Requests served from an identical in-flight upstream call").register(registry);
+	}
+
+	public static boolean isCoalescible(HttpMethod method) {
+		return method == HttpMethod.GET || method == HttpMethod.HEAD;
+	}
+
+	public static String keyFor(HttpMethod method, String pathAndQuery, HttpHeaders headers) {
+		StringBuilder key = new StringBuilder(method.name()).append(' ').append(pathAndQuery);
+		for (String headerName : KEY_HEADERS) {
+			List<String> values = headers.get(headerName);
+			key.append('|');
+			if (values != null) {
+				key.append(String.join(",", values));
+			}
+		}
+		return key.toString();
+	}
+
+	public ResponseEntity<byte[]> execute(String key, Supplier<ResponseEntity<byte[]>> upstreamCall) {
+		CompletableFuture<ResponseEntity<byte[]>> leader = new CompletableFuture<>();
+		CompletableFuture<ResponseEntity<byte[]>> existing = inFlight.putIfAbsent(key, leader);
+		if (existing != null) {
+			coalescedRequests.increment();
+			return await(existing);
+		}
+
+		try {
+			ResponseEntity<byte[]> response = upstreamCall.get();
+			leader.complete(response);
+			return response;
+		} catch (RuntimeException | Error e) {
+			leader.completeExceptionally(e);
+			throw e;
+		} finally {
+			// Zahtevi koji stignu posle završetka idu na upstream, deli se samo ono što je još u toku
+			inFlight.remove(key, leader);
+		}
+	}
+
+	// Posle invalidacije novi zahtevi ne smeju da se priključe pozivu započetom pre nje, ostali pozivi se i dalje dele
+	public void detachInFlight(Collection<String> pathPrefixes) {
+		inFlight.keySet().removeIf(key -> GatewayResponseCache.isUnderAnyPrefix(pathOf(key), pathPrefixes));
+	}
+
+	// Ključ ima oblik "GET /api/products/5?query|zaglavlja..."
+	private static String pathOf(String key) {
+		int start = key.indexOf(' ') + 1;
+		int end = start;
+		while (end < key.length() && key.charAt(end) != '?' && key.charAt(end) != '|') {
+			end++;
+		}
+		return key.substring(start, end);
+	}
+
+	private ResponseEntity<byte[]> await(CompletableFuture<ResponseEntity<byte[]>> future) {
+		try {
+			return future.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException runtimeException) {
+				throw runtimeException;
+			}
+			if (e.getCause() instanceof Error error) {
+				throw error;
+			}
+			throw e;
+		}
+	}
+}
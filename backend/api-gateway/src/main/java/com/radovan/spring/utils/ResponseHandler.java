@@ -5,17 +5,21 @@ import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.dataformat.xml.XmlMapper;
 
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.*;
 import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientResponseException;
 import org.springframework.web.client.RestTemplate;
 
 @Component
 public class ResponseHandler {
 
+	private final XmlMapper xmlMapper = new XmlMapper();
 	private ObjectMapper objectMapper;
 	private RestTemplate restTemplate;
 
@@ -25,6 +29,19 @@ public class ResponseHandler {
 		this.restTemplate = restTemplate;
 	}
 
+	// Prosleđuje bajtove i zaglavlja upstream-a bez parsiranja, uključujući i statuse grešaka
+	public ResponseEntity<byte[]> fetchPassThrough(String fullUrl, HttpMethod method, HttpEntity<?> entity) {
+		try {
+			ResponseEntity<byte[]> response = restTemplate.exchange(fullUrl, method, entity, byte[].class);
+			return ResponseEntity.status(response.getStatusCode())
+					.headers(ProxyHeaders.forwardableResponseHeaders(response.getHeaders())).body(response.getBody());
+		} catch (RestClientResponseException e) {
+			return ResponseEntity.status(e.getStatusCode())
+					.headers(ProxyHeaders.forwardableResponseHeaders(e.getResponseHeaders()))
+					.body(e.getResponseBodyAsByteArray());
+		}
+	}
+
 	public ResponseEntity<String> fetchAndConvertToJson(String fullUrl, HttpMethod method, HttpEntity<?> entity)
 	        throws JsonMappingException, JsonProcessingException {
 	    ResponseEntity<String> response = restTemplate.exchange(fullUrl, method, entity, String.class);
@@ -46,27 +63,28 @@ public class ResponseHandler {
 	        String jsonFormattedBody = convertXmlToJson(responseBody);
 	        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(jsonFormattedBody);
 	    }
-	    
+
+	    // JSON se vraća kakav jeste, bez ponovnog parsiranja i formatiranja
 	    if (contentType != null && contentType.includes(MediaType.APPLICATION_JSON)) {
-	        try {
-	            Object jsonObject = objectMapper.readValue(responseBody, Object.class);
-	            String prettyJson = objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(jsonObject);
-	            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(prettyJson);
-	        } catch (JsonProcessingException e) {
-	            // fallback ako je Content-Type = JSON, ali body zapravo nije
-	            String fallback = convertPlainTextToJson(responseBody);
-	            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(fallback);
-	        }
+	        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(responseBody);
 	    }
 
-
-	    // Ako je JSON, samo ga lepo formatiramo
 	    Object jsonObject = objectMapper.readValue(responseBody, Object.class);
-	    String prettyJson = objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(jsonObject);
-	    return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(prettyJson);
+	    return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(objectMapper.writeValueAsString(jsonObject));
 	}
 
 
+	// Konvertovan odgovor u obliku bajtova, da bi ga keš i spajanje zahteva tretirali isto kao prosleđen
+	public ResponseEntity<byte[]> fetchConverted(String fullUrl, HttpMethod method, HttpEntity<?> entity) {
+		try {
+			ResponseEntity<String> response = fetchAndConvertToJson(fullUrl, method, entity);
+			byte[] body = response.getBody() == null ? null : response.getBody().getBytes(StandardCharsets.UTF_8);
+			return ResponseEntity.status(response.getStatusCode()).headers(response.getHeaders()).body(body);
+		} catch (JsonProcessingException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
 	private String convertPlainTextToJson(String text) throws JsonProcessingException {
 		Map<String, String> jsonMap = new HashMap<>();
 		jsonMap.put("message", text); // Konvertujemo plain text u JSON strukturu
@@ -74,7 +92,6 @@ public class ResponseHandler {
 	}
 
 	private String convertXmlToJson(String xml) throws JsonProcessingException {
-	    XmlMapper xmlMapper = new XmlMapper();
 	    Object jsonObject = xmlMapper.readValue(xml, Object.class);
 	    return objectMapper.writeValueAsString(jsonObject);
 	}
@@ -0,0 +1,172 @@
+package com.radovan.spring.utils;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.springframework.stereotype.Component;
+
+// Prefix trie over the path after /api/, built once at startup, lookups walk the URI in place without allocating
+@Component
+public class RouteTable {
+
+	private static final String API_PREFIX = "/api/";
+
+	private static final Map<String, String> DEFAULT_ROUTES = defaultRoutes();
+
+	private final Node root = new Node();
+
+	public RouteTable() {
+		// Dodatne ili izmenjene rute, npr. GATEWAY_ROUTES=products/images=image-service,reviews=review-service
+		Map<String, String> routes = new LinkedHashMap<>(DEFAULT_ROUTES);
+		routes.putAll(parseAssignments("GATEWAY_ROUTES"));
+
+		Set<String> streaming = parsePrefixes(System.getenv("GATEWAY_STREAMING_ROUTES"));
+		// Podrazumevano se text i XML odgovori pretvaraju u JSON kao i ranije, prosleđivanje bez izmena se uključuje po ruti
+		Set<String> passThrough = parsePrefixes(System.getenv("GATEWAY_PASSTHROUGH_ROUTES"));
+		Set<String> cached = parsePrefixes(
+				Optional.ofNullable(System.getenv("GATEWAY_CACHED_ROUTES")).orElse("products,categories"));
+		Set<String> authRequired = parsePrefixes(
+				Optional.ofNullable(System.getenv("GATEWAY_AUTH_REQUIRED_ROUTES")).orElse("cart,order"));
+		// Npr. GATEWAY_ROUTE_TIMEOUTS=order=10000,products=3000
+		Map<String, String> timeouts = parseAssignments("GATEWAY_ROUTE_TIMEOUTS");
+
+		routes.forEach((prefix, serviceName) -> insert(new GatewayRoute(prefix, serviceName,
+				streaming.contains(prefix), !passThrough.contains(prefix), cached.contains(prefix),
+				authRequired.contains(prefix), parseTimeout(prefix, timeouts.get(prefix)))));
+
+		for (Set<String> settings : List.of(streaming, passThrough, cached, authRequired, timeouts.keySet())) {
+			settings.stream().filter(prefix -> !routes.containsKey(prefix)).forEach(
+					prefix -> System.err.println("Route settings for unknown prefix '" + prefix + "' ignored"));
+		}
+	}
+
+	// Najduži prefiks koji se završava na granici segmenta, /api/products/images ima prednost nad /api/products
+	public GatewayRoute resolve(String requestUri) {
+		if (requestUri == null || !requestUri.startsWith(API_PREFIX)) {
+			return null;
+		}
+
+		GatewayRoute match = null;
+		Node node = root;
+		int length = requestUri.length();
+		for (int i = API_PREFIX.length(); i < length; i++) {
+			node = node.child(requestUri.charAt(i));
+			if (node == null) {
+				break;
+			}
+			if (node.route != null && (i + 1 == length || requestUri.charAt(i + 1) == '/')) {
+				match = node.route;
+			}
+		}
+		return match;
+	}
+
+	private void insert(GatewayRoute route) {
+		Node node = root;
+		String prefix = route.getPrefix();
+		for (int i = 0; i < prefix.length(); i++) {
+			node = node.childOrCreate(prefix.charAt(i));
+		}
+		node.route = route;
+	}
+
+	// Svaki čvor drži mali niz potomaka, linearna pretraga je brža od mape za par znakova
+	private static final class Node {
+
+		private char[] keys = new char[0];
+		private Node[] children = new Node[0];
+		private GatewayRoute route;
+
+		private Node child(char key) {
+			char[] currentKeys = keys;
+			for (int i = 0; i < currentKeys.length; i++) {
+				if (currentKeys[i] == key) {
+					return children[i];
+				}
+			}
+			return null;
+		}
+
+		private Node childOrCreate(char key) {
+			Node existing = child(key);
+			if (existing != null) {
+				return existing;
+			}
+			Node created = new Node();
+			keys = Arrays.copyOf(keys, keys.length + 1);
+			children = Arrays.copyOf(children, children.length + 1);
+			keys[keys.length - 1] = key;
+			children[children.length - 1] = created;
+			return created;
+		}
+	}
+
+	private static Map<String, String> defaultRoutes() {
+		Map<String, String> routes = new LinkedHashMap<>();
+		routes.put("products", "product-service");
+		routes.put("categories", "product-service");
+		routes.put("auth", "auth-service");
+		routes.put("cart", "cart-service");
+		routes.put("order", "order-service");
+		routes.put("customers", "customer-service");
+		routes.put("addresses", "customer-service");
+		return routes;
+	}
+
+	private static long parseTimeout(String prefix, String value) {
+		if (value == null) {
+			return 0;
+		}
+		try {
+			return Long.parseLong(value);
+		} catch (NumberFormatException e) {
+			System.err.println("Invalid timeout for route '" + prefix + "': " + value + ", using default");
+			return 0;
+		}
+	}
+
+	private static Map<String, String> parseAssignments(String name) {
+		Map<String, String> assignments = new HashMap<>();
+		for (String entry : parseSegments(System.getenv(name))) {
+			int separator = entry.indexOf('=');
+			if (separator <= 0 || separator == entry.length() - 1) {
+				System.err.println("Invalid entry in " + name + ": " + entry);
+				continue;
+			}
+			assignments.put(normalize(entry.substring(0, separator)), entry.substring(separator + 1).trim());
+		}
+		return assignments;
+	}
+
+	private static Set<String> parsePrefixes(String value) {
+		return parseSegments(value).stream().map(RouteTable::normalize).collect(Collectors.toUnmodifiableSet());
+	}
+
+	private static Set<String> parseSegments(String value) {
+		if (value == null || value.isBlank()) {
+			return Set.of();
+		}
+		return Arrays.stream(value.split(",")).map(String::trim).filter(segment -> !segment.isEmpty())
+				.collect(Collectors.toUnmodifiableSet());
+	}
+
+	// Prefiks se čuva bez vodećih i pratećih kosih crta
+	private static String normalize(String prefix) {
+		String trimmed = prefix.trim();
+		int start = 0;
+		int end = trimmed.length();
+		while (start < end && trimmed.charAt(start) == '/') {
+			start++;
+		}
+		while (end > start && trimmed.charAt(end - 1) == '/') {
+			end--;
+		}
+		return trimmed.substring(start, end);
+	}
+}
@@ -1,35 +1,58 @@
 package com.radovan.spring.utils;
 
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.radovan.spring.services.EurekaServiceDiscovery;
 
+import jakarta.annotation.PostConstruct;
+
+// The same file is kept in api-gateway, cart-service and customer-service, change all copies together
 @Component
 public class ServiceUrlProvider {
 
-	private final Map<String, String> cachedServiceUrls = new ConcurrentHashMap<>();
 	private EurekaServiceDiscovery eurekaServiceDiscovery;
 
+	// Instance po aplikaciji i instanceId-u, menja ih samo nit koja osvežava registar
+	private final Map<String, Map<String, JsonNode>> registry = new HashMap<>();
+	private boolean fullFetchRequired = true;
+
+	// Nepromenljiv snimak koji se zamenjuje u celosti, čitaoci ne zaključavaju ništa
+	private volatile Map<String, List<String>> snapshot = Map.of();
+
 	@Autowired
 	private void initialize(EurekaServiceDiscovery eurekaServiceDiscovery) {
 		this.eurekaServiceDiscovery = eurekaServiceDiscovery;
 	}
 
+	@PostConstruct
+	public void init() {
+		refreshRegistry();
+	}
+
 	public String getServiceUrl(String serviceName) {
-		return cachedServiceUrls.computeIfAbsent(serviceName, key -> {
-			try {
-				String serviceUrl = eurekaServiceDiscovery.getServiceUrl(serviceName);
-				validateUrl(serviceUrl, serviceName);
-				return serviceUrl;
-			} catch (RuntimeException e) {
-				System.err.println("Failed to retrieve service URL for: " + serviceName + " - " + e.getMessage());
-				throw e;
-			}
-		});
+		List<String> serviceUrls = snapshot.get(serviceName);
+		if (serviceUrls == null || serviceUrls.isEmpty()) {
+			throw new IllegalStateException("Service " + serviceName + " is not registered in Eureka");
+		}
+		if (serviceUrls.size() == 1) {
+			return serviceUrls.get(0);
+		}
+		return serviceUrls.get(ThreadLocalRandom.current().nextInt(serviceUrls.size()));
+	}
+
+	public List<String> getServiceUrls(String serviceName) {
+		return snapshot.getOrDefault(serviceName, List.of());
 	}
 
 	public String getAuthServiceUrl() {
@@ -62,4 +85,109 @@ public class ServiceUrlProvider {
 		}
 	}
 
+	// Posle prvog punog preuzimanja stižu samo promene, a pun registar se ponovo vuče ako se hash ne poklopi
+	@Scheduled(fixedDelay = 10000)
+	public synchronized void refreshRegistry() {
+		try {
+			boolean changed;
+			if (fullFetchRequired) {
+				applyFullRegistry(eurekaServiceDiscovery.fetchApplications(false));
+				changed = true;
+			} else {
+				JsonNode delta = eurekaServiceDiscovery.fetchApplications(true);
+				changed = applyDelta(delta);
+				if (!computeHashCode().equals(delta.path("apps__hashcode").asText())) {
+					applyFullRegistry(eurekaServiceDiscovery.fetchApplications(false));
+					changed = true;
+				}
+			}
+			fullFetchRequired = false;
+
+			if (changed) {
+				publishSnapshot();
+			}
+		} catch (RuntimeException e) {
+			fullFetchRequired = true;
+			System.err.println("Failed to refresh service registry - " + e.getMessage());
+		}
+	}
+
+	private void applyFullRegistry(JsonNode applications) {
+		registry.clear();
+		for (JsonNode application : elements(applications.path("application"))) {
+			Map<String, JsonNode> instances = new HashMap<>();
+			for (JsonNode instance : elements(application.path("instance"))) {
+				instances.put(instanceKey(instance), instance);
+			}
+			registry.put(application.path("name").asText().toLowerCase(), instances);
+		}
+	}
+
+	private boolean applyDelta(JsonNode applications) {
+		boolean changed = false;
+		for (JsonNode application : elements(applications.path("application"))) {
+			String appName = application.path("name").asText().toLowerCase();
+			Map<String, JsonNode> instances = registry.computeIfAbsent(appName, key -> new HashMap<>());
+			for (JsonNode instance : elements(application.path("instance"))) {
+				if ("DELETED".equals(instance.path("actionType").asText())) {
+					instances.remove(instanceKey(instance));
+				} else {
+					instances.put(instanceKey(instance), instance);
+				}
+				changed = true;
+			}
+			if (instances.isEmpty()) {
+				registry.remove(appName);
+			}
+		}
+		return changed;
+	}
+
+	private void publishSnapshot() {
+		Map<String, List<String>> next = new HashMap<>();
+		registry.forEach((serviceName, instances) -> {
+			Set<String> serviceUrls = new LinkedHashSet<>();
+			for (JsonNode instance : instances.values()) {
+				if (!"UP".equals(instance.path("status").asText())) {
+					continue;
+				}
+				try {
+					String serviceUrl = eurekaServiceDiscovery.resolveInstanceUrl(serviceName, instance);
+					validateUrl(serviceUrl, serviceName);
+					serviceUrls.add(serviceUrl);
+				} catch (RuntimeException e) {
+					System.err.println("Failed to retrieve service URL for: " + serviceName + " - " + e.getMessage());
+				}
+			}
+			next.put(serviceName, List.copyOf(serviceUrls));
+		});
+		snapshot = Map.copyOf(next);
+	}
+
+	// Isti format kao Eureka apps__hashcode, npr. DOWN_1_UP_3_
+	private String computeHashCode() {
+		Map<String, Integer> statusCounts = new TreeMap<>();
+		registry.values().forEach(instances -> instances.values()
+				.forEach(instance -> statusCounts.merge(instance.path("status").asText(), 1, Integer::sum)));
+		StringBuilder hashCode = new StringBuilder();
+		statusCounts.forEach((status, count) -> hashCode.append(status).append('_').append(count).append('_'));
+		return hashCode.toString();
+	}
+
+	private String instanceKey(JsonNode instance) {
+		JsonNode instanceId = instance.get("instanceId");
+		if (instanceId != null && !instanceId.asText().isEmpty()) {
+			return instanceId.asText();
+		}
+		return instance.path("hostName").asText() + ":" + instance.path("port").path("$").asText();
+	}
+
+	// Eureka vraća objekat umesto niza kada postoji samo jedan element
+	private Iterable<JsonNode> elements(JsonNode node) {
+		if (node.isMissingNode() || node.isNull()) {
+			return List.of();
+		}
+		return node.isArray() ? node : List.of(node);
+	}
+
 }
@@ -0,0 +1,119 @@
+package com.radovan.spring.utils;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Collections;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.message.BasicHttpRequest;
+import org.apache.hc.core5.http.nio.support.BasicRequestProducer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+@Component
+public class StreamingProxyHandler {
+
+	private static final long ASYNC_TIMEOUT_MILLIS = 60_000;
+
+	private CloseableHttpAsyncClient httpAsyncClient;
+
+	@Autowired
+	private void initialize(CloseableHttpAsyncClient httpAsyncClient) {
+		this.httpAsyncClient = httpAsyncClient;
+	}
+
+	// timeoutMillis je ograničenje rute za celu razmenu, 0 znači podrazumevanih 60 sekundi
+	public void forward(UpstreamInstance instance, UpstreamGuard.Permit permit, String fullUrl, long timeoutMillis,
+			HttpServletRequest request, HttpServletResponse response) throws IOException {
+		BasicHttpRequest upstreamRequest = new BasicHttpRequest(request.getMethod(), URI.create(fullUrl));
+		Collections.list(request.getHeaderNames()).forEach(headerName -> {
+			if (ProxyHeaders.isForwardableRequestHeader(headerName)) {
+				Collections.list(request.getHeaders(headerName))
+						.forEach(value -> upstreamRequest.addHeader(headerName, value));
+			}
+		});
+
+		// Servlet nit se oslobađa odmah, ostatak razmene vode I/O niti klijenta i kontejnera
+		AsyncContext asyncContext = request.startAsync(request, response);
+		asyncContext.setTimeout(timeoutMillis > 0 ? timeoutMillis : ASYNC_TIMEOUT_MILLIS);
+
+		StreamingRequestProducer entityProducer = hasBody(request) ? new StreamingRequestProducer(request) : null;
+		StreamingResponseConsumer responseConsumer = new StreamingResponseConsumer(asyncContext);
+
+		asyncContext.addListener(new AsyncListener() {
+			@Override
+			public void onTimeout(AsyncEvent event) {
+				responseConsumer.abort(new TimeoutException("Upstream did not respond in time: " + fullUrl));
+			}
+
+			@Override
+			public void onError(AsyncEvent event) {
+				responseConsumer.abort(event.getThrowable());
+			}
+
+			@Override
+			public void onComplete(AsyncEvent event) {
+			}
+
+			@Override
+			public void onStartAsync(AsyncEvent event) {
+			}
+		});
+
+		// Read listener mora biti postavljen pre nego što klijent počne da traži podatke
+		if (entityProducer != null) {
+			entityProducer.start();
+		}
+
+		// Instanca se oslobađa tačno jednom, bez obzira koji od callback-ova stigne
+		AtomicBoolean released = new AtomicBoolean();
+		instance.acquire();
+
+		Future<Void> exchange = httpAsyncClient.execute(new BasicRequestProducer(upstreamRequest, entityProducer),
+				responseConsumer, new FutureCallback<Void>() {
+					@Override
+					public void completed(Void result) {
+						if (released.compareAndSet(false, true)) {
+							instance.recordSuccess();
+							instance.release();
+						}
+						permit.release(true);
+					}
+
+					@Override
+					public void failed(Exception ex) {
+						if (released.compareAndSet(false, true)) {
+							instance.recordFailure();
+							instance.release();
+						}
+						permit.release(false);
+						responseConsumer.failed(ex);
+					}
+
+					@Override
+					public void cancelled() {
+						if (released.compareAndSet(false, true)) {
+							instance.release();
+						}
+						// Prekid je pokrenuo klijent ili istek vremena, spor poziv se breaker-u ionako prijavljuje kao neuspeh
+						permit.release(true);
+						responseConsumer.failed(new IOException("Upstream request cancelled: " + fullUrl));
+					}
+				});
+		responseConsumer.setExchange(exchange);
+	}
+
+	private boolean hasBody(HttpServletRequest request) {
+		return request.getContentLengthLong() > 0 || request.getHeader("Transfer-Encoding") != null;
+	}
+}
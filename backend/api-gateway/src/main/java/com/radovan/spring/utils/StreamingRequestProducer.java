@@ -0,0 +1,150 @@
+package com.radovan.spring.utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Set;
+
+import org.apache.hc.core5.http.nio.AsyncEntityProducer;
+import org.apache.hc.core5.http.nio.DataStreamChannel;
+
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+
+// Feeds the client request body to the upstream without buffering it, reads happen only when the upstream can take data
+final class StreamingRequestProducer implements AsyncEntityProducer, ReadListener {
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private final HttpServletRequest request;
+	private final ServletInputStream inputStream;
+	private final ByteBuffer pending = ByteBuffer.allocate(BUFFER_SIZE);
+	private DataStreamChannel channel;
+	private boolean allDataRead;
+	private boolean ended;
+	private Throwable failure;
+
+	StreamingRequestProducer(HttpServletRequest request) throws IOException {
+		this.request = request;
+		this.inputStream = request.getInputStream();
+	}
+
+	// Mora se pozvati tek nakon startAsync
+	void start() {
+		inputStream.setReadListener(this);
+	}
+
+	@Override
+	public synchronized void onDataAvailable() throws IOException {
+		readAvailable();
+		if (channel != null && pending.position() > 0) {
+			channel.requestOutput();
+		}
+	}
+
+	@Override
+	public synchronized void onAllDataRead() {
+		allDataRead = true;
+		if (channel != null) {
+			channel.requestOutput();
+		}
+	}
+
+	@Override
+	public synchronized void onError(Throwable t) {
+		failure = t;
+		if (channel != null) {
+			channel.requestOutput();
+		}
+	}
+
+	@Override
+	public synchronized int available() {
+		if (channel == null || failure != null) {
+			return Math.max(1, pending.position());
+		}
+		if (pending.position() > 0) {
+			return pending.position();
+		}
+		return allDataRead && !ended ? 1 : 0;
+	}
+
+	@Override
+	public synchronized void produce(DataStreamChannel channel) throws IOException {
+		this.channel = channel;
+		if (failure != null) {
+			throw new IOException("Failed to read request body", failure);
+		}
+
+		readAvailable();
+		pending.flip();
+		while (pending.hasRemaining()) {
+			if (channel.write(pending) == 0) {
+				break;
+			}
+		}
+		pending.compact();
+
+		// Ponovo čitamo da bi se kontejner prijavio za onDataAvailable ako trenutno nema podataka
+		readAvailable();
+
+		if (allDataRead && pending.position() == 0 && !ended) {
+			ended = true;
+			channel.endStream();
+		}
+	}
+
+	private void readAvailable() throws IOException {
+		while (!allDataRead && pending.hasRemaining() && inputStream.isReady()) {
+			int read = inputStream.read(pending.array(), pending.position(), pending.remaining());
+			if (read == -1) {
+				allDataRead = true;
+				break;
+			}
+			pending.position(pending.position() + read);
+			if (inputStream.isFinished()) {
+				allDataRead = true;
+			}
+		}
+	}
+
+	@Override
+	public boolean isRepeatable() {
+		return false;
+	}
+
+	@Override
+	public long getContentLength() {
+		return request.getContentLengthLong();
+	}
+
+	@Override
+	public String getContentType() {
+		return request.getContentType();
+	}
+
+	@Override
+	public String getContentEncoding() {
+		return request.getHeader("Content-Encoding");
+	}
+
+	@Override
+	public boolean isChunked() {
+		return request.getContentLengthLong() < 0;
+	}
+
+	@Override
+	public Set<String> getTrailerNames() {
+		return Set.of();
+	}
+
+	@Override
+	public void failed(Exception cause) {
+		// Greška se prijavljuje kroz StreamingResponseConsumer
+	}
+
+	@Override
+	public void releaseResources() {
+		// Nema resursa za oslobađanje, servlet stream zatvara kontejner
+	}
+}
@@ -0,0 +1,185 @@
+package com.radovan.spring.utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.EntityDetails;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.nio.AsyncResponseConsumer;
+import org.apache.hc.core5.http.nio.CapacityChannel;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+
+// Copies the upstream response to the client as it arrives, upstream reads are throttled by how fast the client drains
+final class StreamingResponseConsumer implements AsyncResponseConsumer<Void>, WriteListener {
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private final AsyncContext asyncContext;
+	private final HttpServletResponse response;
+	private ByteBuffer pending = ByteBuffer.allocate(BUFFER_SIZE);
+	private FutureCallback<Void> resultCallback;
+	private CapacityChannel capacityChannel;
+	private ServletOutputStream outputStream;
+	private Future<Void> exchange;
+	private boolean endOfStream;
+	private boolean completed;
+
+	StreamingResponseConsumer(AsyncContext asyncContext) {
+		this.asyncContext = asyncContext;
+		this.response = (HttpServletResponse) asyncContext.getResponse();
+	}
+
+	synchronized void setExchange(Future<Void> exchange) {
+		this.exchange = exchange;
+	}
+
+	@Override
+	public synchronized void consumeResponse(HttpResponse upstreamResponse, EntityDetails entityDetails,
+			HttpContext context, FutureCallback<Void> resultCallback) throws IOException {
+		this.resultCallback = resultCallback;
+		if (completed) {
+			return;
+		}
+
+		response.setStatus(upstreamResponse.getCode());
+		for (Header header : upstreamResponse.getHeaders()) {
+			if (ProxyHeaders.isForwardableResponseHeader(header.getName())) {
+				response.addHeader(header.getName(), header.getValue());
+			}
+		}
+
+		if (entityDetails == null) {
+			complete();
+			return;
+		}
+
+		if (entityDetails.getContentLength() >= 0) {
+			response.setContentLengthLong(entityDetails.getContentLength());
+		}
+		outputStream = response.getOutputStream();
+		outputStream.setWriteListener(this);
+	}
+
+	@Override
+	public void informationResponse(HttpResponse response, HttpContext context) {
+		// 1xx odgovori se ne prosleđuju klijentu
+	}
+
+	@Override
+	public synchronized void updateCapacity(CapacityChannel capacityChannel) throws IOException {
+		this.capacityChannel = capacityChannel;
+		capacityChannel.update(pending.remaining());
+	}
+
+	@Override
+	public synchronized void consume(ByteBuffer src) throws IOException {
+		if (completed) {
+			return;
+		}
+		if (pending.remaining() < src.remaining()) {
+			ByteBuffer larger = ByteBuffer.allocate(pending.position() + src.remaining());
+			pending.flip();
+			larger.put(pending);
+			pending = larger;
+		}
+		pending.put(src);
+		flush();
+	}
+
+	@Override
+	public synchronized void streamEnd(List<? extends Header> trailers) throws IOException {
+		endOfStream = true;
+		flush();
+	}
+
+	@Override
+	public synchronized void onWritePossible() throws IOException {
+		flush();
+	}
+
+	@Override
+	public void onError(Throwable t) {
+		abort(t);
+	}
+
+	// Klijent je prekinuo vezu ili je isteklo vreme, nema svrhe da nastavimo da čitamo sa upstream-a
+	void abort(Throwable t) {
+		Future<Void> currentExchange;
+		synchronized (this) {
+			currentExchange = exchange;
+		}
+		if (currentExchange != null) {
+			currentExchange.cancel(true);
+		}
+		failed(t instanceof Exception e ? e : new IOException(t));
+	}
+
+	@Override
+	public synchronized void failed(Exception cause) {
+		if (completed) {
+			return;
+		}
+		completed = true;
+		try {
+			if (!response.isCommitted() && outputStream == null) {
+				boolean timedOut = cause instanceof TimeoutException;
+				response.setStatus(timedOut ? HttpStatus.GATEWAY_TIMEOUT.value() : HttpStatus.BAD_GATEWAY.value());
+				response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+				response.getWriter().write("{\"message\": \"Upstream request failed\"}");
+			}
+		} catch (IOException | IllegalStateException e) {
+			// Odgovor je već delimično poslat, preostaje samo zatvaranje
+		} finally {
+			asyncContext.complete();
+		}
+	}
+
+	@Override
+	public void releaseResources() {
+		// Bafer se oslobađa zajedno sa ovim objektom
+	}
+
+	private void flush() throws IOException {
+		if (outputStream == null || completed) {
+			return;
+		}
+
+		pending.flip();
+		int written = 0;
+		while (pending.hasRemaining() && outputStream.isReady()) {
+			int length = Math.min(pending.remaining(), BUFFER_SIZE);
+			outputStream.write(pending.array(), pending.position(), length);
+			pending.position(pending.position() + length);
+			written += length;
+		}
+		pending.compact();
+
+		if (written > 0 && capacityChannel != null) {
+			capacityChannel.update(written);
+		}
+
+		if (endOfStream && pending.position() == 0 && outputStream.isReady()) {
+			complete();
+		}
+	}
+
+	private void complete() {
+		completed = true;
+		asyncContext.complete();
+		if (resultCallback != null) {
+			resultCallback.completed(null);
+		}
+	}
+}
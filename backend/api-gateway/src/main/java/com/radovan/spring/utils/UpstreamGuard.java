@@ -0,0 +1,108 @@
+package com.radovan.spring.utils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.radovan.spring.exceptions.ServiceUnavailableException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+// Per-service bulkhead and circuit breaker, a slow or failing service cannot hold more than its share of gateway threads
+@Component
+public class UpstreamGuard {
+
+	private final int maxConcurrentCalls = readEnv("GATEWAY_BULKHEAD_MAX_CONCURRENT", 64);
+	private final int failureThreshold = readEnv("GATEWAY_BREAKER_FAILURE_THRESHOLD", 5);
+	private final long openMillis = readEnv("GATEWAY_BREAKER_OPEN_SECONDS", 10) * 1000L;
+	private final long slowCallNanos = readEnv("GATEWAY_BREAKER_SLOW_CALL_MILLIS", 5000) * 1_000_000L;
+
+	private final Map<String, ServiceGuard> guards = new ConcurrentHashMap<>();
+	private MeterRegistry registry;
+
+	@Autowired
+	private void initialize(MeterRegistry registry) {
+		this.registry = registry;
+	}
+
+	// Odbija odmah umesto da čeka, nit se vraća klijentu sa 503 i ne blokira se na spor servis
+	public Permit acquire(String serviceName) {
+		ServiceGuard guard = guards.computeIfAbsent(serviceName, this::createGuard);
+
+		if (!guard.bulkhead.tryAcquire()) {
+			guard.bulkheadRejections.increment();
+			throw new ServiceUnavailableException(new Error("Service " + serviceName + " is at capacity"), 1);
+		}
+		if (!guard.breaker.tryAcquire()) {
+			guard.bulkhead.release();
+			guard.breakerRejections.increment();
+			throw new ServiceUnavailableException(new Error("Service " + serviceName + " is temporarily unavailable"),
+					guard.breaker.remainingOpenSeconds());
+		}
+		return new Permit(guard);
+	}
+
+	private ServiceGuard createGuard(String serviceName) {
+		ServiceGuard guard = new ServiceGuard(new Semaphore(maxConcurrentCalls),
+				new CircuitBreaker(failureThreshold, openMillis),
+				Counter.builder("gateway_upstream_rejected_total").tag("service", serviceName)
+						.tag("reason", "bulkhead_full").register(registry),
+				Counter.builder("gateway_upstream_rejected_total").tag("service", serviceName)
+						.tag("reason", "circuit_open").register(registry));
+
+		// 0 = CLOSED, 1 = OPEN, 2 = HALF_OPEN
+		Gauge.builder("gateway_circuit_breaker_state", guard.breaker, breaker -> breaker.getState().ordinal())
+				.tag("service", serviceName).register(registry);
+		Gauge.builder("gateway_bulkhead_active_calls", guard.bulkhead,
+				bulkhead -> maxConcurrentCalls - bulkhead.availablePermits()).tag("service", serviceName)
+				.register(registry);
+		return guard;
+	}
+
+	private record ServiceGuard(Semaphore bulkhead, CircuitBreaker breaker, Counter bulkheadRejections,
+			Counter breakerRejections) {
+	}
+
+	// Oslobađa se tačno jednom, spori pozivi se breaker-u prijavljuju kao neuspeli
+	public final class Permit {
+
+		private final ServiceGuard guard;
+		private final long startNanos = System.nanoTime();
+		private final AtomicBoolean released = new AtomicBoolean();
+
+		private Permit(ServiceGuard guard) {
+			this.guard = guard;
+		}
+
+		public void release(boolean success) {
+			if (!released.compareAndSet(false, true)) {
+				return;
+			}
+			guard.bulkhead.release();
+			if (success && System.nanoTime() - startNanos < slowCallNanos) {
+				guard.breaker.onSuccess();
+			} else {
+				guard.breaker.onFailure();
+			}
+		}
+	}
+
+	private static int readEnv(String name, int defaultValue) {
+		String value = System.getenv(name);
+		if (value == null || value.isBlank()) {
+			return defaultValue;
+		}
+		try {
+			return Integer.parseInt(value.trim());
+		} catch (NumberFormatException e) {
+			System.err.println("Invalid value for " + name + ": " + value + ", using " + defaultValue);
+			return defaultValue;
+		}
+	}
+}
@@ -0,0 +1,59 @@
+package com.radovan.spring.utils;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+// One registered replica of an upstream service together with the state the load balancer needs to pick between replicas
+public class UpstreamInstance {
+
+	private static final int MAX_CONSECUTIVE_FAILURES = 3;
+	private static final long EJECTION_MILLIS = 30_000;
+
+	private final String url;
+	private final AtomicInteger outstandingRequests = new AtomicInteger();
+	private final AtomicInteger consecutiveFailures = new AtomicInteger();
+	private volatile boolean healthy = true;
+	private volatile long ejectedUntilMillis;
+
+	public UpstreamInstance(String url) {
+		this.url = url;
+	}
+
+	public String getUrl() {
+		return url;
+	}
+
+	public int getOutstandingRequests() {
+		return outstandingRequests.get();
+	}
+
+	public boolean isAvailable(long nowMillis) {
+		return healthy && nowMillis >= ejectedUntilMillis;
+	}
+
+	public void acquire() {
+		outstandingRequests.incrementAndGet();
+	}
+
+	public void release() {
+		outstandingRequests.decrementAndGet();
+	}
+
+	public void recordSuccess() {
+		consecutiveFailures.set(0);
+	}
+
+	// Posle nekoliko uzastopnih grešaka instanca se privremeno izbacuje iz rotacije
+	public void recordFailure() {
+		if (consecutiveFailures.incrementAndGet() >= MAX_CONSECUTIVE_FAILURES) {
+			ejectedUntilMillis = System.currentTimeMillis() + EJECTION_MILLIS;
+			consecutiveFailures.set(0);
+		}
+	}
+
+	public void setHealthy(boolean healthy) {
+		this.healthy = healthy;
+		if (healthy) {
+			ejectedUntilMillis = 0;
+		}
+	}
+}
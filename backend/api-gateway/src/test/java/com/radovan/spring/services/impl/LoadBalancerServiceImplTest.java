@@ -0,0 +1,87 @@
+package com.radovan.spring.services.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.radovan.spring.utils.ServiceUrlProvider;
+import com.radovan.spring.utils.UpstreamInstance;
+
+class LoadBalancerServiceImplTest {
+
+	private final Map<String, List<String>> registry = new ConcurrentHashMap<>();
+	private LoadBalancerServiceImpl loadBalancer;
+
+	@BeforeEach
+	void setUp() {
+		// Registar iz Eureka-e zamenjen je mapom koju test menja
+		ServiceUrlProvider serviceUrlProvider = new ServiceUrlProvider() {
+			@Override
+			public List<String> getServiceUrls(String serviceName) {
+				return registry.getOrDefault(serviceName, List.of());
+			}
+		};
+		loadBalancer = new LoadBalancerServiceImpl();
+		ReflectionTestUtils.invokeMethod(loadBalancer, "initialize", serviceUrlProvider, null);
+	}
+
+	@Test
+	void serviceRegisteredAfterTheFirstRequestIsUsedWithoutWaitingForRefresh() {
+		assertNull(loadBalancer.chooseInstance("product-service"));
+
+		registry.put("product-service", List.of("http://product-1:9000"));
+
+		UpstreamInstance instance = loadBalancer.chooseInstance("product-service");
+		assertNotNull(instance);
+		assertEquals("http://product-1:9000", instance.getUrl());
+	}
+
+	@Test
+	void knownInstancesAreReusedBetweenRequests() {
+		registry.put("product-service", List.of("http://product-1:9000"));
+
+		UpstreamInstance first = loadBalancer.chooseInstance("product-service");
+		registry.put("product-service", List.of("http://product-2:9000"));
+
+		// Do sledećeg osvežavanja važi lista iz prvog učitavanja, sa istim brojačima
+		assertSame(first, loadBalancer.chooseInstance("product-service"));
+	}
+
+	@Test
+	void refreshKeepsSurvivingInstancesAndAddsNewOnes() {
+		registry.put("product-service", List.of("http://product-1:9000"));
+		UpstreamInstance first = loadBalancer.chooseInstance("product-service");
+
+		registry.put("product-service", List.of("http://product-1:9000", "http://product-2:9000"));
+		loadBalancer.refreshInstances();
+
+		for (int i = 0; i < 20; i++) {
+			UpstreamInstance chosen = loadBalancer.chooseInstance("product-service");
+			if (chosen.getUrl().equals(first.getUrl())) {
+				assertSame(first, chosen);
+			}
+		}
+	}
+
+	@Test
+	void serviceThatLostAllInstancesIsLookedUpAgainOnTheNextRequest() {
+		registry.put("product-service", List.of("http://product-1:9000"));
+		loadBalancer.chooseInstance("product-service");
+
+		registry.remove("product-service");
+		loadBalancer.refreshInstances();
+		assertNull(loadBalancer.chooseInstance("product-service"));
+
+		registry.put("product-service", List.of("http://product-2:9000"));
+		assertEquals("http://product-2:9000", loadBalancer.chooseInstance("product-service").getUrl());
+	}
+}
@@ -0,0 +1,116 @@
+package com.radovan.spring.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+class CircuitBreakerTest {
+
+	private static final long OPEN_MILLIS = 50;
+
+	private final CircuitBreaker breaker = new CircuitBreaker(3, OPEN_MILLIS);
+
+	@Test
+	void staysClosedWhileFailuresAreNotConsecutive() {
+		breaker.onFailure();
+		breaker.onFailure();
+		breaker.onSuccess();
+		breaker.onFailure();
+		breaker.onFailure();
+
+		assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+		assertTrue(breaker.tryAcquire());
+	}
+
+	@Test
+	void opensAfterConsecutiveFailuresAndRejectsCalls() {
+		failThreeTimes();
+
+		assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+		assertFalse(breaker.tryAcquire());
+		assertEquals(1, breaker.remainingOpenSeconds());
+	}
+
+	@Test
+	void letsOneProbeThroughOnceTheOpenPeriodEnds() throws InterruptedException {
+		failThreeTimes();
+		Thread.sleep(OPEN_MILLIS * 2);
+
+		assertTrue(breaker.tryAcquire());
+		assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+		assertFalse(breaker.tryAcquire());
+	}
+
+	@Test
+	void successfulProbeClosesTheBreaker() throws InterruptedException {
+		failThreeTimes();
+		Thread.sleep(OPEN_MILLIS * 2);
+		assertTrue(breaker.tryAcquire());
+
+		breaker.onSuccess();
+
+		assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+		assertTrue(breaker.tryAcquire());
+		assertTrue(breaker.tryAcquire());
+	}
+
+	@Test
+	void failedProbeOpensTheBreakerAgain() throws InterruptedException {
+		failThreeTimes();
+		Thread.sleep(OPEN_MILLIS * 2);
+		assertTrue(breaker.tryAcquire());
+
+		breaker.onFailure();
+
+		assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+		assertFalse(breaker.tryAcquire());
+	}
+
+	@Test
+	void concurrentCallersGetExactlyOneProbe() throws Exception {
+		failThreeTimes();
+		Thread.sleep(OPEN_MILLIS * 2);
+
+		int callers = 16;
+		ExecutorService executor = Executors.newFixedThreadPool(callers);
+		try {
+			CountDownLatch start = new CountDownLatch(1);
+			AtomicInteger admitted = new AtomicInteger();
+			List<Future<?>> results = new ArrayList<>();
+			for (int i = 0; i < callers; i++) {
+				results.add(executor.submit(() -> {
+					start.await();
+					if (breaker.tryAcquire()) {
+						admitted.incrementAndGet();
+					}
+					return null;
+				}));
+			}
+			start.countDown();
+			for (Future<?> result : results) {
+				result.get(5, TimeUnit.SECONDS);
+			}
+
+			assertEquals(1, admitted.get());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private void failThreeTimes() {
+		breaker.onFailure();
+		breaker.onFailure();
+		breaker.onFailure();
+	}
+}
@@ -0,0 +1,173 @@
+package com.radovan.spring.utils;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.lang.reflect.Proxy;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+class GatewayResponseCacheTest {
+
+	private GatewayResponseCache cache;
+
+	@BeforeEach
+	void setUp() {
+		cache = new GatewayResponseCache();
+		ReflectionTestUtils.invokeMethod(cache, "initialize", new ObjectMapper());
+	}
+
+	@Test
+	void storedResponseIsServedWithEtagAndAnswers304ForMatchingIfNoneMatch() {
+		HttpServletRequest request = get("/api/products/5", null);
+		String key = cache.keyFor(request);
+		CachedResponse stored = cache.store(key, request, ok("{\"productId\":5}"), cache.currentGeneration());
+
+		CachedResponse cached = cache.get(key);
+		assertNotNull(cached);
+		assertNotNull(cached.getEtag());
+		assertArrayEquals(stored.getBody(), cached.getBody());
+
+		HttpServletRequest conditional = request("/api/products/5",
+				Map.of(HttpHeaders.IF_NONE_MATCH, "W/" + cached.getEtag()));
+		ResponseEntity<byte[]> notModified = cache.toResponse(cached, conditional, "HIT");
+		assertEquals(HttpStatus.NOT_MODIFIED.value(), notModified.getStatusCode().value());
+		assertNull(notModified.getBody());
+
+		ResponseEntity<byte[]> full = cache.toResponse(cached, get("/api/products/5", null), "HIT");
+		assertEquals(HttpStatus.OK.value(), full.getStatusCode().value());
+		assertEquals(cached.getEtag(), full.getHeaders().getETag());
+		assertEquals("HIT", full.getHeaders().getFirst("X-Cache"));
+	}
+
+	@Test
+	void noStoreResponsesAreNotCached() {
+		HttpServletRequest request = get("/api/products", null);
+		String key = cache.keyFor(request);
+		ResponseEntity<byte[]> response = ResponseEntity.ok().cacheControl(CacheControl.noStore())
+				.body("[]".getBytes(StandardCharsets.UTF_8));
+
+		cache.store(key, request, response, cache.currentGeneration());
+
+		assertNull(cache.get(key));
+	}
+
+	@Test
+	void productInvalidationDropsOnlyThatProductAndItsSubpaths() {
+		String product5 = storeFresh("/api/products/5", null);
+		String product5Image = storeFresh("/api/products/5/image", null);
+		String product50 = storeFresh("/api/products/50", null);
+		String list = storeFresh("/api/products", null);
+
+		cache.invalidatePaths(List.of("/api/products/5"));
+
+		assertNull(cache.get(product5));
+		assertNull(cache.get(product5Image));
+		assertNotNull(cache.get(product50));
+		assertNotNull(cache.get(list));
+	}
+
+	@Test
+	void fillStartedBeforeMatchingInvalidationIsDiscarded() {
+		HttpServletRequest request = get("/api/products/5", null);
+		String key = cache.keyFor(request);
+		long fetchGeneration = cache.currentGeneration();
+
+		cache.invalidatePaths(List.of("/api/products/5"));
+		cache.store(key, request, ok("{\"stale\":true}"), fetchGeneration);
+
+		assertNull(cache.get(key));
+	}
+
+	@Test
+	void fillStartedBeforeUnrelatedInvalidationIsKept() {
+		HttpServletRequest request = get("/api/products/7", null);
+		String key = cache.keyFor(request);
+		long fetchGeneration = cache.currentGeneration();
+
+		cache.invalidatePaths(List.of("/api/products/5"));
+		cache.store(key, request, ok("{\"productId\":7}"), fetchGeneration);
+
+		assertNotNull(cache.get(key));
+	}
+
+	@Test
+	void suspendedSubjectLosesOnlyItsOwnEntries() {
+		String alice = storeFresh("/api/products", token("alice@example.com"));
+		String bob = storeFresh("/api/products", token("bob@example.com"));
+		String anonymous = storeFresh("/api/products", null);
+
+		cache.invalidateSubject("alice@example.com");
+
+		assertNull(cache.get(alice));
+		assertNotNull(cache.get(bob));
+		assertNotNull(cache.get(anonymous));
+	}
+
+	@Test
+	void prefixMatchingStopsAtSegmentBoundary() {
+		assertTrue(GatewayResponseCache.isUnderAnyPrefix("/api/products", List.of("/api/products")));
+		assertTrue(GatewayResponseCache.isUnderAnyPrefix("/api/products/5", List.of("/api/products")));
+		assertFalse(GatewayResponseCache.isUnderAnyPrefix("/api/products/50", List.of("/api/products/5")));
+		assertFalse(GatewayResponseCache.isUnderAnyPrefix("/api/productsx", List.of("/api/products")));
+	}
+
+	private String storeFresh(String path, String authorization) {
+		HttpServletRequest request = get(path, authorization);
+		String key = cache.keyFor(request);
+		cache.store(key, request, ok("{\"path\":\"" + path + "\"}"), cache.currentGeneration());
+		assertNotNull(cache.get(key));
+		return key;
+	}
+
+	private static HttpServletRequest get(String path, String authorization) {
+		Map<String, String> headers = new HashMap<>();
+		if (authorization != null) {
+			headers.put(HttpHeaders.AUTHORIZATION, authorization);
+		}
+		return request(path, headers);
+	}
+
+	// Keš od zahteva čita samo putanju, query string i zaglavlja
+	private static HttpServletRequest request(String path, Map<String, String> headers) {
+		return (HttpServletRequest) Proxy.newProxyInstance(HttpServletRequest.class.getClassLoader(),
+				new Class<?>[] { HttpServletRequest.class }, (proxy, method, args) -> switch (method.getName()) {
+				case "getRequestURI" -> path;
+				case "getMethod" -> "GET";
+				case "getHeader" -> headers.get((String) args[0]);
+				default -> null;
+				});
+	}
+
+	private static ResponseEntity<byte[]> ok(String json) {
+		return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(json.getBytes(StandardCharsets.UTF_8));
+	}
+
+	// Potpis nije bitan, gateway iz tokena čita samo subject
+	private static String token(String subject) {
+		Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+		String header = encoder.encodeToString("{\"alg\":\"RS256\"}".getBytes(StandardCharsets.UTF_8));
+		String payload = encoder.encodeToString(("{\"sub\":\"" + subject + "\"}").getBytes(StandardCharsets.UTF_8));
+		return "Bearer " + header + "." + payload + ".signature";
+	}
+}
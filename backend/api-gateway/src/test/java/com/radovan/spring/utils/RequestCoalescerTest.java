@@ -0,0 +1,173 @@
+package com.radovan.spring.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class RequestCoalescerTest {
+
+	private static final String PRODUCT_5 = RequestCoalescer.keyFor(HttpMethod.GET, "/api/products/5", new HttpHeaders());
+	private static final String PRODUCT_50 = RequestCoalescer.keyFor(HttpMethod.GET, "/api/products/50",
+			new HttpHeaders());
+
+	private RequestCoalescer coalescer;
+	private SimpleMeterRegistry registry;
+	private ExecutorService executor;
+
+	@BeforeEach
+	void setUp() {
+		registry = new SimpleMeterRegistry();
+		coalescer = new RequestCoalescer();
+		ReflectionTestUtils.invokeMethod(coalescer, "initialize", registry);
+		executor = Executors.newCachedThreadPool();
+	}
+
+	@AfterEach
+	void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	void identicalRequestsInFlightShareOneUpstreamCall() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicInteger upstreamCalls = new AtomicInteger();
+		Future<ResponseEntity<byte[]>> leader = executeBlocked(PRODUCT_5, release, upstreamCalls, "v1");
+		awaitUpstreamCalls(upstreamCalls, 1);
+
+		Future<ResponseEntity<byte[]>> follower = executor
+				.submit(() -> coalescer.execute(PRODUCT_5, () -> response("unexpected")));
+		awaitCoalesced(1);
+		release.countDown();
+
+		assertSame(leader.get(5, TimeUnit.SECONDS), follower.get(5, TimeUnit.SECONDS));
+		assertEquals(1, upstreamCalls.get());
+	}
+
+	@Test
+	void requestAfterCompletionGoesUpstreamAgain() {
+		coalescer.execute(PRODUCT_5, () -> response("v1"));
+
+		ResponseEntity<byte[]> second = coalescer.execute(PRODUCT_5, () -> response("v2"));
+
+		assertEquals("v2", body(second));
+	}
+
+	@Test
+	void leaderFailureIsRethrownToFollowers() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicInteger upstreamCalls = new AtomicInteger();
+		Future<ResponseEntity<byte[]>> leader = executor.submit(() -> coalescer.execute(PRODUCT_5, () -> {
+			upstreamCalls.incrementAndGet();
+			await(release);
+			throw new IllegalStateException("upstream down");
+		}));
+		awaitUpstreamCalls(upstreamCalls, 1);
+		Future<ResponseEntity<byte[]>> follower = executor
+				.submit(() -> coalescer.execute(PRODUCT_5, () -> response("unexpected")));
+		awaitCoalesced(1);
+		release.countDown();
+
+		ExecutionException failure = assertThrows(ExecutionException.class, () -> follower.get(5, TimeUnit.SECONDS));
+		assertEquals(IllegalStateException.class, failure.getCause().getClass());
+		assertThrows(ExecutionException.class, () -> leader.get(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	void invalidationDetachesOnlyMatchingCallsInFlight() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicInteger staleCalls = new AtomicInteger();
+		Future<ResponseEntity<byte[]>> staleProduct5 = executeBlocked(PRODUCT_5, release, staleCalls, "stale");
+		Future<ResponseEntity<byte[]>> product50 = executeBlocked(PRODUCT_50, release, staleCalls, "product-50");
+		awaitUpstreamCalls(staleCalls, 2);
+
+		coalescer.detachInFlight(List.of("/api/products/5"));
+
+		// Novi zahtev za /api/products/5 ne čeka stari poziv, dok se /api/products/50 i dalje deli
+		assertEquals("fresh", body(coalescer.execute(PRODUCT_5, () -> response("fresh"))));
+		Future<ResponseEntity<byte[]>> product50Follower = executor
+				.submit(() -> coalescer.execute(PRODUCT_50, () -> response("unexpected")));
+		awaitCoalesced(1);
+		release.countDown();
+
+		assertEquals("stale", body(staleProduct5.get(5, TimeUnit.SECONDS)));
+		assertSame(product50.get(5, TimeUnit.SECONDS), product50Follower.get(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	void requestsWithDifferentCredentialsAreNotCoalesced() {
+		HttpHeaders alice = new HttpHeaders();
+		alice.setBearerAuth("alice-token");
+		HttpHeaders bob = new HttpHeaders();
+		bob.setBearerAuth("bob-token");
+
+		assertNotEquals(RequestCoalescer.keyFor(HttpMethod.GET, "/api/products", alice),
+				RequestCoalescer.keyFor(HttpMethod.GET, "/api/products", bob));
+	}
+
+	private Future<ResponseEntity<byte[]>> executeBlocked(String key, CountDownLatch release, AtomicInteger upstreamCalls,
+			String body) {
+		return executor.submit(() -> coalescer.execute(key, () -> {
+			upstreamCalls.incrementAndGet();
+			await(release);
+			return response(body);
+		}));
+	}
+
+	private static void awaitUpstreamCalls(AtomicInteger upstreamCalls, int expected) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (upstreamCalls.get() < expected && System.currentTimeMillis() < deadline) {
+			Thread.sleep(5);
+		}
+		assertEquals(expected, upstreamCalls.get());
+	}
+
+	// Pratilac je priključen tek kada brojač spojenih zahteva poraste
+	private void awaitCoalesced(int expected) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (coalescedCount() < expected && System.currentTimeMillis() < deadline) {
+			Thread.sleep(5);
+		}
+		assertEquals(expected, coalescedCount());
+	}
+
+	private int coalescedCount() {
+		return (int) registry.get("gateway_coalesced_requests_total").counter().count();
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static ResponseEntity<byte[]> response(String body) {
+		return ResponseEntity.ok(body.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static String body(ResponseEntity<byte[]> response) {
+		return new String(response.getBody(), StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,121 @@
+package com.radovan.spring.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+// Gateway CPU po MB proksiranog JSON-a: upstream je zamenjen RestTemplate-om koji vraća gotov odgovor,
+// pa se meri samo obrada u gateway-u. Sa payloadBytes=1048576 rezultat je direktno ms po MB,
+// a -prof gc daje alokaciju po MB.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResponseHandlerBenchmark {
+
+	private static final String URL = "http://product-service/api/products";
+
+	@Param({ "1048576" })
+	private int payloadBytes;
+
+	private ResponseHandler responseHandler;
+	// Ranija konverzija: parsiranje u stablo objekata i ponovni ispis sa uvlačenjem
+	private ObjectMapper indentingMapper;
+	private String json;
+	private HttpEntity<byte[]> entity;
+
+	@Setup
+	public void setUp() {
+		json = productListJson(payloadBytes);
+		byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+
+		HttpHeaders headers = new HttpHeaders();
+		headers.setContentType(MediaType.APPLICATION_JSON);
+		responseHandler = new ResponseHandler();
+		ReflectionTestUtils.invokeMethod(responseHandler, "initialize", new ObjectMapper(),
+				new CannedRestTemplate(json, bytes, headers));
+		indentingMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+		entity = new HttpEntity<>(null, new HttpHeaders());
+	}
+
+	@Benchmark
+	public String baselineParseAndPrettyPrint() throws Exception {
+		Object tree = indentingMapper.readValue(json, Object.class);
+		return indentingMapper.writerWithDefaultPrettyPrinter().writeValueAsString(tree);
+	}
+
+	@Benchmark
+	public ResponseEntity<byte[]> converted() {
+		return responseHandler.fetchConverted(URL, HttpMethod.GET, entity);
+	}
+
+	@Benchmark
+	public ResponseEntity<byte[]> passThrough() {
+		return responseHandler.fetchPassThrough(URL, HttpMethod.GET, entity);
+	}
+
+	private static String productListJson(int targetBytes) {
+		StringBuilder builder = new StringBuilder(targetBytes + 256).append('[');
+		int productId = 1;
+		while (builder.length() < targetBytes) {
+			if (productId > 1) {
+				builder.append(',');
+			}
+			builder.append("{\"productId\":").append(productId)
+					.append(",\"productName\":\"Product ").append(productId)
+					.append("\",\"productDescription\":\"Description of product ").append(productId)
+					.append("\",\"productBrand\":\"Brand\",\"productModel\":\"Model ").append(productId % 50)
+					.append("\",\"productPrice\":").append(10 + productId % 990).append(".99")
+					.append(",\"unitStock\":").append(productId % 200)
+					.append(",\"discount\":").append(productId % 30)
+					.append(",\"productCategoryId\":").append(productId % 12 + 1).append('}');
+			productId++;
+		}
+		return builder.append(']').toString();
+	}
+
+	private static final class CannedRestTemplate extends RestTemplate {
+
+		private final String body;
+		private final byte[] bytes;
+		private final HttpHeaders headers;
+
+		private CannedRestTemplate(String body, byte[] bytes, HttpHeaders headers) {
+			this.body = body;
+			this.bytes = bytes;
+			this.headers = headers;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public <T> ResponseEntity<T> exchange(String url, HttpMethod method, HttpEntity<?> requestEntity,
+				Class<T> responseType, Object... uriVariables) {
+			Object responseBody = responseType == byte[].class ? bytes : body;
+			return new ResponseEntity<>((T) responseBody, headers, HttpStatus.OK);
+		}
+	}
+}
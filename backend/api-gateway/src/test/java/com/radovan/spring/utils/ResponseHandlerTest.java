@@ -0,0 +1,70 @@
+package com.radovan.spring.utils;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class ResponseHandlerTest {
+
+	private static final String URL = "http://product-service/api/products/1";
+
+	private MockRestServiceServer server;
+	private ResponseHandler responseHandler;
+	private final HttpEntity<byte[]> entity = new HttpEntity<>(null, new HttpHeaders());
+
+	@BeforeEach
+	void setUp() {
+		RestTemplate restTemplate = new RestTemplate();
+		server = MockRestServiceServer.bindTo(restTemplate).build();
+		responseHandler = new ResponseHandler();
+		ReflectionTestUtils.invokeMethod(responseHandler, "initialize", new ObjectMapper(), restTemplate);
+	}
+
+	@Test
+	void convertedPlainTextIsWrappedAsJsonMessage() {
+		server.expect(method(HttpMethod.GET)).andRespond(withSuccess("Product deleted", MediaType.TEXT_PLAIN));
+
+		ResponseEntity<byte[]> response = responseHandler.fetchConverted(URL, HttpMethod.GET, entity);
+
+		assertEquals(MediaType.APPLICATION_JSON, response.getHeaders().getContentType());
+		assertEquals("{\"message\":\"Product deleted\"}", new String(response.getBody(), StandardCharsets.UTF_8));
+	}
+
+	@Test
+	void convertedJsonIsReturnedAsReceived() {
+		String json = "{\"productId\": 1,  \"productName\": \"Phone\"}";
+		server.expect(method(HttpMethod.GET)).andRespond(withSuccess(json, MediaType.APPLICATION_JSON));
+
+		ResponseEntity<byte[]> response = responseHandler.fetchConverted(URL, HttpMethod.GET, entity);
+
+		assertEquals(json, new String(response.getBody(), StandardCharsets.UTF_8));
+	}
+
+	@Test
+	void passThroughKeepsPlainTextBytesAndHeaders() {
+		server.expect(method(HttpMethod.GET)).andRespond(withSuccess("Product deleted", MediaType.TEXT_PLAIN)
+				.header(HttpHeaders.ETAG, "\"v1\""));
+
+		ResponseEntity<byte[]> response = responseHandler.fetchPassThrough(URL, HttpMethod.GET, entity);
+
+		assertEquals(MediaType.TEXT_PLAIN, response.getHeaders().getContentType());
+		assertEquals("\"v1\"", response.getHeaders().getETag());
+		assertArrayEquals("Product deleted".getBytes(StandardCharsets.UTF_8), response.getBody());
+	}
+}
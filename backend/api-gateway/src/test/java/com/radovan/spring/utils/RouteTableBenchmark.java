@@ -0,0 +1,83 @@
+package com.radovan.spring.utils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Propusnost razrešavanja rute: trie iz RouteTable naspram ranijeg split("/") + Map.of po zahtevu
+// i linearnog poređenja prefiksa. Sa -prof gc se vidi da trie ne alocira.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RouteTableBenchmark {
+
+	@Param({ "/api/products", "/api/products/42/image", "/api/addresses/7", "/api/unknown/1" })
+	private String requestUri;
+
+	private RouteTable routeTable;
+	private List<GatewayRoute> linearRoutes;
+	private String[] linearPrefixes;
+
+	@Setup
+	public void setUp() {
+		routeTable = new RouteTable();
+		linearRoutes = List.of(
+				new GatewayRoute("products", "product-service", false, true, true, false, 0),
+				new GatewayRoute("categories", "product-service", false, true, true, false, 0),
+				new GatewayRoute("auth", "auth-service", false, true, false, false, 0),
+				new GatewayRoute("cart", "cart-service", false, true, false, true, 0),
+				new GatewayRoute("order", "order-service", false, true, false, true, 0),
+				new GatewayRoute("customers", "customer-service", false, true, false, false, 0),
+				new GatewayRoute("addresses", "customer-service", false, true, false, false, 0));
+		linearPrefixes = linearRoutes.stream().map(route -> "/api/" + route.getPrefix()).toArray(String[]::new);
+	}
+
+	@Benchmark
+	public GatewayRoute trie() {
+		return routeTable.resolve(requestUri);
+	}
+
+	@Benchmark
+	public GatewayRoute linearPrefixScan() {
+		GatewayRoute match = null;
+		for (int i = 0; i < linearPrefixes.length; i++) {
+			String prefix = linearPrefixes[i];
+			GatewayRoute route = linearRoutes.get(i);
+			if (requestUri.startsWith(prefix) && (requestUri.length() == prefix.length()
+					|| requestUri.charAt(prefix.length()) == '/')) {
+				if (match == null || route.getPrefix().length() > match.getPrefix().length()) {
+					match = route;
+				}
+			}
+		}
+		return match;
+	}
+
+	// Ranija logika iz ApiGatewayController.proxyRequest
+	@Benchmark
+	public String baselineSplitAndMapOf() {
+		String[] pathSegments = requestUri.split("/");
+		if (pathSegments.length < 3) {
+			return null;
+		}
+		Map<String, String> serviceMappings = Map.of("products", "product-service", "categories", "product-service",
+				"auth", "auth-service", "cart", "cart-service", "order", "order-service", "customers",
+				"customer-service", "addresses", "customer-service");
+		return serviceMappings.get(pathSegments[2]);
+	}
+}
@@ -0,0 +1,62 @@
+package com.radovan.spring.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+// Podrazumevane rute, bez GATEWAY_* promenljivih okruženja
+class RouteTableTest {
+
+	private final RouteTable routeTable = new RouteTable();
+
+	@Test
+	void resolvesExactSegmentAndNestedPaths() {
+		assertEquals("cart-service", routeTable.resolve("/api/cart").getServiceName());
+		assertEquals("cart-service", routeTable.resolve("/api/cart/items/5").getServiceName());
+		assertEquals("product-service", routeTable.resolve("/api/products/5/image").getServiceName());
+		assertEquals("customer-service", routeTable.resolve("/api/addresses/3").getServiceName());
+	}
+
+	@Test
+	void prefixMustEndOnSegmentBoundary() {
+		assertNull(routeTable.resolve("/api/carts"));
+		assertNull(routeTable.resolve("/api/cartoon/1"));
+		assertNull(routeTable.resolve("/api/product"));
+	}
+
+	@Test
+	void trailingSlashResolvesToTheSameRoute() {
+		GatewayRoute withoutSlash = routeTable.resolve("/api/order");
+		GatewayRoute withSlash = routeTable.resolve("/api/order/");
+		assertNotNull(withSlash);
+		assertEquals(withoutSlash, withSlash);
+	}
+
+	@Test
+	void unknownAndMalformedPathsResolveToNothing() {
+		assertNull(routeTable.resolve("/api/reviews/1"));
+		assertNull(routeTable.resolve("/api/"));
+		assertNull(routeTable.resolve("/api"));
+		assertNull(routeTable.resolve("/products"));
+		assertNull(routeTable.resolve(""));
+		assertNull(routeTable.resolve(null));
+	}
+
+	@Test
+	void defaultRouteSettings() {
+		GatewayRoute products = routeTable.resolve("/api/products");
+		assertTrue(products.isConvertResponse());
+		assertTrue(products.isCacheResponse());
+		assertFalse(products.isAuthRequired());
+		assertFalse(products.isStreaming());
+		assertEquals(0, products.getTimeoutMillis());
+
+		GatewayRoute cart = routeTable.resolve("/api/cart");
+		assertTrue(cart.isAuthRequired());
+		assertFalse(cart.isCacheResponse());
+	}
+}
@@ -0,0 +1,221 @@
+package com.radovan.spring.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.impl.BasicEntityDetails;
+import org.apache.hc.core5.http.message.BasicHttpResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+
+class StreamingResponseConsumerTest {
+
+	private final Map<String, String> headers = new LinkedHashMap<>();
+	private final StringWriter errorBody = new StringWriter();
+	private final ClientOutput output = new ClientOutput();
+	private final List<Integer> capacityUpdates = new ArrayList<>();
+	private final AtomicInteger completions = new AtomicInteger();
+	private final AtomicInteger exchangeResults = new AtomicInteger();
+	private int status;
+	private long contentLength = -1;
+	private StreamingResponseConsumer consumer;
+
+	@BeforeEach
+	void setUp() {
+		HttpServletResponse response = (HttpServletResponse) Proxy.newProxyInstance(
+				HttpServletResponse.class.getClassLoader(), new Class<?>[] { HttpServletResponse.class },
+				(proxy, method, args) -> switch (method.getName()) {
+				case "setStatus" -> {
+					status = (Integer) args[0];
+					yield null;
+				}
+				case "addHeader" -> headers.put((String) args[0], (String) args[1]);
+				case "setContentLengthLong" -> {
+					contentLength = (Long) args[0];
+					yield null;
+				}
+				case "getOutputStream" -> output;
+				case "getWriter" -> new PrintWriter(errorBody, true);
+				case "isCommitted" -> false;
+				default -> null;
+				});
+		AsyncContext asyncContext = (AsyncContext) Proxy.newProxyInstance(AsyncContext.class.getClassLoader(),
+				new Class<?>[] { AsyncContext.class }, (proxy, method, args) -> switch (method.getName()) {
+				case "getResponse" -> response;
+				case "complete" -> completions.incrementAndGet();
+				default -> null;
+				});
+		consumer = new StreamingResponseConsumer(asyncContext);
+	}
+
+	@Test
+	void bodyIsCopiedWithStatusAndEndToEndHeadersOnly() throws Exception {
+		BasicHttpResponse upstream = new BasicHttpResponse(200);
+		upstream.addHeader("Content-Type", "application/json");
+		upstream.addHeader("ETag", "\"v1\"");
+		upstream.addHeader("Connection", "keep-alive");
+		upstream.addHeader("Access-Control-Allow-Origin", "*");
+
+		start(upstream, 7);
+		consumer.consume(bytes("{\"a\":1}"));
+		consumer.streamEnd(null);
+
+		assertEquals(200, status);
+		assertEquals(Map.of("Content-Type", "application/json", "ETag", "\"v1\""), headers);
+		assertEquals(7, contentLength);
+		assertEquals("{\"a\":1}", output.written());
+		assertEquals(List.of(65536, 7), capacityUpdates);
+		assertEquals(1, completions.get());
+		assertEquals(1, exchangeResults.get());
+	}
+
+	@Test
+	void slowClientHoldsBackUpstreamCapacity() throws Exception {
+		start(new BasicHttpResponse(200), 10);
+		output.ready = false;
+
+		consumer.consume(bytes("0123456789"));
+		consumer.streamEnd(null);
+
+		assertEquals("", output.written());
+		assertEquals(List.of(65536), capacityUpdates);
+		assertEquals(0, completions.get());
+
+		output.ready = true;
+		consumer.onWritePossible();
+
+		assertEquals("0123456789", output.written());
+		assertEquals(List.of(65536, 10), capacityUpdates);
+		assertEquals(1, completions.get());
+	}
+
+	@Test
+	void responseWithoutBodyCompletesRightAway() throws Exception {
+		consumer.updateCapacity(capacityUpdates::add);
+		consumer.consumeResponse(new BasicHttpResponse(204), null, null, exchangeCallback());
+
+		assertEquals(204, status);
+		assertNull(output.listener);
+		assertEquals(1, completions.get());
+		assertEquals(1, exchangeResults.get());
+	}
+
+	@Test
+	void failureBeforeAnyBodyAnswersBadGateway() {
+		consumer.failed(new IOException("connection refused"));
+		consumer.failed(new IOException("reported twice"));
+
+		assertEquals(502, status);
+		assertTrue(errorBody.toString().contains("Upstream request failed"));
+		assertEquals(1, completions.get());
+	}
+
+	@Test
+	void timeoutCancelsTheExchangeAndAnswersGatewayTimeout() {
+		CompletableFuture<Void> exchange = new CompletableFuture<>();
+		consumer.setExchange(exchange);
+
+		consumer.abort(new TimeoutException("slow upstream"));
+
+		assertTrue(exchange.isCancelled());
+		assertEquals(504, status);
+		assertEquals(1, completions.get());
+	}
+
+	@Test
+	void failureAfterBodyStartedOnlyClosesTheResponse() throws Exception {
+		start(new BasicHttpResponse(200), 10);
+		consumer.consume(bytes("01234"));
+
+		consumer.failed(new IOException("upstream reset"));
+		consumer.consume(bytes("56789"));
+
+		assertEquals(200, status);
+		assertEquals("", errorBody.toString());
+		assertEquals("01234", output.written());
+		assertEquals(1, completions.get());
+		assertEquals(0, exchangeResults.get());
+	}
+
+	private void start(BasicHttpResponse upstream, long length) throws Exception {
+		consumer.updateCapacity(capacityUpdates::add);
+		consumer.consumeResponse(upstream, new BasicEntityDetails(length, ContentType.APPLICATION_JSON), null,
+				exchangeCallback());
+	}
+
+	private FutureCallback<Void> exchangeCallback() {
+		return new FutureCallback<>() {
+			@Override
+			public void completed(Void result) {
+				exchangeResults.incrementAndGet();
+			}
+
+			@Override
+			public void failed(Exception ex) {
+			}
+
+			@Override
+			public void cancelled() {
+			}
+		};
+	}
+
+	private static ByteBuffer bytes(String value) {
+		return ByteBuffer.wrap(value.getBytes(StandardCharsets.UTF_8));
+	}
+
+	// Klijent koji prima podatke samo kada je ready, kao neblokirajući servlet izlaz
+	private static final class ClientOutput extends ServletOutputStream {
+
+		private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		private boolean ready = true;
+		private WriteListener listener;
+
+		@Override
+		public boolean isReady() {
+			return ready;
+		}
+
+		@Override
+		public void setWriteListener(WriteListener writeListener) {
+			this.listener = writeListener;
+		}
+
+		@Override
+		public void write(int b) {
+			bytes.write(b);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+			bytes.write(b, off, len);
+		}
+
+		private String written() {
+			return bytes.toString(StandardCharsets.UTF_8);
+		}
+	}
+}
@@ -0,0 +1,74 @@
+package com.radovan.spring.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.radovan.spring.exceptions.ServiceUnavailableException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+// Podrazumevana podešavanja: 64 istovremena poziva, breaker se otvara posle 5 neuspeha na 10 sekundi
+class UpstreamGuardTest {
+
+	private static final int MAX_CONCURRENT = 64;
+
+	private UpstreamGuard guard;
+	private SimpleMeterRegistry registry;
+
+	@BeforeEach
+	void setUp() {
+		registry = new SimpleMeterRegistry();
+		guard = new UpstreamGuard();
+		ReflectionTestUtils.invokeMethod(guard, "initialize", registry);
+	}
+
+	@Test
+	void fullBulkheadRejectsOnlyThatService() {
+		List<UpstreamGuard.Permit> permits = new ArrayList<>();
+		for (int i = 0; i < MAX_CONCURRENT; i++) {
+			permits.add(guard.acquire("product-service"));
+		}
+
+		assertThrows(ServiceUnavailableException.class, () -> guard.acquire("product-service"));
+		guard.acquire("cart-service").release(true);
+
+		permits.get(0).release(true);
+		guard.acquire("product-service").release(true);
+		assertEquals(1.0, registry.get("gateway_upstream_rejected_total").tag("service", "product-service")
+				.tag("reason", "bulkhead_full").counter().count());
+	}
+
+	@Test
+	void permitIsReturnedToTheBulkheadOnlyOnce() {
+		UpstreamGuard.Permit permit = guard.acquire("product-service");
+		permit.release(true);
+		permit.release(true);
+
+		for (int i = 0; i < MAX_CONCURRENT; i++) {
+			guard.acquire("product-service");
+		}
+		assertThrows(ServiceUnavailableException.class, () -> guard.acquire("product-service"));
+	}
+
+	@Test
+	void failedCallsOpenTheBreakerWithRetryAfter() {
+		for (int i = 0; i < 5; i++) {
+			guard.acquire("order-service").release(false);
+		}
+
+		ServiceUnavailableException rejection = assertThrows(ServiceUnavailableException.class,
+				() -> guard.acquire("order-service"));
+		assertEquals(10, rejection.getRetryAfterSeconds());
+		assertEquals(1.0, registry.get("gateway_circuit_breaker_state").tag("service", "order-service").gauge().value());
+
+		// Odbijeni poziv ne sme da zadrži mesto u bulkhead-u
+		assertEquals(0.0, registry.get("gateway_bulkhead_active_calls").tag("service", "order-service").gauge().value());
+	}
+}
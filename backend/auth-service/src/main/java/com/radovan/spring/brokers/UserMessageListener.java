@@ -2,6 +2,7 @@ package com.radovan.spring.brokers;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.radovan.spring.converter.DeserializeConverter;
 import com.radovan.spring.dto.UserDto;
@@ -58,6 +59,7 @@ public class UserMessageListener {
 		dispatcher.subscribe("user.suspend.*");
 		dispatcher.subscribe("user.reactivate.*");
 		dispatcher.subscribe("user.getById.*");
+		dispatcher.subscribe("user.suspended.snapshot");
 	}
 
 	private void handleMessage(Message msg) {
@@ -75,6 +77,8 @@ public class UserMessageListener {
 				handleUserSuspend(msg);
 			} else if (subject.startsWith("user.reactivate.")) {
 				handleUserReactivate(msg);
+			} else if ("user.suspended.snapshot".equals(subject)) {
+				handleSuspendedSnapshot(msg);
 			}
 			// ignore unknown subjects
 		} catch (Exception e) {
@@ -130,6 +134,16 @@ public class UserMessageListener {
 		processUserOperation(msg, userId -> userService.reactivateUser(userId), "User ID %d reactivated");
 	}
 
+	// Servisi pri startu i povremeno preuzimaju ceo skup, između toga ga održavaju iz user.suspended/user.reactivated
+	private void handleSuspendedSnapshot(Message msg) throws Exception {
+		ObjectNode response = objectMapper.createObjectNode();
+		response.put("status", HttpStatus.OK.value());
+		ArrayNode subjects = response.putArray("subjects");
+		userService.listSuspendedEmails().forEach(subjects::add);
+
+		natsUtils.getConnection().publish(msg.getReplyTo(), objectMapper.writeValueAsBytes(response));
+	}
+
 	private void processUserOperation(Message msg, Consumer<Integer> operation, String successMessage) {
 		try {
 			int userId = extractUserId(msg);
@@ -0,0 +1,43 @@
+package com.radovan.spring.brokers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.radovan.spring.utils.NatsUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+@Component
+public class UserNatsSender {
+
+	private static final String USER_SUSPENDED_SUBJECT = "user.suspended";
+	private static final String USER_REACTIVATED_SUBJECT = "user.reactivated";
+
+	private NatsUtils natsUtils;
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private void initialize(NatsUtils natsUtils, ObjectMapper objectMapper) {
+		this.natsUtils = natsUtils;
+		this.objectMapper = objectMapper;
+	}
+
+	// Servisi drže lokalni skup suspendovanih korisnika, subject je email iz JWT tokena
+	public void sendUserSuspended(String email) {
+		publishStatusChange(USER_SUSPENDED_SUBJECT, email);
+	}
+
+	public void sendUserReactivated(String email) {
+		publishStatusChange(USER_REACTIVATED_SUBJECT, email);
+	}
+
+	private void publishStatusChange(String subject, String email) {
+		try {
+			ObjectNode payload = objectMapper.createObjectNode();
+			payload.put("subject", email);
+
+			natsUtils.getConnection().publish(subject, objectMapper.writeValueAsBytes(payload));
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+	}
+}
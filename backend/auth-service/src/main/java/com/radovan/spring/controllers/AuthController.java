@@ -9,6 +9,7 @@ import com.radovan.spring.services.UserService;
 import com.radovan.spring.utils.AuthenticationRequest;
 import com.radovan.spring.utils.JwtUtil;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -17,7 +18,9 @@ import org.springframework.web.bind.annotation.*;
 
 import javax.security.auth.login.CredentialNotFoundException;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping(value = "/api/auth")
@@ -78,4 +81,10 @@ public class AuthController {
 		return ResponseEntity.ok(jwtUtil.getPublicKeyAsPEM());
 	}
 
+	@GetMapping("/jwks")
+	public ResponseEntity<Map<String, Object>> getJsonWebKeySet() {
+		return ResponseEntity.ok().cacheControl(CacheControl.maxAge(5, TimeUnit.MINUTES))
+				.body(Map.of("keys", jwtUtil.getJsonWebKeys()));
+	}
+
 }
@@ -13,6 +13,8 @@ public interface UserRepository {
 
     Optional<UserEntity> findByEmail(String email);
 
+    List<String> findSuspendedEmails();
+
     UserEntity save(UserEntity userEntity);
 
     void deleteById(Integer userId);
@@ -51,6 +51,19 @@ public class UserRepositoryImpl implements UserRepository {
         return result.stream().findFirst();
     }
 
+    @Override
+    public List<String> findSuspendedEmails() {
+        prometheusService.updateDatabaseQueryCount();
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<String> query = cb.createQuery(String.class);
+        Root<UserEntity> root = query.from(UserEntity.class);
+
+        query.select(root.get("email")).where(cb.equal(root.get("enabled"), (byte) 0));
+
+        return entityManager.createQuery(query).getResultList();
+    }
+
     @Override
     public Optional<UserEntity> findById(Integer userId) {
         prometheusService.updateDatabaseQueryCount();
@@ -15,6 +15,7 @@ import com.radovan.spring.converter.TempConverter;
 import com.radovan.spring.dto.UserDto;
 import com.radovan.spring.services.UserService;
 import com.radovan.spring.utils.JwtUtil;
+import com.radovan.spring.utils.UserDetailsCache;
 
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -27,12 +28,15 @@ public class JwtRequestFilter extends OncePerRequestFilter {
 	private UserService userService;
 	private JwtUtil jwtUtil;
 	private TempConverter tempConverter;
+	private UserDetailsCache userDetailsCache;
 
 	@Autowired
-	private void initialize(JwtUtil jwtUtil, TempConverter tempConverter, UserService userService) {
+	private void initialize(JwtUtil jwtUtil, TempConverter tempConverter, UserService userService,
+			UserDetailsCache userDetailsCache) {
 		this.jwtUtil = jwtUtil;
 		this.tempConverter = tempConverter;
 		this.userService = userService;
+		this.userDetailsCache = userDetailsCache;
 	}
 
 	@Override
@@ -58,12 +62,17 @@ public class JwtRequestFilter extends OncePerRequestFilter {
 	}
 
 	private void setAuthentication(String email, String token, HttpServletRequest request) {
-		UserDto userDto = userService.getUserByEmail(email);
-		UserDetails userDetails = tempConverter.userDtoToEntity(userDto);
+		// Upit ka bazi i konverzija se izvršavaju samo kada korisnik nije već u kešu
+		UserDetails userDetails = userDetailsCache.get(email, this::loadUserDetails);
 
 		UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(userDetails, token,
 				userDetails.getAuthorities());
 		authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 		SecurityContextHolder.getContext().setAuthentication(authentication);
 	}
+
+	private UserDetails loadUserDetails(String email) {
+		UserDto userDto = userService.getUserByEmail(email);
+		return tempConverter.userDtoToEntity(userDto);
+	}
 }
@@ -38,7 +38,7 @@ public class SecurityConfiguration {
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .exceptionHandling(exception -> exception.authenticationEntryPoint(jwtAuthenticationEntryPoint))
                 .authorizeHttpRequests(authorize -> authorize.requestMatchers("/api/auth/login", "api/auth/register").anonymous()
-                        .requestMatchers("/api/auth/public-key","/api/health","/prometheus").permitAll()
+                        .requestMatchers("/api/auth/public-key","/api/auth/jwks","/api/health","/prometheus").permitAll()
                         .anyRequest().authenticated())
                 .addFilterBefore(jwtRequestFilter, UsernamePasswordAuthenticationFilter.class).build();
     }
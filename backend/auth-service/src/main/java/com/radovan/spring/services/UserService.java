@@ -26,6 +26,8 @@ public interface UserService {
 
 	void reactivateUser(Integer userId);
 
+	List<String> listSuspendedEmails();
+
 	UserDto addUser(UserDto user);
 
 	void deleteUser(Integer userId);
@@ -34,7 +34,7 @@ public class EurekaRegistrationServiceImpl implements EurekaRegistrationService
 			String ipAddr = InetAddress.getLocalHost().getHostAddress();
 
 			String appName = "auth-service";
-			String instanceId = appName + "-01";
+			String instanceId = appName + "-" + hostname; // Jedinstven po replici, inače se replike međusobno prepisuju
 			int port = 8080;
 
 			// Kreiranje podataka za registraciju
@@ -1,5 +1,6 @@
 package com.radovan.spring.services.impl;
 
+import com.radovan.spring.brokers.UserNatsSender;
 import com.radovan.spring.converter.TempConverter;
 import com.radovan.spring.dto.UserDto;
 import com.radovan.spring.entity.RoleEntity;
@@ -10,6 +11,7 @@ import com.radovan.spring.exceptions.OperationNotAllowedException;
 import com.radovan.spring.repositories.RoleRepository;
 import com.radovan.spring.repositories.UserRepository;
 import com.radovan.spring.services.UserService;
+import com.radovan.spring.utils.UserDetailsCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.AnonymousAuthenticationToken;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -22,7 +24,9 @@ import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 @Service
@@ -32,15 +36,22 @@ public class UserServiceImpl implements UserService {
 	private TempConverter tempConverter;
 	private BCryptPasswordEncoder passwordEncoder;
 	private AuthenticationManager authenticationManager;
+	private UserNatsSender userNatsSender;
+	private UserDetailsCache userDetailsCache;
+	// Uloge se ne menjaju dok servis radi, id svake se čita iz baze samo jednom
+	private final Map<String, Integer> roleIds = new ConcurrentHashMap<>();
 
 	@Autowired
 	private void initialize(UserRepository userRepository, RoleRepository roleRepository, TempConverter tempConverter,
-			BCryptPasswordEncoder passwordEncoder, AuthenticationManager authenticationManager) {
+			BCryptPasswordEncoder passwordEncoder, AuthenticationManager authenticationManager,
+			UserNatsSender userNatsSender, UserDetailsCache userDetailsCache) {
 		this.userRepository = userRepository;
 		this.roleRepository = roleRepository;
 		this.tempConverter = tempConverter;
 		this.passwordEncoder = passwordEncoder;
 		this.authenticationManager = authenticationManager;
+		this.userNatsSender = userNatsSender;
+		this.userDetailsCache = userDetailsCache;
 	}
 
 	@Override
@@ -54,7 +65,10 @@ public class UserServiceImpl implements UserService {
 	public UserDto getCurrentUser() {
 		UserDto returnValue = null;
 		Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-		if (!(authentication instanceof AnonymousAuthenticationToken)) {
+		if (authentication != null && authentication.getPrincipal() instanceof UserEntity principal) {
+			// JwtRequestFilter je principal već učitao (ili uzeo iz keša), baza se ne pita ponovo
+			returnValue = tempConverter.userEntityToDto(principal);
+		} else if (!(authentication instanceof AnonymousAuthenticationToken)) {
 			String currentUsername = authentication.getName();
 			Optional<UserEntity> userOptional = userRepository.findByEmail(currentUsername);
 			if (userOptional.isPresent()) {
@@ -104,10 +118,10 @@ public class UserServiceImpl implements UserService {
 	public Boolean isAdmin() {
 		Boolean returnValue = false;
 		UserDto currentUser = getCurrentUser();
-		RoleEntity roleAdmin = roleRepository.findByRole("ROLE_ADMIN").orElse(null);
-		if (roleAdmin != null) {
+		Integer roleAdminId = getRoleId("ROLE_ADMIN");
+		if (roleAdminId != null) {
 			List<Integer> rolesIds = currentUser.getRolesIds();
-			if (rolesIds.contains(roleAdmin.getId())) {
+			if (rolesIds.contains(roleAdminId)) {
 				returnValue = true;
 			}
 		}
@@ -119,10 +133,10 @@ public class UserServiceImpl implements UserService {
 	public Boolean isAdmin(Integer userId) {
 		Boolean returnValue = false;
 		UserDto user = getUserById(userId);
-		RoleEntity roleAdmin = roleRepository.findByRole("ROLE_ADMIN").orElse(null);
-		if (roleAdmin != null) {
+		Integer roleAdminId = getRoleId("ROLE_ADMIN");
+		if (roleAdminId != null) {
 			List<Integer> rolesIds = user.getRolesIds();
-			if (rolesIds.contains(roleAdmin.getId())) {
+			if (rolesIds.contains(roleAdminId)) {
 				returnValue = true;
 			}
 		}
@@ -130,6 +144,12 @@ public class UserServiceImpl implements UserService {
 		return returnValue;
 	}
 
+	// Uloga koja još ne postoji se ne pamti, pa se pronalazi čim bude dodata
+	private Integer getRoleId(String role) {
+		return roleIds.computeIfAbsent(role,
+				key -> roleRepository.findByRole(key).map(RoleEntity::getId).orElse(null));
+	}
+
 	@Override
 	public void suspendUser(Integer userId) {
 		UserDto user = getUserById(userId);
@@ -139,6 +159,8 @@ public class UserServiceImpl implements UserService {
 		}
 		user.setEnabled((short) 0);
 		userRepository.save(tempConverter.userDtoToEntity(user));
+		userDetailsCache.invalidate(user.getEmail());
+		userNatsSender.sendUserSuspended(user.getEmail());
 	}
 
 	@Override
@@ -150,6 +172,13 @@ public class UserServiceImpl implements UserService {
 		}
 		user.setEnabled((short) 1);
 		userRepository.save(tempConverter.userDtoToEntity(user));
+		userDetailsCache.invalidate(user.getEmail());
+		userNatsSender.sendUserReactivated(user.getEmail());
+	}
+
+	@Override
+	public List<String> listSuspendedEmails() {
+		return userRepository.findSuspendedEmails();
 	}
 
 	@Override
@@ -172,12 +201,13 @@ public class UserServiceImpl implements UserService {
 
 	@Override
 	public void deleteUser(Integer userId) {
-		getUserById(userId);
+		UserDto user = getUserById(userId);
 		if (isAdmin(userId)) {
 			throw new OperationNotAllowedException(
 					new Error("This operation is not allowed!The user has Admin authority!"));
 		}
 		userRepository.deleteById(userId);
+		userDetailsCache.invalidate(user.getEmail());
 
 
 	}
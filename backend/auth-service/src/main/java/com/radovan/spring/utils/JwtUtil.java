@@ -1,7 +1,11 @@
 package com.radovan.spring.utils;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Header;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.ProtectedHeader;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -9,15 +13,24 @@ import org.springframework.context.annotation.PropertySource;
 import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Component;
 
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
 import java.security.KeyFactory;
+import java.security.MessageDigest;
 import java.security.PrivateKey;
 import java.security.PublicKey;
+import java.security.interfaces.RSAPublicKey;
 import java.security.spec.PKCS8EncodedKeySpec;
 import java.security.spec.X509EncodedKeySpec;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Base64;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
@@ -31,6 +44,10 @@ public class JwtUtil {
 	private PrivateKey privateKey;
 	private PublicKey publicKey;
 	private long jwtExpiration;
+	private String keyId;
+	// Ključ za potpisivanje je prvi, ostali se objavljuju tokom rotacije
+	private Map<String, PublicKey> verificationKeys = Collections.emptyMap();
+	private JwtParser jwtParser;
 
 	@Autowired
 	private Environment environment;
@@ -55,6 +72,20 @@ public class JwtUtil {
 		this.privateKey = loadPrivateKey(cleanKeyString(privateKeyString));
 		this.publicKey = loadPublicKey(cleanKeyString(publicKeyString));
 		this.jwtExpiration = Long.parseLong(expiration);
+		this.keyId = thumbprint(publicKey);
+
+		// Sledeći ključ se objavljuje pre prelaska na njega, prethodni ostaje dok njegovi tokeni ne isteknu
+		Map<String, PublicKey> keys = new LinkedHashMap<>();
+		keys.put(keyId, publicKey);
+		String additionalKeys = environment.getProperty("jwt.additional-public-keys");
+		if (additionalKeys != null && !additionalKeys.isBlank()) {
+			for (String additionalKey : additionalKeys.split(",")) {
+				PublicKey key = loadPublicKey(cleanKeyString(additionalKey));
+				keys.putIfAbsent(thumbprint(key), key);
+			}
+		}
+		this.verificationKeys = Collections.unmodifiableMap(keys);
+		this.jwtParser = Jwts.parser().keyLocator(this::locateVerificationKey).build();
 	}
 
 	private String cleanKeyString(String keyString) {
@@ -95,7 +126,9 @@ public class JwtUtil {
 		claims.put("username", username);
 		claims.put("roles", roles);
 
-		String token = Jwts.builder().claims(claims).subject(username).issuedAt(Date.from(Instant.now()))
+		// kid u zaglavlju govori servisima kojim JWKS ključem da provere potpis
+		JwtBuilder builder = Jwts.builder().header().keyId(keyId).and();
+		String token = builder.claims(claims).subject(username).issuedAt(Date.from(Instant.now()))
 				.expiration(Date.from(Instant.now().plusSeconds(jwtExpiration))).signWith(privateKey, Jwts.SIG.RS256)
 				.compact();
 
@@ -104,7 +137,7 @@ public class JwtUtil {
 
 	public boolean validateToken(String token) {
 		try {
-			Jwts.parser().verifyWith(publicKey).build().parseSignedClaims(token);
+			jwtParser.parseSignedClaims(token);
 			return true;
 		} catch (Exception e) {
 			logger.warn("Invalid JWT token: {}", e.getMessage());
@@ -117,7 +150,13 @@ public class JwtUtil {
 	}
 
 	public List<String> extractRoles(String token) {
-		return extractClaim(token, claims -> claims.get("roles", List.class));
+		return extractClaim(token, claims -> {
+			Object rawRoles = claims.get("roles");
+			if (rawRoles instanceof List<?> roles) {
+				return roles.stream().filter(role -> role instanceof String).map(role -> (String) role).toList();
+			}
+			return Collections.<String>emptyList();
+		});
 	}
 
 	public Date extractExpiration(String token) {
@@ -130,7 +169,7 @@ public class JwtUtil {
 	}
 
 	private Claims extractAllClaims(String token) {
-		return Jwts.parser().verifyWith(publicKey).build().parseSignedClaims(token).getPayload();
+		return jwtParser.parseSignedClaims(token).getPayload();
 	}
 
 	public boolean isTokenExpired(String token) {
@@ -160,6 +199,51 @@ public class JwtUtil {
 		}
 	}
 
+	// JWKS zapis svih aktivnih ključeva, servisi biraju ključ po kid zaglavlju tokena
+	public List<Map<String, String>> getJsonWebKeys() {
+		List<Map<String, String>> jsonWebKeys = new ArrayList<>();
+		verificationKeys.forEach((kid, key) -> {
+			RSAPublicKey rsaKey = (RSAPublicKey) key;
+			Map<String, String> jsonWebKey = new LinkedHashMap<>();
+			jsonWebKey.put("kty", "RSA");
+			jsonWebKey.put("kid", kid);
+			jsonWebKey.put("use", "sig");
+			jsonWebKey.put("alg", "RS256");
+			jsonWebKey.put("n", base64Url(rsaKey.getModulus()));
+			jsonWebKey.put("e", base64Url(rsaKey.getPublicExponent()));
+			jsonWebKeys.add(jsonWebKey);
+		});
+		return jsonWebKeys;
+	}
+
+	private Key locateVerificationKey(Header header) {
+		String kid = header instanceof ProtectedHeader protectedHeader ? protectedHeader.getKeyId() : null;
+		// Tokeni izdati pre uvođenja kid zaglavlja potpisani su trenutnim ključem
+		return kid == null ? publicKey : verificationKeys.get(kid);
+	}
+
+	// RFC 7638 otisak ključa, isti ključ uvek dobija isti kid
+	private static String thumbprint(PublicKey key) {
+		try {
+			RSAPublicKey rsaKey = (RSAPublicKey) key;
+			String canonicalJson = "{\"e\":\"" + base64Url(rsaKey.getPublicExponent()) + "\",\"kty\":\"RSA\",\"n\":\""
+					+ base64Url(rsaKey.getModulus()) + "\"}";
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(canonicalJson.getBytes(StandardCharsets.UTF_8));
+			return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+		} catch (Exception e) {
+			throw new RuntimeException("Failed to compute key id", e);
+		}
+	}
+
+	private static String base64Url(BigInteger value) {
+		byte[] bytes = value.toByteArray();
+		// BigInteger dodaje vodeću nulu za znak, JWK očekuje neoznačen zapis
+		if (bytes.length > 1 && bytes[0] == 0) {
+			bytes = Arrays.copyOfRange(bytes, 1, bytes.length);
+		}
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+	}
+
 	private String splitKeyIntoLines(String key) {
 		// Dodaje novi red svakih 64 karaktera
 		return key.replaceAll("(.{64})", "$1\n").trim();
@@ -0,0 +1,35 @@
+package com.radovan.spring.utils;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+// Principals of authenticated requests keyed by email, UserServiceImpl invalidates an entry whenever the user changes
+@Component
+public class UserDetailsCache {
+
+	private static final int MAX_ENTRIES = 10_000;
+	// Gornja granica zastarelosti za izmene koje ne prolaze kroz UserServiceImpl
+	private static final Duration TIME_TO_LIVE = Duration.ofMinutes(10);
+
+	private final Cache<String, UserDetails> cache = Caffeine.newBuilder()
+			.maximumSize(MAX_ENTRIES)
+			.expireAfterWrite(TIME_TO_LIVE)
+			.build();
+
+	// Istovremeni zahtevi za isti email dele jedno učitavanje, izuzetak loader-a se ne kešira
+	public UserDetails get(String email, Function<String, UserDetails> loader) {
+		return cache.get(email, loader);
+	}
+
+	public void invalidate(String email) {
+		if (email != null) {
+			cache.invalidate(email);
+		}
+	}
+}
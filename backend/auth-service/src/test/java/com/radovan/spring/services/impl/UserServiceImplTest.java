@@ -0,0 +1,158 @@
+package com.radovan.spring.services.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.radovan.spring.brokers.UserNatsSender;
+import com.radovan.spring.config.SpringMvcConfiguration;
+import com.radovan.spring.converter.TempConverter;
+import com.radovan.spring.entity.RoleEntity;
+import com.radovan.spring.entity.UserEntity;
+import com.radovan.spring.exceptions.OperationNotAllowedException;
+import com.radovan.spring.repositories.RoleRepository;
+import com.radovan.spring.repositories.UserRepository;
+import com.radovan.spring.utils.UserDetailsCache;
+
+class UserServiceImplTest {
+
+	private static final int ADMIN_ID = 1;
+	private static final int USER_ID = 2;
+
+	private final Map<Integer, UserEntity> users = new HashMap<>();
+	private final Map<Integer, RoleEntity> roles = new HashMap<>();
+	private final List<String> events = new ArrayList<>();
+	private final AtomicInteger loads = new AtomicInteger();
+
+	private UserDetailsCache userDetailsCache;
+	private UserServiceImpl userService;
+
+	@BeforeEach
+	void setUp() {
+		RoleEntity adminRole = role(1, "ROLE_ADMIN");
+		RoleEntity userRole = role(2, "ROLE_USER");
+		users.put(ADMIN_ID, user(ADMIN_ID, "admin@example.com", adminRole));
+		users.put(USER_ID, user(USER_ID, "alice@example.com", userRole));
+
+		UserRepository userRepository = stub(UserRepository.class, (name, args) -> switch (name) {
+		case "findById" -> Optional.ofNullable(users.get(args[0]));
+		case "save" -> args[0];
+		case "deleteById" -> users.remove(args[0]);
+		default -> throw new UnsupportedOperationException(name);
+		});
+		RoleRepository roleRepository = stub(RoleRepository.class, (name, args) -> switch (name) {
+		case "findById" -> Optional.ofNullable(roles.get(args[0]));
+		case "findByRole" -> roles.values().stream().filter(role -> role.getRole().equals(args[0])).findFirst();
+		default -> throw new UnsupportedOperationException(name);
+		});
+
+		TempConverter tempConverter = new TempConverter();
+		ReflectionTestUtils.invokeMethod(tempConverter, "initialize", roleRepository,
+				new SpringMvcConfiguration().getMapper(), userRepository);
+		userDetailsCache = new UserDetailsCache();
+		userService = new UserServiceImpl();
+		ReflectionTestUtils.invokeMethod(userService, "initialize", userRepository, roleRepository, tempConverter,
+				null, null, new RecordingNatsSender(), userDetailsCache);
+	}
+
+	@Test
+	void suspendedUserIsDroppedFromCacheBeforeTheEventIsSent() {
+		cachePrincipal("alice@example.com");
+
+		userService.suspendUser(USER_ID);
+
+		assertEquals(List.of("suspended:alice@example.com"), events);
+		assertEquals(2, loads.get());
+	}
+
+	@Test
+	void reactivatedUserIsDroppedFromCache() {
+		cachePrincipal("alice@example.com");
+
+		userService.reactivateUser(USER_ID);
+
+		assertEquals(List.of("reactivated:alice@example.com"), events);
+		assertEquals(2, loads.get());
+	}
+
+	@Test
+	void deletedUserIsDroppedFromCache() {
+		cachePrincipal("alice@example.com");
+
+		userService.deleteUser(USER_ID);
+
+		// Obrisan korisnik se više ne može učitati, umesto da se vrati iz keša
+		assertThrows(NoSuchElementException.class, () -> cachePrincipal("alice@example.com"));
+		assertEquals(2, loads.get());
+	}
+
+	@Test
+	void refusedSuspensionKeepsTheCachedAdmin() {
+		cachePrincipal("admin@example.com");
+
+		assertThrows(OperationNotAllowedException.class, () -> userService.suspendUser(ADMIN_ID));
+
+		cachePrincipal("admin@example.com");
+		assertEquals(1, loads.get());
+		assertEquals(List.of(), events);
+	}
+
+	private void cachePrincipal(String email) {
+		userDetailsCache.get(email, key -> {
+			loads.incrementAndGet();
+			return users.values().stream().filter(user -> user.getEmail().equals(key)).findFirst().orElseThrow();
+		});
+	}
+
+	private RoleEntity role(int id, String name) {
+		RoleEntity role = new RoleEntity(name);
+		role.setId(id);
+		roles.put(id, role);
+		return role;
+	}
+
+	private static UserEntity user(int id, String email, RoleEntity role) {
+		UserEntity user = new UserEntity("First", "Last", email, "secret", (byte) 1);
+		user.setId(id);
+		user.setRoles(new ArrayList<>(List.of(role)));
+		return user;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> T stub(Class<T> type, Handler handler) {
+		return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type },
+				(proxy, method, args) -> handler.handle(method.getName(), args));
+	}
+
+	private interface Handler {
+		Object handle(String name, Object[] args);
+	}
+
+	// Principal se traži iz keša u trenutku slanja, ponovno učitavanje znači da je stavka već izbačena
+	private final class RecordingNatsSender extends UserNatsSender {
+
+		@Override
+		public void sendUserSuspended(String email) {
+			events.add("suspended:" + email);
+			cachePrincipal(email);
+		}
+
+		@Override
+		public void sendUserReactivated(String email) {
+			events.add("reactivated:" + email);
+			cachePrincipal(email);
+		}
+	}
+}
@@ -0,0 +1,90 @@
+package com.radovan.spring.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import com.radovan.spring.entity.UserEntity;
+
+class UserDetailsCacheTest {
+
+	private static final String EMAIL = "alice@example.com";
+
+	private UserDetailsCache cache;
+	private AtomicInteger loads;
+
+	@BeforeEach
+	void setUp() {
+		cache = new UserDetailsCache();
+		loads = new AtomicInteger();
+	}
+
+	@Test
+	void repeatedLookupsLoadTheUserOnce() {
+		UserDetails first = cache.get(EMAIL, loader());
+		UserDetails second = cache.get(EMAIL, loader());
+
+		assertSame(first, second);
+		assertEquals(1, loads.get());
+	}
+
+	@Test
+	void invalidatedUserIsLoadedAgain() {
+		UserDetails before = cache.get(EMAIL, loader());
+
+		cache.invalidate(EMAIL);
+		UserDetails after = cache.get(EMAIL, loader());
+
+		assertEquals(2, loads.get());
+		assertEquals(before.getUsername(), after.getUsername());
+	}
+
+	@Test
+	void invalidationKeepsOtherUsers() {
+		cache.get(EMAIL, loader());
+		cache.get("bob@example.com", loader());
+
+		cache.invalidate(EMAIL);
+		cache.get("bob@example.com", loader());
+
+		assertEquals(2, loads.get());
+	}
+
+	@Test
+	void invalidatingWithoutEmailIsIgnored() {
+		cache.get(EMAIL, loader());
+
+		cache.invalidate(null);
+		cache.get(EMAIL, loader());
+
+		assertEquals(1, loads.get());
+	}
+
+	@Test
+	void failedLoadIsNotCached() {
+		assertThrows(IllegalStateException.class, () -> cache.get(EMAIL, email -> {
+			loads.incrementAndGet();
+			throw new IllegalStateException("database unavailable");
+		}));
+
+		cache.get(EMAIL, loader());
+
+		assertEquals(2, loads.get());
+	}
+
+	private Function<String, UserDetails> loader() {
+		return email -> {
+			loads.incrementAndGet();
+			UserEntity user = new UserEntity();
+			user.setEmail(email);
+			return user;
+		};
+	}
+}
@@ -97,7 +97,13 @@ public class CartNatsListener {
                     .map(JsonNode::asText)
                     .orElse("");
 
-            cartItemService.updateAllByProductId(productId, jwtToken);
+            // Product-service sends the new price along, older publishers still get it looked up
+            if (payload.hasNonNull("productPrice") && payload.hasNonNull("discount")) {
+                cartItemService.updateAllByProductId(productId, payload.get("productPrice").floatValue(),
+                        payload.get("discount").floatValue());
+            } else {
+                cartItemService.updateAllByProductId(productId, jwtToken);
+            }
 
             ObjectNode response = objectMapper.createObjectNode();
             response.put("status", 200);
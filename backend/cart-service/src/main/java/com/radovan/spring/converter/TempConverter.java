@@ -53,12 +53,8 @@ public class TempConverter {
 		Optional<List<Integer>> cartItemsIdsOptional = Optional.ofNullable(cart.getCartItemsIds());
 		List<CartItemEntity> cartItems = new ArrayList<CartItemEntity>();
 
-		cartItemsIdsOptional.ifPresent(cartItemsIds -> {
-			cartItemsIds.forEach(itemId -> {
-				cartItemRepository.findById(itemId).ifPresent(cartItem -> {
-					cartItems.add(cartItem);
-				});
-			});
+		cartItemsIdsOptional.filter(cartItemsIds -> !cartItemsIds.isEmpty()).ifPresent(cartItemsIds -> {
+			cartItems.addAll(cartItemRepository.findAllByIds(cartItemsIds));
 		});
 
 		returnValue.setCartItems(cartItems);
@@ -17,7 +17,13 @@ public interface CartItemRepository {
 
 	Optional<CartItemEntity> findById(Integer itemId);
 
+	List<CartItemEntity> findAllByIds(List<Integer> itemIds);
+
 	void deleteById(Integer itemId);
 
 	CartItemEntity save(CartItemEntity itemEntity);
+
+	List<Integer> findCartIdsByProductId(Integer productId);
+
+	void repriceByProductId(Integer productId, Float unitPrice, Float discount);
 }
@@ -7,8 +7,6 @@ import java.util.Optional;
 
 public interface CartRepository {
 
-	Optional<Float> calculateCartPrice(Integer cartId);
-
 	Optional<CartEntity> findById(Integer cartId);
 
 	CartEntity save(CartEntity cartEntity);
@@ -16,4 +14,6 @@ public interface CartRepository {
 	List<CartEntity> findAll();
 
 	void deleteById(Integer cartId);
+
+	void refreshCartPrices(List<Integer> cartIds);
 }
@@ -95,6 +95,20 @@ public class CartItemRepositoryImpl implements CartItemRepository {
         return results.stream().findFirst();
     }
 
+    @Override
+    public List<CartItemEntity> findAllByIds(List<Integer> itemIds) {
+        prometheusService.updateDatabaseQueryCount();
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<CartItemEntity> cq = cb.createQuery(CartItemEntity.class);
+        Root<CartItemEntity> root = cq.from(CartItemEntity.class);
+
+        Predicate predicate = root.get("cartItemId").in(itemIds);
+        cq.where(predicate);
+
+        return entityManager.createQuery(cq).getResultList();
+    }
+
     @Override
     public void deleteById(Integer itemId) {
         prometheusService.updateDatabaseQueryCount();
@@ -117,5 +131,33 @@ public class CartItemRepositoryImpl implements CartItemRepository {
         entityManager.flush();
         return itemEntity;
     }
+
+    @Override
+    public List<Integer> findCartIdsByProductId(Integer productId) {
+        prometheusService.updateDatabaseQueryCount();
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Integer> cq = cb.createQuery(Integer.class);
+        Root<CartItemEntity> root = cq.from(CartItemEntity.class);
+
+        Predicate predicate = cb.equal(root.get("productId"), productId);
+        cq.select(root.get("cart").get("cartId")).distinct(true).where(predicate);
+
+        return entityManager.createQuery(cq).getResultList();
+    }
+
+    @Override
+    public void repriceByProductId(Integer productId, Float unitPrice, Float discount) {
+        prometheusService.updateDatabaseQueryCount();
+
+        String sql = "UPDATE cart_items SET price = quantity * (:unitPrice - (:unitPrice * :discount) / 100) "
+                + "WHERE product_id = :productId";
+
+        entityManager.createNativeQuery(sql)
+                .setParameter("unitPrice", unitPrice)
+                .setParameter("discount", discount)
+                .setParameter("productId", productId)
+                .executeUpdate();
+    }
 }
 
@@ -1,7 +1,6 @@
 package com.radovan.spring.repositories.impl;
 
 import com.radovan.spring.entity.CartEntity;
-import com.radovan.spring.entity.CartItemEntity;
 import com.radovan.spring.repositories.CartRepository;
 import com.radovan.spring.services.PrometheusService;
 import jakarta.persistence.*;
@@ -28,25 +27,6 @@ public class CartRepositoryImpl implements CartRepository {
 
 
 
-    @Override
-    public Optional<Float> calculateCartPrice(Integer cartId) {
-        prometheusService.updateDatabaseQueryCount();
-
-        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
-        CriteriaQuery<Float> cq = cb.createQuery(Float.class);
-        Root<CartItemEntity> root = cq.from(CartItemEntity.class);
-
-        Predicate predicate = cb.equal(root.get("cart").get("cartId"), cartId);
-        cq.select(cb.sum(root.get("price"))).where(predicate);
-
-        try {
-            Float result = entityManager.createQuery(cq).getSingleResult();
-            return Optional.ofNullable(result);
-        } catch (NoResultException e) {
-            return Optional.empty();
-        }
-    }
-
     @Override
     public Optional<CartEntity> findById(Integer cartId) {
         prometheusService.updateDatabaseQueryCount();
@@ -96,5 +76,22 @@ public class CartRepositoryImpl implements CartRepository {
             entityManager.remove(cartEntity);
         }
     }
+
+    @Override
+    public void refreshCartPrices(List<Integer> cartIds) {
+        prometheusService.updateDatabaseQueryCount();
+
+        // One set-based statement, carts left without items fall back to a zero price.
+        // ROUND to 2 decimals keeps what the per-cart refresh stored, it went through TempConverter's "0.00" format
+        String sql = "UPDATE carts c SET cart_price = ROUND(CAST(COALESCE(t.total, 0) AS numeric), 2) "
+                + "FROM (SELECT ca.id AS cart_id, SUM(ci.price) AS total FROM carts ca "
+                + "LEFT JOIN cart_items ci ON ci.cart_id = ca.id "
+                + "WHERE ca.id IN (:cartIds) GROUP BY ca.id) t "
+                + "WHERE c.id = t.cart_id";
+
+        entityManager.createNativeQuery(sql)
+                .setParameter("cartIds", cartIds)
+                .executeUpdate();
+    }
 }
 
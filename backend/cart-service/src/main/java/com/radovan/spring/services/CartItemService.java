@@ -22,4 +22,6 @@ public interface CartItemService {
 
 	void updateAllByProductId(Integer productId,String jwtToken);
 
+	void updateAllByProductId(Integer productId, Float productPrice, Float discount);
+
 }
\ No newline at end of file
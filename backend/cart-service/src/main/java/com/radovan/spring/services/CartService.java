@@ -1,5 +1,7 @@
 package com.radovan.spring.services;
 
+import java.util.List;
+
 import com.radovan.spring.dto.CartDto;
 
 public interface CartService {
@@ -10,7 +12,7 @@ public interface CartService {
 
 	void refreshCartState(Integer cartId);
 
-	void refreshAllCarts();
+	void refreshCartStates(List<Integer> cartIds);
 
 	CartDto addCart();
 
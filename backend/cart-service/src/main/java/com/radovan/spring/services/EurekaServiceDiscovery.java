@@ -1,7 +1,13 @@
 package com.radovan.spring.services;
 
+import com.fasterxml.jackson.databind.JsonNode;
+
 public interface EurekaServiceDiscovery {
 
 	String getServiceUrl(String serviceName);
 
+	String resolveInstanceUrl(String serviceName, JsonNode instance);
+
+	JsonNode fetchApplications(boolean delta);
+
 }
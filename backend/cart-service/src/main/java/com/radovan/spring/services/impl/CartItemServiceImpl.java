@@ -10,7 +10,6 @@ import org.springframework.stereotype.Service;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.radovan.spring.broker.CartNatsSender;
 import com.radovan.spring.converter.TempConverter;
-import com.radovan.spring.dto.CartDto;
 import com.radovan.spring.dto.CartItemDto;
 import com.radovan.spring.entity.CartItemEntity;
 import com.radovan.spring.exceptions.InstanceUndefinedException;
@@ -49,7 +48,7 @@ public class CartItemServiceImpl implements CartItemService {
 		// Validacija ID-a korpe
 		Integer cartId = customerData.get("cartId").asInt();
 
-		CartDto cart = cartService.getCartById(cartId);
+		cartService.getCartById(cartId);
 
 		// Ekstrakcija podataka o proizvodu
 		JsonNode productNode = productData.get("product");
@@ -90,7 +89,6 @@ public class CartItemServiceImpl implements CartItemService {
 		// Kreiranje i čuvanje stavke korpe
 		cartItem.setPrice(finalPrice);
 		CartItemEntity cartItemEntity = tempConverter.cartItemDtoToEntity(cartItem);
-		cartItemEntity.setCart(tempConverter.cartDtoToEntity(cart));
 		CartItemEntity storedItem = itemRepository.save(cartItemEntity);
 
 		// Osvežavanje stanja korpe
@@ -121,8 +119,9 @@ public class CartItemServiceImpl implements CartItemService {
 
 	@Override
 	public void removeAllByProductId(Integer productId) {
+		List<Integer> affectedCartIds = itemRepository.findCartIdsByProductId(productId);
 		itemRepository.deleteAllByProductId(productId);
-		cartService.refreshAllCarts();
+		cartService.refreshCartStates(affectedCartIds);
 	}
 
 	@Override
@@ -152,18 +151,13 @@ public class CartItemServiceImpl implements CartItemService {
 		float productPrice = productDetails.get("productPrice").floatValue();
 		float discount = productDetails.get("discount").floatValue();
 
-		List<CartItemEntity> allItems = listAllByProductId(productId).stream().map(tempConverter::cartItemDtoToEntity)
-				.collect(Collectors.toList());
-
-		allItems.forEach(cartItem -> {
-			float finalPrice = productPrice - ((productPrice * discount) / 100);
-			finalPrice = finalPrice * cartItem.getQuantity(); // ✅ Korekcija cene
-
-			cartItem.setPrice(finalPrice);
-			itemRepository.save(cartItem); // ✅ Ažuriranje u bazi
-		});
+		updateAllByProductId(productId, productPrice, discount);
+	}
 
-		cartService.refreshAllCarts();
+	@Override
+	public void updateAllByProductId(Integer productId, Float productPrice, Float discount) {
+		itemRepository.repriceByProductId(productId, productPrice, discount);
+		cartService.refreshCartStates(itemRepository.findCartIdsByProductId(productId));
 	}
 
 }
@@ -53,16 +53,14 @@ public class CartServiceImpl implements CartService {
 
 	@Override
 	public void refreshCartState(Integer cartId) {
-		CartDto cart = getCartById(cartId);
-		Float cartPrice = cartRepository.calculateCartPrice(cartId).orElse(0f);
-		cart.setCartPrice(cartPrice);
-		cartRepository.save(tempConverter.cartDtoToEntity(cart));
+		cartRepository.refreshCartPrices(List.of(cartId));
 	}
 
 	@Override
-	public void refreshAllCarts() {
-		List<CartEntity> allCarts = cartRepository.findAll();
-		allCarts.forEach(cartEntity -> refreshCartState(cartEntity.getCartId()));
+	public void refreshCartStates(List<Integer> cartIds) {
+		if (!cartIds.isEmpty()) {
+			cartRepository.refreshCartPrices(cartIds);
+		}
 	}
 
 	@Override
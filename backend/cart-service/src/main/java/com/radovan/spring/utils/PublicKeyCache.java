@@ -1,88 +1,125 @@
 package com.radovan.spring.utils;
 
-import com.github.benmanes.caffeine.cache.Cache;
-import com.github.benmanes.caffeine.cache.Caffeine;
+import com.fasterxml.jackson.databind.JsonNode;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestTemplate;
 
+import java.math.BigInteger;
 import java.security.KeyFactory;
 import java.security.PublicKey;
-import java.security.spec.X509EncodedKeySpec;
+import java.security.spec.RSAPublicKeySpec;
 import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Component
 public class PublicKeyCache {
     private static final Logger logger = LoggerFactory.getLogger(PublicKeyCache.class);
-    private static final String CACHE_KEY = "jwt-public-key";
+    private static final long MIN_RELOAD_INTERVAL_MILLIS = 10_000;
 
     private final RestTemplate restTemplate;
     private final ServiceUrlProvider urlProvider;
-    private final Cache<String, PublicKey> cache;
+    // Nepromenljiv snimak kid -> ključ, čitaoci ga dobijaju bez zaključavanja i bez prelaska na drugu nit
+    private volatile KeySet keySet = new KeySet(Map.of(), null);
+    // Samo jedan poziv ka auth-service u isto vreme, ostali čekaju njegov rezultat
+    private final AtomicReference<CompletableFuture<Boolean>> inFlightReload = new AtomicReference<>();
+    private volatile long lastReloadMillis;
 
     public PublicKeyCache(ServiceUrlProvider urlProvider, RestTemplate restTemplate) {
         this.restTemplate = restTemplate;
         this.urlProvider = urlProvider;
-        this.cache = Caffeine.newBuilder()
-                .expireAfterWrite(12, TimeUnit.HOURS)
-                .build();
     }
 
-    public CompletableFuture<PublicKey> getPublicKey() {
-        return CompletableFuture.supplyAsync(() -> {
-            PublicKey cachedKey = cache.getIfPresent(CACHE_KEY);
-            if (cachedKey != null) {
-                return cachedKey;
-            }
-            return refreshPublicKey();
-        });
+    @PostConstruct
+    public void init() {
+        reloadKeys();
     }
 
-    public PublicKey refreshPublicKey() {
-        try {
-            PublicKey newKey = fetchAndParsePublicKey();
-            cache.put(CACHE_KEY, newKey);
-            return newKey;
-        } catch (Exception e) {
-            logger.error("*** [ERROR] Failed to refresh public key", e);
-            throw new RuntimeException("Public key refresh failed", e);
-        }
+    // Ključevi se osvežavaju unapred, pre nego što ih ijedan zahtev zatraži
+    @Scheduled(initialDelay = 600000, fixedDelay = 600000)
+    public void refreshAhead() {
+        reloadKeys();
+    }
+
+    // Token bez kid zaglavlja je potpisan ključem koji auth-service navodi prvi
+    public PublicKey findKey(String kid) {
+        KeySet current = keySet;
+        return kid == null ? current.defaultKey() : current.keys().get(kid);
     }
 
-    private PublicKey fetchAndParsePublicKey() throws Exception {
-        String publicKeyPem = fetchPublicKeyFromAuthService();
-        return parsePublicKey(cleanKey(publicKeyPem));
+    // Nepoznat kid znači da je auth-service rotirao ključ, ponovno učitavanje je ograničeno da ne bi nastala oluja poziva
+    public boolean reloadForUnknownKey() {
+        if (System.currentTimeMillis() - lastReloadMillis < MIN_RELOAD_INTERVAL_MILLIS) {
+            return false;
+        }
+        return reloadKeys();
     }
 
-    private String fetchPublicKeyFromAuthService() throws Exception {
-        String url = urlProvider.getAuthServiceUrl() + "/api/auth/public-key";
-        logger.debug("*** [DEBUG] Fetching public key from: {}", url);
+    private boolean reloadKeys() {
+        CompletableFuture<Boolean> reload = new CompletableFuture<>();
+        CompletableFuture<Boolean> existing = inFlightReload.compareAndExchange(null, reload);
+        if (existing != null) {
+            return existing.join();
+        }
+
+        try {
+            keySet = fetchKeySet();
+            reload.complete(true);
+            return true;
+        } catch (Exception e) {
+            logger.error("*** [ERROR] Failed to load public keys", e);
+            reload.complete(false);
+            return false;
+        } finally {
+            lastReloadMillis = System.currentTimeMillis();
+            inFlightReload.set(null);
+        }
+    }
 
-        String publicKeyPem = restTemplate.getForObject(url, String.class);
+    private KeySet fetchKeySet() throws Exception {
+        String url = urlProvider.getAuthServiceUrl() + "/api/auth/jwks";
+        logger.debug("*** [DEBUG] Fetching public keys from: {}", url);
 
-        if (publicKeyPem == null || publicKeyPem.trim().isEmpty()) {
+        JsonNode jwks = restTemplate.getForObject(url, JsonNode.class);
+        if (jwks == null) {
             throw new RuntimeException("*** [ERROR] Received empty response from auth-service!");
         }
 
-        return publicKeyPem;
-    }
+        KeyFactory keyFactory = KeyFactory.getInstance("RSA");
+        Map<String, PublicKey> keys = new LinkedHashMap<>();
+        PublicKey defaultKey = null;
+        for (JsonNode jwk : jwks.path("keys")) {
+            if (!"RSA".equals(jwk.path("kty").asText())) {
+                continue;
+            }
+            PublicKey key = keyFactory.generatePublic(
+                    new RSAPublicKeySpec(decodeUnsigned(jwk.path("n").asText()), decodeUnsigned(jwk.path("e").asText())));
+            keys.put(jwk.path("kid").asText(), key);
+            if (defaultKey == null) {
+                defaultKey = key;
+            }
+        }
 
-    private String cleanKey(String publicKeyPem) {
-        return publicKeyPem.replace("-----BEGIN PUBLIC KEY-----", "")
-                .replace("-----END PUBLIC KEY-----", "")
-                .replaceAll("\\s+", "");
+        if (defaultKey == null) {
+            throw new RuntimeException("*** [ERROR] No RSA keys in auth-service JWKS!");
+        }
+        return new KeySet(Map.copyOf(keys), defaultKey);
     }
 
-    private PublicKey parsePublicKey(String keyBase64) throws Exception {
-        byte[] decodedKey = Base64.getDecoder().decode(keyBase64);
-        X509EncodedKeySpec keySpec = new X509EncodedKeySpec(decodedKey);
-        return KeyFactory.getInstance("RSA").generatePublic(keySpec);
+    private BigInteger decodeUnsigned(String base64Url) {
+        return new BigInteger(1, Base64.getUrlDecoder().decode(base64Url));
     }
 
     public boolean isKeyAvailable() {
-        return cache.getIfPresent(CACHE_KEY) != null;
+        return keySet.defaultKey() != null;
+    }
+
+    private record KeySet(Map<String, PublicKey> keys, PublicKey defaultKey) {
     }
 }
@@ -0,0 +1,158 @@
+package com.radovan.spring.repositories.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.Configuration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.radovan.spring.entity.CartEntity;
+import com.radovan.spring.entity.CartItemEntity;
+import com.radovan.spring.services.PrometheusService;
+
+// Native UPDATE ... FROM se izvršava nad H2 bazom u PostgreSQL modu, svaki poziv dobija svoju transakciju kao preko @Transactional
+class CartRepositoryImplTest {
+
+	private static final int REPRICED_PRODUCT = 7;
+	private static final int OTHER_PRODUCT = 8;
+	private static final float STALE_PRICE = 99f;
+
+	private SessionFactory sessionFactory;
+	private CartRepositoryImpl cartRepository;
+	private CartItemRepositoryImpl itemRepository;
+	private Integer mixedCartId;
+	private Integer untouchedCartId;
+	private Integer singleItemCartId;
+
+	@BeforeEach
+	void setUp() {
+		Configuration configuration = new Configuration();
+		configuration.setProperty("hibernate.connection.url",
+				"jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1");
+		configuration.setProperty("hibernate.hbm2ddl.auto", "create-drop");
+		configuration.addAnnotatedClass(CartEntity.class);
+		configuration.addAnnotatedClass(CartItemEntity.class);
+		sessionFactory = configuration.buildSessionFactory();
+
+		PrometheusService prometheusService = (PrometheusService) Proxy.newProxyInstance(
+				PrometheusService.class.getClassLoader(), new Class<?>[] { PrometheusService.class },
+				(proxy, method, args) -> null);
+		cartRepository = new CartRepositoryImpl();
+		ReflectionTestUtils.setField(cartRepository, "prometheusService", prometheusService);
+		itemRepository = new CartItemRepositoryImpl();
+		ReflectionTestUtils.setField(itemRepository, "prometheusService", prometheusService);
+
+		mixedCartId = inTransaction(session -> {
+			CartEntity cart = cart(session);
+			item(session, cart, REPRICED_PRODUCT, 2, 0f);
+			item(session, cart, OTHER_PRODUCT, 1, 5.25f);
+			return cart.getCartId();
+		});
+		untouchedCartId = inTransaction(session -> {
+			CartEntity cart = cart(session);
+			item(session, cart, OTHER_PRODUCT, 1, 5.25f);
+			return cart.getCartId();
+		});
+		singleItemCartId = inTransaction(session -> {
+			CartEntity cart = cart(session);
+			item(session, cart, REPRICED_PRODUCT, 1, 0f);
+			return cart.getCartId();
+		});
+	}
+
+	@AfterEach
+	void tearDown() {
+		sessionFactory.close();
+	}
+
+	@Test
+	void productRepriceRefreshesOnlyCartsHoldingTheProduct() {
+		inTransaction(session -> {
+			itemRepository.repriceByProductId(REPRICED_PRODUCT, 10f, 20f);
+			return null;
+		});
+		List<Integer> affectedCartIds = inTransaction(session -> itemRepository.findCartIdsByProductId(REPRICED_PRODUCT));
+		inTransaction(session -> {
+			cartRepository.refreshCartPrices(affectedCartIds);
+			return null;
+		});
+
+		assertEquals(List.of(mixedCartId, singleItemCartId), affectedCartIds.stream().sorted().toList());
+		assertEquals(21.25f, priceOf(mixedCartId));
+		assertEquals(8f, priceOf(singleItemCartId));
+		assertEquals(STALE_PRICE, priceOf(untouchedCartId));
+	}
+
+	@Test
+	void cartEmptiedByProductRemovalFallsBackToZero() {
+		List<Integer> affectedCartIds = inTransaction(session -> itemRepository.findCartIdsByProductId(REPRICED_PRODUCT));
+		inTransaction(session -> {
+			itemRepository.deleteAllByProductId(REPRICED_PRODUCT);
+			cartRepository.refreshCartPrices(affectedCartIds);
+			return null;
+		});
+
+		assertEquals(5.25f, priceOf(mixedCartId));
+		assertEquals(0f, priceOf(singleItemCartId));
+		assertEquals(STALE_PRICE, priceOf(untouchedCartId));
+	}
+
+	@Test
+	void cartPriceIsRoundedToCents() {
+		Integer cartId = inTransaction(session -> {
+			CartEntity cart = cart(session);
+			item(session, cart, OTHER_PRODUCT, 1, 1.111f);
+			item(session, cart, REPRICED_PRODUCT, 1, 2.222f);
+			return cart.getCartId();
+		});
+
+		inTransaction(session -> {
+			cartRepository.refreshCartPrices(List.of(cartId));
+			return null;
+		});
+
+		assertEquals(3.33f, priceOf(cartId));
+	}
+
+	private float priceOf(Integer cartId) {
+		try (Session session = sessionFactory.openSession()) {
+			return session.get(CartEntity.class, cartId).getCartPrice();
+		}
+	}
+
+	private <T> T inTransaction(Function<Session, T> work) {
+		try (Session session = sessionFactory.openSession()) {
+			ReflectionTestUtils.setField(cartRepository, "entityManager", session);
+			ReflectionTestUtils.setField(itemRepository, "entityManager", session);
+			session.beginTransaction();
+			T result = work.apply(session);
+			session.getTransaction().commit();
+			return result;
+		}
+	}
+
+	private static CartEntity cart(Session session) {
+		CartEntity cart = new CartEntity();
+		cart.setCartPrice(STALE_PRICE);
+		session.persist(cart);
+		return cart;
+	}
+
+	private static void item(Session session, CartEntity cart, int productId, int quantity, float price) {
+		CartItemEntity item = new CartItemEntity();
+		item.setCart(cart);
+		item.setProductId(productId);
+		item.setQuantity(quantity);
+		item.setPrice(price);
+		session.persist(item);
+	}
+}
@@ -0,0 +1,79 @@
+package com.radovan.spring.services.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.radovan.spring.repositories.CartItemRepository;
+import com.radovan.spring.repositories.CartRepository;
+
+class CartItemServiceImplTest {
+
+	private final List<String> calls = new ArrayList<>();
+	private List<Integer> cartIdsHoldingProduct = List.of(3, 5);
+	private CartItemServiceImpl cartItemService;
+
+	@BeforeEach
+	void setUp() {
+		CartItemRepository itemRepository = stub(CartItemRepository.class, (name, args) -> {
+			calls.add(name);
+			if (name.equals("findCartIdsByProductId")) {
+				return cartIdsHoldingProduct;
+			}
+			// Posle brisanja proizvod više nije ni u jednoj korpi
+			if (name.equals("deleteAllByProductId")) {
+				cartIdsHoldingProduct = List.of();
+			}
+			return null;
+		});
+		CartRepository cartRepository = stub(CartRepository.class, (name, args) -> {
+			calls.add(name + args[0]);
+			return null;
+		});
+
+		CartServiceImpl cartService = new CartServiceImpl();
+		ReflectionTestUtils.invokeMethod(cartService, "initialize", cartRepository, null, null, null);
+		cartItemService = new CartItemServiceImpl();
+		ReflectionTestUtils.invokeMethod(cartItemService, "initialize", itemRepository, cartService,
+				null, null);
+	}
+
+	@Test
+	void removedProductRefreshesTheCartsThatHeldIt() {
+		cartItemService.removeAllByProductId(7);
+
+		assertEquals(List.of("findCartIdsByProductId", "deleteAllByProductId", "refreshCartPrices[3, 5]"), calls);
+	}
+
+	@Test
+	void repricedProductRefreshesOnlyItsCarts() {
+		cartItemService.updateAllByProductId(7, 10f, 20f);
+
+		assertEquals(List.of("repriceByProductId", "findCartIdsByProductId", "refreshCartPrices[3, 5]"), calls);
+	}
+
+	@Test
+	void productOutsideAnyCartTouchesNoCart() {
+		cartIdsHoldingProduct = List.of();
+
+		cartItemService.updateAllByProductId(7, 10f, 20f);
+
+		assertEquals(List.of("repriceByProductId", "findCartIdsByProductId"), calls);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> T stub(Class<T> type, Handler handler) {
+		return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type },
+				(proxy, method, args) -> handler.handle(method.getName(), args));
+	}
+
+	private interface Handler {
+		Object handle(String name, Object[] args);
+	}
+}
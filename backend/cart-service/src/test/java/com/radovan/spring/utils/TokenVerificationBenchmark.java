@@ -0,0 +1,100 @@
+package com.radovan.spring.utils;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PublicKey;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+
+// Provera tokena kakvu radi SecurityFilter (validateToken + extractUsername + extractRoles).
+// "cold" je stanje bez keša: svaki poziv ponovo proverava RSA potpis, kao pre uvođenja VerifiedTokenCache.
+// "warm" je ponovljeni zahtev sa istim tokenom, potpis je proveren samo pri prvom.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenVerificationBenchmark {
+
+	private JwtUtil coldJwtUtil;
+	private JwtUtil warmJwtUtil;
+	private String token;
+
+	@Setup
+	public void setUp() throws Exception {
+		KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+		generator.initialize(2048);
+		KeyPair keyPair = generator.generateKeyPair();
+		token = Jwts.builder().subject("user@example.com").claim("roles", List.of("ROLE_USER"))
+				.expiration(new Date(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1)))
+				.signWith(keyPair.getPrivate()).compact();
+
+		PublicKeyCache publicKeyCache = new FixedKeyCache(keyPair.getPublic());
+		coldJwtUtil = jwtUtil(publicKeyCache, new NonCachingTokenCache());
+		warmJwtUtil = jwtUtil(publicKeyCache, new VerifiedTokenCache());
+		warmJwtUtil.validateToken(token);
+	}
+
+	@Benchmark
+	public Optional<List<String>> cold() {
+		return authenticate(coldJwtUtil);
+	}
+
+	@Benchmark
+	public Optional<List<String>> warm() {
+		return authenticate(warmJwtUtil);
+	}
+
+	private Optional<List<String>> authenticate(JwtUtil jwtUtil) {
+		if (!jwtUtil.validateToken(token) || jwtUtil.extractUsername(token).isEmpty()) {
+			return Optional.empty();
+		}
+		return jwtUtil.extractRoles(token);
+	}
+
+	private static JwtUtil jwtUtil(PublicKeyCache publicKeyCache, VerifiedTokenCache verifiedTokenCache) {
+		JwtUtil jwtUtil = new JwtUtil();
+		ReflectionTestUtils.invokeMethod(jwtUtil, "initialize", publicKeyCache, verifiedTokenCache);
+		return jwtUtil;
+	}
+
+	private static final class FixedKeyCache extends PublicKeyCache {
+
+		private final PublicKey publicKey;
+
+		private FixedKeyCache(PublicKey publicKey) {
+			super(null, null);
+			this.publicKey = publicKey;
+		}
+
+		@Override
+		public PublicKey findKey(String kid) {
+			return publicKey;
+		}
+	}
+
+	private static final class NonCachingTokenCache extends VerifiedTokenCache {
+
+		@Override
+		public void put(String token, Claims claims) {
+		}
+	}
+}
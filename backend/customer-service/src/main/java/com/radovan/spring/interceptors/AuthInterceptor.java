@@ -1,13 +1,12 @@
 package com.radovan.spring.interceptors;
 
-import com.radovan.spring.utils.TokenUtils;
+import com.radovan.spring.utils.SuspendedUserRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.servlet.HandlerInterceptor;
 
-import com.radovan.spring.broker.CustomerNatsSender;
 import com.radovan.spring.exceptions.SuspendedUserException;
 
 import jakarta.servlet.http.HttpServletRequest;
@@ -16,11 +15,11 @@ import jakarta.servlet.http.HttpServletResponse;
 @Component
 public class AuthInterceptor implements HandlerInterceptor {
 
-	private final CustomerNatsSender customerNatsSender;
+	private final SuspendedUserRegistry suspendedUserRegistry;
 
 	@Autowired
-	public AuthInterceptor(CustomerNatsSender customerNatsSender) {
-		this.customerNatsSender = customerNatsSender;
+	public AuthInterceptor(SuspendedUserRegistry suspendedUserRegistry) {
+		this.suspendedUserRegistry = suspendedUserRegistry;
 	}
 
 	@Override
@@ -32,18 +31,11 @@ public class AuthInterceptor implements HandlerInterceptor {
 			return true;
 		}
 
-		try {
-			customerNatsSender.retrieveCurrentUser(TokenUtils.provideToken());
-			return true;
-		} catch (SuspendedUserException e) {
-			// System.err.println("*** [ERROR] Suspendovan korisnik detektovan: " +
-			// e.getMessage());
-			// response.sendError(HttpStatus.UNAVAILABLE_FOR_LEGAL_REASONS.value(), "Account
-			// suspended");
-			throw e;
-			// return false;
-		} catch (Exception e) {
-			return true;
+		// Principal je email iz tokena, isti subject koji auth-service objavljuje u user.suspended
+		if (suspendedUserRegistry.isSuspended(authentication.getName())) {
+			throw new SuspendedUserException(new Error("Account suspended"));
 		}
+
+		return true;
 	}
 }
\ No newline at end of file
@@ -1,8 +1,10 @@
 package com.radovan.spring.services.impl;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.radovan.spring.services.EurekaServiceDiscovery;
+import com.radovan.spring.utils.K8sServicePortResolver;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpEntity;
@@ -13,29 +15,23 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
-import java.nio.file.Files;
-import java.nio.file.Paths;
-import java.security.SecureRandom;
-import java.security.cert.X509Certificate;
 import java.util.Collections;
 import java.util.Iterator;
 
-import javax.net.ssl.HttpsURLConnection;
-import javax.net.ssl.SSLContext;
-import javax.net.ssl.TrustManager;
-import javax.net.ssl.X509TrustManager;
-
 @Service
 public class EurekaServiceDiscoveryImpl implements EurekaServiceDiscovery {
 
 	private static final String EUREKA_API_SERVICES_URL = "http://eureka-server:8761/eureka/apps";
 	private RestTemplate restTemplate;
 	private ObjectMapper objectMapper;
+	private K8sServicePortResolver k8sServicePortResolver;
 
 	@Autowired
-	private void initialize(RestTemplate restTemplate, ObjectMapper objectMapper) {
+	private void initialize(RestTemplate restTemplate, ObjectMapper objectMapper,
+			K8sServicePortResolver k8sServicePortResolver) {
 		this.restTemplate = restTemplate;
 		this.objectMapper = objectMapper;
+		this.k8sServicePortResolver = k8sServicePortResolver;
 	}
 
 	@Override
@@ -60,23 +56,7 @@ public class EurekaServiceDiscoveryImpl implements EurekaServiceDiscovery {
 			Iterator<JsonNode> instances = application.get("instance").elements();
 			while (instances.hasNext()) {
 				JsonNode instance = instances.next();
-				boolean runningInKubernetes = System.getenv("KUBERNETES_SERVICE_HOST") != null;
-				String address = null;
-				int port = 8080;
-				if (runningInKubernetes) {
-					address = serviceName;
-					port = getK8sServicePort(address);
-				} else {
-					address = instance.get("hostName").asText();
-					JsonNode portNode = instance.get("port");
-					port = portNode.get("$").asInt();
-				}
-
-				if (address == null || port == 0) {
-					throw new RuntimeException("Invalid service data: " + serviceName);
-				}
-
-				return "http://" + address + ":" + port;
+				return resolveInstanceUrl(serviceName, instance);
 			}
 
 			throw new RuntimeException("Service not found: " + serviceName);
@@ -87,49 +67,50 @@ public class EurekaServiceDiscoveryImpl implements EurekaServiceDiscovery {
 		}
 	}
 
-	private int getK8sServicePort(String serviceName) {
-		try {
-			// 🔒 Token iz ServiceAccount
-			String token = Files.readString(Paths.get("/var/run/secrets/kubernetes.io/serviceaccount/token"));
-
-			// 🌐 K8s API URL
-			String url = "https://kubernetes.default.svc/api/v1/namespaces/default/services/" + serviceName;
-
-			// 📡 Header sa tokenom
-			HttpHeaders headers = new HttpHeaders();
-			headers.setBearerAuth(token);
-			headers.setAccept(Collections.singletonList(MediaType.APPLICATION_JSON));
-
-			// 🛠️ Bypass SSL verifikacije
-			TrustManager[] trustAllCerts = new TrustManager[] { new X509TrustManager() {
-				public void checkClientTrusted(X509Certificate[] certs, String authType) {
-				}
-
-				public void checkServerTrusted(X509Certificate[] certs, String authType) {
-				}
+	@Override
+	public String resolveInstanceUrl(String serviceName, JsonNode instance) {
+		boolean runningInKubernetes = System.getenv("KUBERNETES_SERVICE_HOST") != null;
+		String address = null;
+		int port = 8080;
+		if (runningInKubernetes) {
+			address = serviceName;
+			port = k8sServicePortResolver.getServicePort(address);
+		} else {
+			address = instance.get("hostName").asText();
+			JsonNode portNode = instance.get("port");
+			port = portNode.get("$").asInt();
+		}
 
-				public X509Certificate[] getAcceptedIssuers() {
-					return new X509Certificate[0];
-				}
-			} };
+		if (address == null || port == 0) {
+			throw new RuntimeException("Invalid service data: " + serviceName);
+		}
 
-			SSLContext sslContext = SSLContext.getInstance("TLS");
-			sslContext.init(null, trustAllCerts, new SecureRandom());
+		return "http://" + address + ":" + port;
+	}
 
-			HttpsURLConnection.setDefaultSSLSocketFactory(sslContext.getSocketFactory());
-			HttpsURLConnection.setDefaultHostnameVerifier((hostname, session) -> true);
+	// Ceo registar ili samo promene od poslednjeg preuzimanja (/apps/delta)
+	@Override
+	public JsonNode fetchApplications(boolean delta) {
+		String url = delta ? EUREKA_API_SERVICES_URL + "/delta" : EUREKA_API_SERVICES_URL;
+		HttpHeaders headers = new HttpHeaders();
+		headers.setAccept(Collections.singletonList(MediaType.APPLICATION_JSON));
 
-			// 🚀 Gađanje API-ja
-			RestTemplate restTemplate = new RestTemplate();
-			HttpEntity<Void> entity = new HttpEntity<>(headers);
-			ResponseEntity<String> response = restTemplate.exchange(url, HttpMethod.GET, entity, String.class);
+		try {
+			ResponseEntity<String> response = restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(headers),
+					String.class);
+			String rawBody = response.getBody();
 
-			JsonNode json = objectMapper.readTree(response.getBody());
-			return json.path("spec").path("ports").get(0).path("port").asInt(); // npr. 8081
+			if (rawBody == null || rawBody.trim().isEmpty()) {
+				throw new RuntimeException("Eureka is not responding properly!");
+			}
 
-		} catch (Exception e) {
-			System.err.println("❌ Failed to get K8s port for " + serviceName + ": " + e.getMessage());
-			return 8080; // 🎯 Fallback port ako padne upit
+			JsonNode applications = objectMapper.readTree(rawBody).get("applications");
+			if (applications == null) {
+				throw new RuntimeException("Eureka registry response has no applications!");
+			}
+			return applications;
+		} catch (JsonProcessingException e) {
+			throw new RuntimeException("Failed to parse Eureka registry response", e);
 		}
 	}
 
@@ -1,10 +1,14 @@
 package com.radovan.spring.utils;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Header;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.ProtectedHeader;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.security.Key;
 import java.security.PublicKey;
 import java.util.*;
 import java.util.function.Function;
@@ -13,22 +17,18 @@ import java.util.function.Function;
 public class JwtUtil {
 
 	private PublicKeyCache publicKeyCache;
+	private VerifiedTokenCache verifiedTokenCache;
+	// Jedan parser za sve zahteve, ključ se bira po kid zaglavlju tokena
+	private final JwtParser jwtParser = Jwts.parser().keyLocator(this::locateKey).build();
 
 	@Autowired
-	private void initialize(PublicKeyCache publicKeyCache) {
+	private void initialize(PublicKeyCache publicKeyCache, VerifiedTokenCache verifiedTokenCache) {
 		this.publicKeyCache = publicKeyCache;
+		this.verifiedTokenCache = verifiedTokenCache;
 	}
 
 	public boolean validateToken(String token) {
-		try {
-			PublicKey publicKey = publicKeyCache.getPublicKey().join(); // ✅ Očekuje stvarni `PublicKey`
-			Jwts.parser().verifyWith(publicKey).build().parseSignedClaims(token);
-
-			return true;
-		} catch (Exception e) {
-			e.printStackTrace();
-			return false;
-		}
+		return verifiedClaims(token).isPresent();
 	}
 
 	public Optional<String> extractUsername(String token) {
@@ -49,15 +49,33 @@ public class JwtUtil {
 	}
 
 	private <T> Optional<T> extractClaim(String token, Function<Claims, T> claimsResolver) {
-		try {
-			PublicKey publicKey = publicKeyCache.getPublicKey().join(); // ✅ Sada dobijamo pravi PublicKey
+		return verifiedClaims(token).map(claimsResolver);
+	}
 
-			Claims claims = Jwts.parser().verifyWith(publicKey).build().parseSignedClaims(token).getPayload();
-			return Optional.ofNullable(claimsResolver.apply(claims));
+	// Potpis se proverava samo za token koji još nije viđen, ponovljeni zahtevi dobijaju claims iz keša
+	private Optional<Claims> verifiedClaims(String token) {
+		Claims cachedClaims = verifiedTokenCache.get(token);
+		if (cachedClaims != null) {
+			return Optional.of(cachedClaims);
+		}
+
+		try {
+			Claims claims = jwtParser.parseSignedClaims(token).getPayload();
+			verifiedTokenCache.put(token, claims);
+			return Optional.of(claims);
 		} catch (Exception e) {
 			e.printStackTrace();
 			return Optional.empty();
 		}
 	}
 
+	private Key locateKey(Header header) {
+		String kid = header instanceof ProtectedHeader protectedHeader ? protectedHeader.getKeyId() : null;
+		PublicKey publicKey = publicKeyCache.findKey(kid);
+		if (publicKey == null && publicKeyCache.reloadForUnknownKey()) {
+			publicKey = publicKeyCache.findKey(kid);
+		}
+		return publicKey;
+	}
+
 }
@@ -0,0 +1,113 @@
+package com.radovan.spring.utils;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.nats.client.Dispatcher;
+import io.nats.client.Message;
+import jakarta.annotation.PostConstruct;
+
+// Local copy of the suspended users held by auth-service, kept current from NATS events instead of a call per request
+@Component
+public class SuspendedUserRegistry {
+
+	private static final String USER_SUSPENDED_SUBJECT = "user.suspended";
+	private static final String USER_REACTIVATED_SUBJECT = "user.reactivated";
+	private static final String SNAPSHOT_SUBJECT = "user.suspended.snapshot";
+
+	private NatsUtils natsUtils;
+	private ObjectMapper objectMapper;
+	private volatile Set<String> suspendedSubjects = ConcurrentHashMap.newKeySet();
+	// Događaji koji stignu dok se čeka snimak primenjuju se i na novi skup, da ih zamena ne bi poništila
+	private final Map<String, Boolean> pendingEvents = new HashMap<>();
+	private boolean snapshotInFlight;
+
+	@Autowired
+	private void initialize(NatsUtils natsUtils, ObjectMapper objectMapper) {
+		this.natsUtils = natsUtils;
+		this.objectMapper = objectMapper;
+	}
+
+	@PostConstruct
+	public void init() {
+		try {
+			Dispatcher dispatcher = natsUtils.getConnection().createDispatcher(this::handleMessage);
+			dispatcher.subscribe(USER_SUSPENDED_SUBJECT);
+			dispatcher.subscribe(USER_REACTIVATED_SUBJECT);
+		} catch (Exception e) {
+			System.err.println("*** Error subscribing to user status events: " + e.getMessage());
+		}
+		refreshSnapshot();
+	}
+
+	public boolean isSuspended(String subject) {
+		return subject != null && suspendedSubjects.contains(subject);
+	}
+
+	// NATS ne garantuje isporuku, periodični snimak ispravlja propuštene događaje
+	@Scheduled(initialDelay = 60000, fixedDelay = 60000)
+	public void refreshSnapshot() {
+		synchronized (this) {
+			snapshotInFlight = true;
+			pendingEvents.clear();
+		}
+
+		try {
+			Message reply = natsUtils.getConnection().request(SNAPSHOT_SUBJECT, new byte[0]).get(5, TimeUnit.SECONDS);
+			JsonNode response = objectMapper.readTree(reply.getData());
+
+			Set<String> snapshot = ConcurrentHashMap.newKeySet();
+			response.path("subjects").forEach(subject -> snapshot.add(subject.asText()));
+
+			synchronized (this) {
+				pendingEvents.forEach((subject, suspended) -> {
+					if (suspended) {
+						snapshot.add(subject);
+					} else {
+						snapshot.remove(subject);
+					}
+				});
+				suspendedSubjects = snapshot;
+			}
+		} catch (Exception e) {
+			System.err.println("*** Error fetching suspended users snapshot: " + e.getMessage());
+		} finally {
+			synchronized (this) {
+				snapshotInFlight = false;
+				pendingEvents.clear();
+			}
+		}
+	}
+
+	private void handleMessage(Message msg) {
+		try {
+			String subject = objectMapper.readTree(msg.getData()).path("subject").asText(null);
+			if (subject != null) {
+				applyStatusChange(subject, USER_SUSPENDED_SUBJECT.equals(msg.getSubject()));
+			}
+		} catch (Exception e) {
+			System.err.println("*** Error processing user status event: " + e.getMessage());
+		}
+	}
+
+	private synchronized void applyStatusChange(String subject, boolean suspended) {
+		if (suspended) {
+			suspendedSubjects.add(subject);
+		} else {
+			suspendedSubjects.remove(subject);
+		}
+		if (snapshotInFlight) {
+			pendingEvents.put(subject, suspended);
+		}
+	}
+}
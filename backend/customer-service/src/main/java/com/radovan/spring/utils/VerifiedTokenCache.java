@@ -0,0 +1,62 @@
+package com.radovan.spring.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Date;
+import java.util.HexFormat;
+
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import io.jsonwebtoken.Claims;
+
+// Claims of tokens whose signature was already checked, an entry lives only until the token's own exp
+@Component
+public class VerifiedTokenCache {
+
+	private static final int MAX_ENTRIES = 10_000;
+
+	private final Cache<String, Claims> cache = Caffeine.newBuilder()
+			.maximumSize(MAX_ENTRIES)
+			.expireAfter(Expiry.creating((String digest, Claims claims) -> remainingLifetime(claims)))
+			.build();
+
+	public Claims get(String token) {
+		Claims claims = cache.getIfPresent(digest(token));
+		// Caffeine briše istekle unose sa malim zakašnjenjem, exp se zato proverava i ovde
+		if (claims == null || remainingLifetime(claims).isZero()) {
+			return null;
+		}
+		return claims;
+	}
+
+	// Token bez exp se ne kešira, njegova važnost ne bi imala gornju granicu
+	public void put(String token, Claims claims) {
+		if (!remainingLifetime(claims).isZero()) {
+			cache.put(digest(token), claims);
+		}
+	}
+
+	private static Duration remainingLifetime(Claims claims) {
+		Date expiration = claims.getExpiration();
+		if (expiration == null) {
+			return Duration.ZERO;
+		}
+		return Duration.ofMillis(Math.max(0, expiration.getTime() - System.currentTimeMillis()));
+	}
+
+	// Ključ je heš tokena, sam token ne ostaje u memoriji keša
+	private static String digest(String token) {
+		try {
+			MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+			return HexFormat.of().formatHex(messageDigest.digest(token.getBytes(StandardCharsets.UTF_8)));
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 not available", e);
+		}
+	}
+}
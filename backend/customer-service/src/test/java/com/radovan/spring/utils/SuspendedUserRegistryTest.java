@@ -0,0 +1,133 @@
+package com.radovan.spring.utils;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.nats.client.Connection;
+import io.nats.client.Dispatcher;
+import io.nats.client.Message;
+import io.nats.client.MessageHandler;
+import io.nats.client.impl.NatsMessage;
+
+class SuspendedUserRegistryTest {
+
+	// Svaki zahtev za snimak dobija sledeći future iz reda, test odlučuje kada i čime se završava
+	private final BlockingQueue<CompletableFuture<Message>> snapshotReplies = new LinkedBlockingQueue<>();
+	private MessageHandler statusHandler;
+	private SuspendedUserRegistry registry;
+	private ExecutorService executor;
+
+	@BeforeEach
+	void setUp() {
+		Connection connection = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+				new Class<?>[] { Connection.class }, (proxy, method, args) -> switch (method.getName()) {
+				case "createDispatcher" -> {
+					statusHandler = (MessageHandler) args[0];
+					yield Proxy.newProxyInstance(Dispatcher.class.getClassLoader(), new Class<?>[] { Dispatcher.class },
+							(dispatcher, dispatcherMethod, dispatcherArgs) -> dispatcher);
+				}
+				case "request" -> snapshotReplies.poll(5, TimeUnit.SECONDS);
+				default -> null;
+				});
+		NatsUtils natsUtils = new NatsUtils() {
+			@Override
+			public Connection getConnection() {
+				return connection;
+			}
+		};
+
+		registry = new SuspendedUserRegistry();
+		ReflectionTestUtils.invokeMethod(registry, "initialize", natsUtils, new ObjectMapper());
+		snapshotReplies.add(CompletableFuture.completedFuture(snapshot("alice@example.com")));
+		registry.init();
+		executor = Executors.newSingleThreadExecutor();
+	}
+
+	@AfterEach
+	void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	void startupSnapshotAndEventsAreApplied() throws Exception {
+		assertTrue(registry.isSuspended("alice@example.com"));
+		assertFalse(registry.isSuspended("bob@example.com"));
+		assertFalse(registry.isSuspended(null));
+
+		statusHandler.onMessage(event("user.suspended", "bob@example.com"));
+		statusHandler.onMessage(event("user.reactivated", "alice@example.com"));
+
+		assertTrue(registry.isSuspended("bob@example.com"));
+		assertFalse(registry.isSuspended("alice@example.com"));
+	}
+
+	@Test
+	void eventsArrivingWhileSnapshotIsInFlightAreReplayedOntoIt() throws Exception {
+		CompletableFuture<Message> pendingSnapshot = new CompletableFuture<>();
+		snapshotReplies.add(pendingSnapshot);
+		Future<?> refresh = executor.submit(registry::refreshSnapshot);
+		awaitRequested();
+
+		// Snimak je napravljen pre ovih događaja, pa još sadrži alice i ne sadrži carol
+		statusHandler.onMessage(event("user.reactivated", "alice@example.com"));
+		statusHandler.onMessage(event("user.suspended", "carol@example.com"));
+		pendingSnapshot.complete(snapshot("alice@example.com", "bob@example.com"));
+		refresh.get(5, TimeUnit.SECONDS);
+
+		assertFalse(registry.isSuspended("alice@example.com"));
+		assertTrue(registry.isSuspended("bob@example.com"));
+		assertTrue(registry.isSuspended("carol@example.com"));
+	}
+
+	@Test
+	void failedSnapshotKeepsTheCurrentSet() throws Exception {
+		snapshotReplies.add(CompletableFuture.failedFuture(new IllegalStateException("no responders")));
+		statusHandler.onMessage(event("user.suspended", "bob@example.com"));
+
+		registry.refreshSnapshot();
+
+		assertTrue(registry.isSuspended("alice@example.com"));
+		assertTrue(registry.isSuspended("bob@example.com"));
+	}
+
+	private void awaitRequested() throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (!snapshotReplies.isEmpty() && System.currentTimeMillis() < deadline) {
+			Thread.sleep(5);
+		}
+		assertTrue(snapshotReplies.isEmpty());
+	}
+
+	private static Message snapshot(String... subjects) {
+		StringBuilder json = new StringBuilder("{\"subjects\":[");
+		for (int i = 0; i < subjects.length; i++) {
+			json.append(i == 0 ? "" : ",").append('"').append(subjects[i]).append('"');
+		}
+		return message("user.suspended.snapshot", json.append("]}").toString());
+	}
+
+	private static Message event(String natsSubject, String userSubject) {
+		return message(natsSubject, "{\"subject\":\"" + userSubject + "\"}");
+	}
+
+	private static Message message(String natsSubject, String json) {
+		return NatsMessage.builder().subject(natsSubject).data(json.getBytes(StandardCharsets.UTF_8)).build();
+	}
+}
@@ -0,0 +1,52 @@
+package com.radovan.spring.utils;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.Date;
+
+import org.junit.jupiter.api.Test;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+
+class VerifiedTokenCacheTest {
+
+	private final VerifiedTokenCache cache = new VerifiedTokenCache();
+
+	@Test
+	void tokenIsServedWhileItIsValid() {
+		Claims claims = claimsExpiringIn(60_000);
+		cache.put("token", claims);
+
+		assertSame(claims, cache.get("token"));
+		assertNull(cache.get("other-token"));
+	}
+
+	@Test
+	void tokenWithoutExpIsNeverCached() {
+		cache.put("token", Jwts.claims().subject("user@example.com").build());
+
+		assertNull(cache.get("token"));
+	}
+
+	@Test
+	void expiredTokenIsNeverCached() {
+		cache.put("token", claimsExpiringIn(-1_000));
+
+		assertNull(cache.get("token"));
+	}
+
+	@Test
+	void entryIsNotServedOnceTheTokenExpires() throws InterruptedException {
+		cache.put("token", claimsExpiringIn(200));
+		Thread.sleep(400);
+
+		assertNull(cache.get("token"));
+	}
+
+	private static Claims claimsExpiringIn(long millis) {
+		return Jwts.claims().subject("user@example.com").expiration(new Date(System.currentTimeMillis() + millis))
+				.build();
+	}
+}
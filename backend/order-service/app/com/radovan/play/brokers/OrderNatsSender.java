@@ -2,17 +2,19 @@ package com.radovan.play.brokers;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.radovan.play.exceptions.InvalidCartException;
 import com.radovan.play.utils.NatsUtils;
 import io.nats.client.Connection;
-import io.nats.client.Message;
 import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
 
 import java.nio.charset.StandardCharsets;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.stream.StreamSupport;
@@ -31,27 +33,6 @@ public class OrderNatsSender {
         this.natsUtils = natsUtils;
     }
 
-    public JsonNode retrieveProductFromBroker(int productId, String jwtToken) {
-        ObjectNode payload = objectMapper.createObjectNode();
-        payload.put("token", jwtToken);
-        payload.put("productId", productId);
-
-        String response = sendRequest("product.get." + productId, payload.toString());
-        JsonNode json;
-        try {
-            json = objectMapper.readTree(response);
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to parse response", e);
-        }
-
-        if (json.has("status") && json.get("status").asInt() == 422) {
-            String msg = json.has("message") ? json.get("message").asText() : "Product not found";
-            throw new RuntimeException(msg);
-        }
-
-        return json;
-    }
-
     public JsonNode retrieveCurrentCustomer(String jwtToken) {
         ObjectNode payload = objectMapper.createObjectNode();
         payload.put("token", jwtToken);
@@ -72,50 +53,56 @@ public class OrderNatsSender {
         return json;
     }
 
-    public JsonNode validateCart(int cartId, String jwtToken) {
+    public CompletableFuture<JsonNode> validateCartAsync(int cartId, String jwtToken) {
         ObjectNode payload = objectMapper.createObjectNode();
         payload.put("token", jwtToken);
         payload.put("cartId", cartId);
 
-        String response = sendRequest("cart.validate." + cartId, payload.toString());
-        JsonNode json;
-        try {
-            json = objectMapper.readTree(response);
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to parse response", e);
-        }
-
-        int status = Optional.ofNullable(json.get("status")).map(JsonNode::asInt).orElse(200);
-        if (status == 406) {
-            String msg = Optional.ofNullable(json.get("message")).map(JsonNode::asText).orElse("Cart is invalid");
-            throw new InvalidCartException(msg);
-        } else if (status == 500) {
-            String msg = Optional.ofNullable(json.get("message")).map(JsonNode::asText).orElse("Server error during cart validation");
-            throw new RuntimeException(msg);
-        }
-
-        return json;
+        return sendRequestAsync("cart.validate." + cartId, payload.toString()).thenApply(response -> {
+            JsonNode json;
+            try {
+                json = objectMapper.readTree(response);
+            } catch (Exception e) {
+                throw new RuntimeException("Failed to parse response", e);
+            }
+
+            int status = Optional.ofNullable(json.get("status")).map(JsonNode::asInt).orElse(200);
+            if (status == 406) {
+                String msg = Optional.ofNullable(json.get("message")).map(JsonNode::asText).orElse("Cart is invalid");
+                throw new InvalidCartException(msg);
+            } else if (status == 500) {
+                String msg = Optional.ofNullable(json.get("message")).map(JsonNode::asText).orElse("Server error during cart validation");
+                throw new RuntimeException(msg);
+            }
+
+            return json;
+        });
     }
 
     public JsonNode retrieveAddress(int addressId, String jwtToken) {
+        return await(retrieveAddressAsync(addressId, jwtToken));
+    }
+
+    public CompletableFuture<JsonNode> retrieveAddressAsync(int addressId, String jwtToken) {
         ObjectNode payload = objectMapper.createObjectNode();
         payload.put("token", jwtToken);
         payload.put("addressId", addressId);
 
-        String response = sendRequest("address.getAddress." + addressId, payload.toString());
-        JsonNode json;
-        try {
-            json = objectMapper.readTree(response);
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to parse response", e);
-        }
-
-        if (json.has("status") && json.get("status").asInt() == 500) {
-            String msg = json.has("error") ? json.get("error").asText() : "Failed to retrieve address";
-            throw new RuntimeException(msg);
-        }
-
-        return json;
+        return sendRequestAsync("address.getAddress." + addressId, payload.toString()).thenApply(response -> {
+            JsonNode json;
+            try {
+                json = objectMapper.readTree(response);
+            } catch (Exception e) {
+                throw new RuntimeException("Failed to parse response", e);
+            }
+
+            if (json.has("status") && json.get("status").asInt() == 500) {
+                String msg = json.has("error") ? json.get("error").asText() : "Failed to retrieve address";
+                throw new RuntimeException(msg);
+            }
+
+            return json;
+        });
     }
 
     public JsonNode updateShippingAddress(JsonNode address, int addressId, String jwtToken) {
@@ -147,46 +134,49 @@ public class OrderNatsSender {
         return json;
     }
 
-    public JsonNode[] retrieveCartItems(int cartId, String jwtToken) {
+    public CompletableFuture<JsonNode[]> retrieveCartItemsAsync(int cartId, String jwtToken) {
         ObjectNode payload = objectMapper.createObjectNode();
         payload.put("token", jwtToken);
         payload.put("cartId", cartId);
 
-        String response = sendRequest("cart.getItems." + cartId, payload.toString());
-        JsonNode json;
-        try {
-            json = objectMapper.readTree(response);
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to parse response", e);
-        }
-
-        if (json.has("status") && json.get("status").asInt() == 500) {
-            String msg = json.has("error") ? json.get("error").asText() : "Failed to retrieve cart items";
-            throw new RuntimeException(msg);
-        }
-
-        JsonNode itemsNode;
-        if (json.isArray()) {
-            itemsNode = json;
-        } else if (json.has("items") && json.get("items").isArray()) {
-            itemsNode = json.get("items");
-        } else {
-            throw new RuntimeException("Expected array of cart items, but got: " + json.getNodeType());
-        }
-
-        return StreamSupport.stream(itemsNode.spliterator(), false)
-                .toArray(JsonNode[]::new);
+        return sendRequestAsync("cart.getItems." + cartId, payload.toString()).thenApply(response -> {
+            JsonNode json;
+            try {
+                json = objectMapper.readTree(response);
+            } catch (Exception e) {
+                throw new RuntimeException("Failed to parse response", e);
+            }
+
+            if (json.has("status") && json.get("status").asInt() == 500) {
+                String msg = json.has("error") ? json.get("error").asText() : "Failed to retrieve cart items";
+                throw new RuntimeException(msg);
+            }
+
+            JsonNode itemsNode;
+            if (json.isArray()) {
+                itemsNode = json;
+            } else if (json.has("items") && json.get("items").isArray()) {
+                itemsNode = json.get("items");
+            } else {
+                throw new RuntimeException("Expected array of cart items, but got: " + json.getNodeType());
+            }
+
+            return StreamSupport.stream(itemsNode.spliterator(), false)
+                    .toArray(JsonNode[]::new);
+        });
     }
 
-    public JsonNode updateProductViaBroker(ObjectNode productNode, int productId, String jwtToken) {
+    public JsonNode reserveProductsViaBroker(Map<Integer, Integer> quantities, String jwtToken) {
         ObjectNode payload = objectMapper.createObjectNode();
-        payload.set("product", productNode);
         payload.put("Authorization", jwtToken);
+        ArrayNode items = payload.putArray("items");
+        quantities.forEach((productId, quantity) -> items.addObject()
+                .put("productId", productId)
+                .put("quantity", quantity));
 
-        String subject = "product.update." + productId;
         String response;
         try {
-            response = sendRequest(subject, objectMapper.writeValueAsString(payload));
+            response = sendRequest("product.reserveBatch", objectMapper.writeValueAsString(payload));
         } catch (Exception e) {
             throw new RuntimeException("Failed to serialize payload", e);
         }
@@ -199,7 +189,7 @@ public class OrderNatsSender {
         }
 
         if (json.has("status") && json.get("status").asInt() == 500) {
-            String msg = json.has("message") ? json.get("message").asText() : "Product update failed";
+            String msg = json.has("message") ? json.get("message").asText() : "Stock reservation failed";
             throw new RuntimeException(msg);
         }
 
@@ -249,26 +239,42 @@ public class OrderNatsSender {
     }
 
     private String sendRequest(String subject, String payload) {
+        return await(sendRequestAsync(subject, payload));
+    }
+
+    private CompletableFuture<String> sendRequestAsync(String subject, String payload) {
         Connection connection = natsUtils.getConnection();
         if (connection == null) {
-            throw new RuntimeException("NATS connection is not initialized");
+            return CompletableFuture.failedFuture(new RuntimeException("NATS connection is not initialized"));
         }
 
         try {
-            CompletableFuture<Message> future = connection.request(
-                    subject,
-                    payload.getBytes(StandardCharsets.UTF_8)
-            );
-
-            Message msg = future.get(REQUEST_TIMEOUT_SECONDS, TimeUnit.SECONDS);
-            return new String(msg.getData(), StandardCharsets.UTF_8);
-        } catch (TimeoutException e) {
-            throw new RuntimeException("NATS request timeout for subject: " + subject, e);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new RuntimeException("NATS request interrupted for subject: " + subject, e);
+            return connection.request(subject, payload.getBytes(StandardCharsets.UTF_8))
+                    .orTimeout(REQUEST_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                    .handle((msg, ex) -> {
+                        if (ex == null) {
+                            return new String(msg.getData(), StandardCharsets.UTF_8);
+                        }
+                        Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                        if (cause instanceof TimeoutException) {
+                            throw new RuntimeException("NATS request timeout for subject: " + subject, cause);
+                        }
+                        throw new RuntimeException("NATS request failed for subject: " + subject, cause);
+                    });
         } catch (Exception e) {
-            throw new RuntimeException("NATS request failed for subject: " + subject, e);
+            return CompletableFuture.failedFuture(new RuntimeException("NATS request failed for subject: " + subject, e));
+        }
+    }
+
+    // Blocks on a broker reply and rethrows the original exception instead of a CompletionException
+    private <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
         }
     }
-}
\ No newline at end of file
+}
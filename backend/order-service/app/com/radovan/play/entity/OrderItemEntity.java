@@ -13,7 +13,9 @@ public class OrderItemEntity implements Serializable {
     private static final long serialVersionUID = 1L;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_items_seq")
+    // Same sequence the implicit AUTO mapping created, ids are handed out in blocks of 50
+    @SequenceGenerator(name = "order_items_seq", sequenceName = "OrderItemEntity_SEQ", allocationSize = 50)
     @Column(name = "id")
     private Integer orderItemId;
 
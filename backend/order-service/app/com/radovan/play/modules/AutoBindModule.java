@@ -14,9 +14,12 @@ import com.radovan.play.repositories.impl.OrderRepositoryImpl;
 import com.radovan.play.services.*;
 import com.radovan.play.services.impl.*;
 import com.radovan.play.utils.JwtUtil;
+import com.radovan.play.utils.K8sServicePortResolver;
 import com.radovan.play.utils.NatsUtils;
 import com.radovan.play.utils.PublicKeyCache;
 import com.radovan.play.utils.ServiceUrlProvider;
+import com.radovan.play.utils.SuspendedUserRegistry;
+import com.radovan.play.utils.VerifiedTokenCache;
 import com.typesafe.config.Config;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.prometheusmetrics.PrometheusConfig;
@@ -48,8 +51,11 @@ public class AutoBindModule extends AbstractModule {
         bind(EurekaRegistrationService.class).to(EurekaRegistrationServiceImpl.class).asEagerSingleton();
         bind(EurekaServiceDiscovery.class).to(EurekaServiceDiscoveryImpl.class).asEagerSingleton();
         bind(EurekaClientRegistrationInitializer.class).asEagerSingleton();
+        bind(K8sServicePortResolver.class).asEagerSingleton();
         bind(ServiceUrlProvider.class).asEagerSingleton();
         bind(PublicKeyCache.class).asEagerSingleton();
+        bind(VerifiedTokenCache.class).asEagerSingleton();
+        bind(SuspendedUserRegistry.class).asEagerSingleton();
         bind(JwtUtil.class).asEagerSingleton();
         bind(TempConverter.class).asEagerSingleton();
         bind(OrderNatsSender.class).asEagerSingleton();
@@ -1,6 +1,8 @@
 package com.radovan.play.repositories;
 
+import com.radovan.play.entity.OrderAddressEntity;
 import com.radovan.play.entity.OrderEntity;
+import com.radovan.play.entity.OrderItemEntity;
 
 import java.util.List;
 import java.util.Optional;
@@ -16,4 +18,6 @@ public interface OrderRepository {
     List<OrderEntity> findAllByCartId(Integer cartId);
 
     void deleteById(Integer orderId);
+
+    OrderEntity saveWithItems(OrderEntity orderEntity, OrderAddressEntity addressEntity, List<OrderItemEntity> orderItems);
 }
@@ -1,6 +1,8 @@
 package com.radovan.play.repositories.impl;
 
+import com.radovan.play.entity.OrderAddressEntity;
 import com.radovan.play.entity.OrderEntity;
+import com.radovan.play.entity.OrderItemEntity;
 import com.radovan.play.repositories.OrderRepository;
 import com.radovan.play.services.PrometheusService;
 import jakarta.inject.Inject;
@@ -110,7 +112,21 @@ public class OrderRepositoryImpl implements OrderRepository {
         });
     }
 
+    @Override
+    public OrderEntity saveWithItems(OrderEntity orderEntity, OrderAddressEntity addressEntity, List<OrderItemEntity> orderItems) {
+        // Address, order and items share one session, inserts are batched and sent on commit
+        return withSession(session -> {
+            session.persist(addressEntity);
+            orderEntity.setAddress(addressEntity);
+            session.persist(orderEntity);
 
+            for (OrderItemEntity orderItem : orderItems) {
+                orderItem.setOrder(orderEntity);
+                session.persist(orderItem);
+            }
 
-
-}
\ No newline at end of file
+            orderEntity.setOrderedItems(orderItems);
+            return orderEntity;
+        });
+    }
+}
@@ -0,0 +1,12 @@
+package com.radovan.play.security;
+
+import java.time.Instant;
+import java.util.List;
+
+// Rezultat jedne provere potpisa, nepromenljiv pa se bezbedno deli između zahteva i keša
+public record JwtPrincipal(String subject, List<String> roles, Instant expiresAt) {
+
+    public JwtPrincipal {
+        roles = roles == null ? List.of() : List.copyOf(roles);
+    }
+}
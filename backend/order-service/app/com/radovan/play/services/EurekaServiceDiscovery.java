@@ -1,5 +1,11 @@
 package com.radovan.play.services;
 
+import com.fasterxml.jackson.databind.JsonNode;
+
 public interface EurekaServiceDiscovery {
     String getServiceUrl(String serviceName);
+
+    String resolveInstanceUrl(String serviceName, JsonNode instance);
+
+    JsonNode fetchApplications(boolean delta);
 }
@@ -3,6 +3,7 @@ package com.radovan.play.services.impl;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.radovan.play.services.EurekaServiceDiscovery;
+import com.radovan.play.utils.K8sServicePortResolver;
 import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
 import play.libs.ws.WSClient;
@@ -10,23 +11,22 @@ import play.libs.ws.WSResponse;
 
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Paths;
 import java.util.Iterator;
 
 @Singleton
 public class EurekaServiceDiscoveryImpl implements EurekaServiceDiscovery {
 
     private static final String EUREKA_API_SERVICES_URL = "http://eureka-server:8761/eureka/apps";
-    private static final String K8S_API_BASE = "https://kubernetes.default.svc/api/v1/namespaces/default/services/";
 
     private final WSClient wsClient;
     private final ObjectMapper objectMapper;
+    private final K8sServicePortResolver k8sServicePortResolver;
 
     @Inject
-    public EurekaServiceDiscoveryImpl(WSClient wsClient) {
+    public EurekaServiceDiscoveryImpl(WSClient wsClient, K8sServicePortResolver k8sServicePortResolver) {
         this.wsClient = wsClient;
         this.objectMapper = new ObjectMapper();
+        this.k8sServicePortResolver = k8sServicePortResolver;
     }
 
     @Override
@@ -35,7 +35,7 @@ public class EurekaServiceDiscoveryImpl implements EurekaServiceDiscovery {
 
         try {
             if (runningInK8s) {
-                int port = fetchK8sServicePort(serviceName);
+                int port = k8sServicePortResolver.getServicePort(serviceName);
                 return "http://" + serviceName + ":" + port;
             } else {
                 return fetchEurekaServiceUrl(serviceName);
@@ -46,6 +46,49 @@ public class EurekaServiceDiscoveryImpl implements EurekaServiceDiscovery {
         }
     }
 
+    @Override
+    public String resolveInstanceUrl(String serviceName, JsonNode instance) {
+        boolean runningInK8s = System.getenv("KUBERNETES_SERVICE_HOST") != null;
+
+        if (runningInK8s) {
+            return "http://" + serviceName + ":" + k8sServicePortResolver.getServicePort(serviceName);
+        }
+
+        String address = instance.path("hostName").asText();
+        JsonNode portNode = instance.path("port").path("$");
+        if (address.isEmpty() || portNode.isMissingNode() || !portNode.canConvertToInt()) {
+            throw new RuntimeException("Invalid Eureka instance data for service: " + serviceName);
+        }
+
+        return "http://" + address + ":" + portNode.asInt();
+    }
+
+    // Ceo registar ili samo promene od poslednjeg preuzimanja (/apps/delta)
+    @Override
+    public JsonNode fetchApplications(boolean delta) {
+        String url = delta ? EUREKA_API_SERVICES_URL + "/delta" : EUREKA_API_SERVICES_URL;
+        WSResponse rawResponse = wsClient.url(url)
+                .setRequestTimeout(5000)
+                .addHeader("Accept", "application/json")
+                .get()
+                .toCompletableFuture()
+                .join();
+
+        if (rawResponse.getStatus() != 200) {
+            throw new RuntimeException("Eureka registry returned status: " + rawResponse.getStatus());
+        }
+
+        try {
+            JsonNode applications = objectMapper.readTree(rawResponse.getBody()).path("applications");
+            if (applications.isMissingNode()) {
+                throw new RuntimeException("Eureka registry response has no applications.");
+            }
+            return applications;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to parse Eureka registry response", e);
+        }
+    }
+
     // 🔧 Eureka logic for local environment
     private String fetchEurekaServiceUrl(String serviceName) throws IOException {
         String serviceUrl = EUREKA_API_SERVICES_URL + "/" + serviceName;
@@ -82,31 +125,4 @@ public class EurekaServiceDiscoveryImpl implements EurekaServiceDiscovery {
         int port = portNode.asInt();
         return "http://" + address + ":" + port;
     }
-
-    // 🔧 K8s logic for cluster environment
-    private int fetchK8sServicePort(String serviceName) throws IOException {
-        String tokenPath = "/var/run/secrets/kubernetes.io/serviceaccount/token";
-        if (!Files.exists(Paths.get(tokenPath))) {
-            throw new RuntimeException("K8s token not found — not running in cluster or token not mounted.");
-        }
-
-        String token = Files.readString(Paths.get(tokenPath));
-        String url = K8S_API_BASE + serviceName;
-
-        WSResponse response = wsClient.url(url)
-                .addHeader("Authorization", "Bearer " + token)
-                .addHeader("Accept", "application/json")
-                .get()
-                .toCompletableFuture()
-                .join();
-
-        JsonNode portNode = objectMapper.readTree(response.getBody())
-                .path("spec").path("ports").get(0).path("port");
-
-        if (portNode.isMissingNode() || !portNode.canConvertToInt()) {
-            throw new RuntimeException("Port missing or invalid in K8s service spec for '" + serviceName + "'.");
-        }
-
-        return portNode.asInt();
-    }
 }
@@ -5,11 +5,14 @@ import java.time.Instant;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.radovan.play.brokers.OrderNatsSender;
 import com.radovan.play.converter.TempConverter;
 import com.radovan.play.dto.*;
@@ -18,8 +21,6 @@ import com.radovan.play.entity.OrderEntity;
 import com.radovan.play.entity.OrderItemEntity;
 import com.radovan.play.exceptions.InstanceUndefinedException;
 import com.radovan.play.exceptions.OutOfStockException;
-import com.radovan.play.repositories.OrderAddressRepository;
-import com.radovan.play.repositories.OrderItemRepository;
 import com.radovan.play.repositories.OrderRepository;
 import com.radovan.play.services.*;
 import jakarta.inject.Inject;
@@ -29,17 +30,13 @@ import jakarta.inject.Singleton;
 public class OrderServiceImpl implements OrderService {
 
     private OrderRepository orderRepository;
-    private OrderAddressRepository orderAddressRepository;
-    private OrderItemRepository orderItemRepository;
     private TempConverter tempConverter;
     private final ZoneId zoneId = ZoneId.of("UTC");
     private OrderNatsSender orderNatsSender;
 
     @Inject
-    private void initialize(OrderRepository orderRepository, OrderAddressRepository orderAddressRepository, OrderItemRepository orderItemRepository, TempConverter tempConverter, OrderNatsSender orderNatsSender) {
+    private void initialize(OrderRepository orderRepository, TempConverter tempConverter, OrderNatsSender orderNatsSender) {
         this.orderRepository = orderRepository;
-        this.orderAddressRepository = orderAddressRepository;
-        this.orderItemRepository = orderItemRepository;
         this.tempConverter = tempConverter;
         this.orderNatsSender = orderNatsSender;
     }
@@ -88,8 +85,12 @@ public class OrderServiceImpl implements OrderService {
         int cartId = customerData.get("cartId").asInt();
         int addressId = customerData.get("shippingAddressId").asInt();
 
-        // 3. Validate cart
-        JsonNode cart = orderNatsSender.validateCart(cartId, jwtToken);
+        // 3. Validate cart, fetch shipping address and cart items concurrently, they only depend on the customer
+        CompletableFuture<JsonNode> cartFuture = orderNatsSender.validateCartAsync(cartId, jwtToken);
+        CompletableFuture<JsonNode> addressFuture = orderNatsSender.retrieveAddressAsync(addressId, jwtToken);
+        CompletableFuture<JsonNode[]> cartItemsFuture = orderNatsSender.retrieveCartItemsAsync(cartId, jwtToken);
+
+        JsonNode cart = cartFuture.join();
 
         Float cartPrice = cart.get("cartPrice").floatValue();
 
@@ -99,7 +100,7 @@ public class OrderServiceImpl implements OrderService {
         orderDto.setOrderPrice(cartPrice);
 
         // 5. Get shipping address
-        JsonNode shippingAddress = orderNatsSender.retrieveAddress(addressId, jwtToken);
+        JsonNode shippingAddress = addressFuture.join();
         if (shippingAddress == null || !shippingAddress.has("address") || !shippingAddress.has("city")) {
             throw new RuntimeException("Shipping address data is missing required fields!");
         }
@@ -111,74 +112,65 @@ public class OrderServiceImpl implements OrderService {
         orderAddressDto.setCountry(shippingAddress.get("country").asText());
         orderAddressDto.setPostcode(shippingAddress.get("postcode").asText());
 
-        OrderAddressEntity storedAddress = orderAddressRepository.save(tempConverter.orderAddressDtoToEntity(orderAddressDto));
+        // 6. Reserve stock for all cart lines in a single broker round-trip
+        List<JsonNode> cartItems = List.of(cartItemsFuture.join());
+        Map<Integer, Integer> quantities = new LinkedHashMap<>();
+        for (JsonNode cartItem : cartItems) {
+            if (!cartItem.has("productId") || !cartItem.has("quantity") || !cartItem.has("price")) {
+                throw new RuntimeException("Cart item is missing required fields!");
+            }
+            quantities.merge(cartItem.get("productId").asInt(), cartItem.get("quantity").asInt(), Integer::sum);
+        }
+
+        JsonNode reservation = orderNatsSender.reserveProductsViaBroker(quantities, jwtToken);
+        if (reservation == null || !reservation.has("items")) {
+            throw new RuntimeException("Invalid reservation response structure");
+        }
 
-        // 6. Create order entity
+        Map<Integer, JsonNode> reservedProducts = new HashMap<>();
+        for (JsonNode line : reservation.get("items")) {
+            if (!line.path("reserved").asBoolean()) {
+                String productName = line.hasNonNull("productName") ? line.get("productName").asText() : "product " + line.get("productId").asInt();
+                throw new OutOfStockException("There is a shortage of " + productName + " in stock");
+            }
+            reservedProducts.put(line.get("productId").asInt(), line);
+        }
+
+        OrderAddressEntity addressEntity = tempConverter.orderAddressDtoToEntity(orderAddressDto);
+
+        // 7. Create order entity
         ZonedDateTime currentTime = Instant.now().atZone(zoneId);
         Timestamp currentTimeStamp = Timestamp.valueOf(currentTime.toLocalDateTime());
 
         OrderEntity orderEntity = tempConverter.orderDtoToEntity(orderDto);
-        orderEntity.setAddress(storedAddress);
         orderEntity.setCreateTime(currentTimeStamp);
-        OrderEntity storedOrder = orderRepository.save(orderEntity);
 
-        // 7. Process cart items
+        // 8. Process cart items
         List<OrderItemEntity> orderedItems = new ArrayList<>();
-        List<JsonNode> cartItems = List.of(orderNatsSender.retrieveCartItems(cartId, jwtToken));
-
         for (JsonNode cartItem : cartItems) {
-            if (!cartItem.has("productId") || !cartItem.has("quantity") || !cartItem.has("price")) {
-                throw new RuntimeException("Cart item is missing required fields!");
-            }
-
-            Integer productId = cartItem.get("productId").asInt();
-            Integer quantity = cartItem.get("quantity").asInt();
-
-            JsonNode productResponse = orderNatsSender.retrieveProductFromBroker(productId,jwtToken);
-            if (productResponse == null || !productResponse.has("product")) {
-                throw new RuntimeException("Invalid product response structure");
-            }
-
-            JsonNode product = productResponse.get("product");
-            if (!product.has("unitStock") || !product.has("productName") || !product.has("productPrice")) {
+            JsonNode product = reservedProducts.get(cartItem.get("productId").asInt());
+            if (product == null || !product.has("productName") || !product.has("productPrice")) {
                 throw new RuntimeException("Product data is missing required fields!");
             }
 
-            Integer unitStock = product.get("unitStock").asInt();
             String productName = product.get("productName").asText();
             Float productPrice = product.get("productPrice").floatValue();
-            Float productDiscount = product.has("discount") ? product.get("discount").floatValue() : 0.0f;
-
-            if (quantity > unitStock) {
-                throw new OutOfStockException("There is a shortage of " + productName + " in stock");
-            }
-
-            ObjectNode updatedProduct = (ObjectNode) product.deepCopy();
-            updatedProduct.put("unitStock", unitStock - quantity);
-            JsonNode updateResponse = orderNatsSender.updateProductViaBroker(updatedProduct, productId,jwtToken);
-
-            if (updateResponse != null && updateResponse.has("error")) {
-                throw new RuntimeException("Failed to update product stock");
-            }
+            Float productDiscount = product.hasNonNull("discount") ? product.get("discount").floatValue() : 0.0f;
 
             OrderItemDto orderItemDto = new OrderItemDto();
-            orderItemDto.setQuantity(quantity);
+            orderItemDto.setQuantity(cartItem.get("quantity").asInt());
             orderItemDto.setPrice(cartItem.get("price").floatValue());
             orderItemDto.setProductName(productName);
             orderItemDto.setProductDiscount(productDiscount);
             orderItemDto.setProductPrice(productPrice);
-            orderItemDto.setOrderId(storedOrder.getOrderId());
 
-            OrderItemEntity orderItemEntity = tempConverter.orderItemDtoToEntity(orderItemDto);
-            orderItemEntity.setOrder(storedOrder);
-            orderedItems.add(orderItemRepository.save(orderItemEntity));
+            orderedItems.add(tempConverter.orderItemDtoToEntity(orderItemDto));
         }
 
-        // 11. Finalize order
-        storedOrder.getOrderedItems().addAll(orderedItems);
-        storedOrder = orderRepository.save(storedOrder);
+        // 9. Persist address, order and items in a single transaction
+        OrderEntity storedOrder = orderRepository.saveWithItems(orderEntity, addressEntity, orderedItems);
 
-        // 12. Clean cart
+        // 10. Clean cart
         orderNatsSender.removeAllByCartId(cartId,jwtToken);
         orderNatsSender.refreshCartState(cartId,jwtToken);
 
@@ -45,6 +45,9 @@ public class HibernateUtil {
             configuration.setProperty("hibernate.format_sql", "false");
             configuration.setProperty("hibernate.boot.allow_jdbc_metadata_access", "false");
             configuration.setProperty("hibernate.dialect", "org.hibernate.dialect.PostgreSQLDialect");
+            configuration.setProperty("hibernate.jdbc.batch_size", "50");
+            configuration.setProperty("hibernate.order_inserts", "true");
+            configuration.setProperty("hibernate.order_updates", "true");
 
 
             // ➕ Dodaj sve entity klase
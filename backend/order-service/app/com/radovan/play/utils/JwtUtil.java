@@ -1,97 +1,97 @@
 package com.radovan.play.utils;
 
+import com.radovan.play.security.JwtPrincipal;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Header;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.ProtectedHeader;
 import jakarta.inject.Inject;
 import jakarta.inject.Provider;
 import jakarta.inject.Singleton;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.security.Key;
+import java.security.PublicKey;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
-import java.util.function.Function;
 
 @Singleton
 public class JwtUtil {
     private static final Logger logger = LoggerFactory.getLogger(JwtUtil.class);
 
     private Provider<PublicKeyCache> publicKeyCacheProvider;
+    private VerifiedTokenCache verifiedTokenCache;
+    // Parser je thread-safe, ključ bira po kid zaglavlju tokena iz već učitanog skupa ključeva
+    private final JwtParser jwtParser = Jwts.parser().keyLocator(this::locateKey).build();
 
     @Inject
-    private void initialize(Provider<PublicKeyCache> publicKeyCacheProvider) {
+    private void initialize(Provider<PublicKeyCache> publicKeyCacheProvider, VerifiedTokenCache verifiedTokenCache) {
         this.publicKeyCacheProvider = publicKeyCacheProvider;
+        this.verifiedTokenCache = verifiedTokenCache;
+    }
+
+    // Jedna provera potpisa daje subject, uloge i istek, ključevi su već u memoriji pa je future uvek završen
+    public CompletableFuture<Optional<JwtPrincipal>> verify(String token) {
+        JwtPrincipal cachedPrincipal = verifiedTokenCache.get(token);
+        if (cachedPrincipal != null) {
+            return CompletableFuture.completedFuture(Optional.of(cachedPrincipal));
+        }
+
+        try {
+            Claims claims = jwtParser
+                    .parseSignedClaims(token)
+                    .getPayload();
+
+            JwtPrincipal principal = toPrincipal(claims);
+            verifiedTokenCache.put(token, principal);
+            return CompletableFuture.completedFuture(Optional.of(principal));
+        } catch (Exception e) {
+            logger.warn("Token validation failed: {}", e.getMessage());
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
     }
 
     public CompletableFuture<Boolean> validateToken(String token) {
-        return publicKeyCacheProvider.get().getPublicKey()
-                .thenApply(publicKey -> {
-                    try {
-                        Jwts.parser()
-                                .verifyWith(publicKey)
-                                .build()
-                                .parseSignedClaims(token);
-                        return true;
-                    } catch (Exception e) {
-                        logger.warn("Token validation failed: {}", e.getMessage());
-                        return false;
-                    }
-                });
+        return verify(token).thenApply(Optional::isPresent);
     }
 
     public CompletableFuture<Optional<String>> extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject)
-                .exceptionally(ex -> {
-                    logger.error("Username extraction failed", ex);
-                    return Optional.empty();
-                });
+        return verify(token).thenApply(principal -> principal.map(JwtPrincipal::subject));
     }
 
     public CompletableFuture<Optional<List<String>>> extractRoles(String token) {
-        return extractClaim(token, claims -> {
-            Object rawRoles = claims.get("roles");
-
-            if (rawRoles instanceof List<?>) {
-                List<String> roles = new ArrayList<>();
-                for (Object role : (List<?>) rawRoles) {
-                    if (role instanceof String) {
-                        roles.add((String) role);
-                    }
-                }
-                return roles;
-            }
-            return Collections.<String>emptyList();
-        });
+        return verify(token).thenApply(principal -> principal.map(JwtPrincipal::roles));
     }
 
     public CompletableFuture<Optional<Date>> extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+        return verify(token).thenApply(principal -> principal.map(JwtPrincipal::expiresAt).map(Date::from));
     }
 
-    private <T> CompletableFuture<Optional<T>> extractClaim(String token, Function<Claims, T> claimsResolver) {
-        return publicKeyCacheProvider.get().getPublicKey()
-                .thenApply(publicKey -> {
-                    try {
-                        Claims claims = Jwts.parser()
-                                .verifyWith(publicKey)
-                                .build()
-                                .parseSignedClaims(token)
-                                .getPayload();
-
-                        T result = claimsResolver.apply(claims);
-                        return Optional.ofNullable(result);
-                    } catch (Exception e) {
-                        logger.warn("Token parsing failed", e);
-                        return Optional.<T>empty();
-                    }
-                });
+    // Nepoznat kid se odbija odmah, a novi skup ključeva se učitava u pozadini za sledeće zahteve
+    private Key locateKey(Header header) {
+        String kid = header instanceof ProtectedHeader protectedHeader ? protectedHeader.getKeyId() : null;
+        PublicKeyCache publicKeyCache = publicKeyCacheProvider.get();
+        PublicKey publicKey = publicKeyCache.findKey(kid);
+        if (publicKey == null) {
+            publicKeyCache.requestReload();
+        }
+        return publicKey;
     }
 
-    // Helper za clean token
-    private String cleanToken(String token) {
-        if (token != null && token.startsWith("Bearer ")) {
-            return token.substring(7);
+    private JwtPrincipal toPrincipal(Claims claims) {
+        List<String> roles = new ArrayList<>();
+        Object rawRoles = claims.get("roles");
+        if (rawRoles instanceof List<?>) {
+            for (Object role : (List<?>) rawRoles) {
+                if (role instanceof String) {
+                    roles.add((String) role);
+                }
+            }
         }
-        return token;
+
+        Date expiration = claims.getExpiration();
+        return new JwtPrincipal(claims.getSubject(), roles, expiration == null ? null : expiration.toInstant());
     }
 }
@@ -0,0 +1,214 @@
+package com.radovan.play.utils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyStore;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateFactory;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManagerFactory;
+
+// Keeps the port of every service in the namespace in memory, filled by one list call and kept current by a watch
+// The same file is kept in product-service and order-service, change both copies together
+@Singleton
+public class K8sServicePortResolver {
+
+    private static final String SERVICE_ACCOUNT_DIR = "/var/run/secrets/kubernetes.io/serviceaccount/";
+    private static final String K8S_API_BASE = "https://kubernetes.default.svc/api/v1/namespaces/";
+    private static final int DEFAULT_PORT = 8080;
+    private static final long RETRY_DELAY_MILLIS = 5000;
+
+    private final Map<String, Integer> servicePorts = new ConcurrentHashMap<>();
+    private ObjectMapper objectMapper;
+    private HttpClient httpClient;
+    private String servicesUrl;
+    private volatile String resourceVersion;
+    private volatile boolean running;
+
+    @Inject
+    private void initialize(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        start();
+    }
+
+    private void start() {
+        if (System.getenv("KUBERNETES_SERVICE_HOST") == null) {
+            return;
+        }
+
+        try {
+            // Poverenje samo u CA klastera, bez menjanja globalnih SSL podrazumevanih vrednosti JVM-a
+            httpClient = HttpClient.newBuilder().sslContext(clusterSslContext())
+                    .connectTimeout(Duration.ofSeconds(5)).build();
+            servicesUrl = K8S_API_BASE + readNamespace() + "/services";
+        } catch (Exception e) {
+            System.err.println("❌ Failed to initialize K8s service watch: " + e.getMessage());
+            return;
+        }
+
+        // Daemon nit se gasi zajedno sa aplikacijom
+        running = true;
+        Thread watchThread = new Thread(this::watchLoop, "k8s-service-watch");
+        watchThread.setDaemon(true);
+        watchThread.start();
+    }
+
+    public int getServicePort(String serviceName) {
+        Integer port = servicePorts.get(serviceName);
+        if (port != null) {
+            return port;
+        }
+        // Samo dok watch ne napuni mapu, kasnije svaki servis već postoji u memoriji
+        return fetchServicePort(serviceName);
+    }
+
+    private void watchLoop() {
+        while (running) {
+            try {
+                if (resourceVersion == null) {
+                    listServices();
+                }
+                watchServices();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                System.err.println("❌ K8s service watch failed: " + e.getMessage());
+                resourceVersion = null;
+                try {
+                    Thread.sleep(RETRY_DELAY_MILLIS);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void listServices() throws IOException, InterruptedException {
+        HttpResponse<String> response = httpClient.send(request(servicesUrl), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IOException("K8s API returned status: " + response.statusCode());
+        }
+
+        JsonNode list = objectMapper.readTree(response.body());
+        servicePorts.clear();
+        list.path("items").forEach(this::updateService);
+        resourceVersion = list.path("metadata").path("resourceVersion").asText();
+    }
+
+    // Server periodično zatvara watch, nastavlja se od poslednje viđene verzije
+    private void watchServices() throws IOException, InterruptedException {
+        String url = servicesUrl + "?watch=true&allowWatchBookmarks=true&resourceVersion=" + resourceVersion;
+        HttpResponse<Stream<String>> response = httpClient.send(request(url), HttpResponse.BodyHandlers.ofLines());
+        if (response.statusCode() != 200) {
+            response.body().close();
+            throw new IOException("K8s watch returned status: " + response.statusCode());
+        }
+
+        try (Stream<String> events = response.body()) {
+            for (String line : (Iterable<String>) events::iterator) {
+                if (!running) {
+                    return;
+                }
+                if (line.isBlank()) {
+                    continue;
+                }
+                handleEvent(objectMapper.readTree(line));
+            }
+        }
+    }
+
+    private void handleEvent(JsonNode event) {
+        String type = event.path("type").asText();
+        JsonNode service = event.path("object");
+
+        if ("ERROR".equals(type)) {
+            // 410 Gone znači da je verzija istekla, potrebna je nova lista
+            resourceVersion = null;
+            return;
+        }
+
+        if ("DELETED".equals(type)) {
+            servicePorts.remove(service.path("metadata").path("name").asText());
+        } else if ("ADDED".equals(type) || "MODIFIED".equals(type)) {
+            updateService(service);
+        }
+        resourceVersion = service.path("metadata").path("resourceVersion").asText(resourceVersion);
+    }
+
+    private void updateService(JsonNode service) {
+        JsonNode portNode = service.path("spec").path("ports").path(0).path("port");
+        if (portNode.canConvertToInt()) {
+            servicePorts.put(service.path("metadata").path("name").asText(), portNode.asInt());
+        }
+    }
+
+    private int fetchServicePort(String serviceName) {
+        if (httpClient == null) {
+            return DEFAULT_PORT;
+        }
+
+        try {
+            HttpResponse<String> response = httpClient.send(request(servicesUrl + "/" + serviceName),
+                    HttpResponse.BodyHandlers.ofString());
+            JsonNode service = objectMapper.readTree(response.body());
+            updateService(service);
+            return servicePorts.getOrDefault(serviceName, DEFAULT_PORT);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return DEFAULT_PORT;
+        } catch (Exception e) {
+            System.err.println("❌ Failed to get K8s port for " + serviceName + ": " + e.getMessage());
+            return DEFAULT_PORT; // 🎯 Fallback port ako padne upit
+        }
+    }
+
+    // Token se čita pri svakom (re)konektovanju jer ga kubelet periodično rotira
+    private HttpRequest request(String url) throws IOException {
+        String token = Files.readString(Path.of(SERVICE_ACCOUNT_DIR + "token")).trim();
+        return HttpRequest.newBuilder(URI.create(url)).header("Authorization", "Bearer " + token)
+                .header("Accept", "application/json").GET().build();
+    }
+
+    private String readNamespace() {
+        try {
+            return Files.readString(Path.of(SERVICE_ACCOUNT_DIR + "namespace")).trim();
+        } catch (IOException e) {
+            return "default";
+        }
+    }
+
+    private SSLContext clusterSslContext() throws Exception {
+        KeyStore trustStore = KeyStore.getInstance(KeyStore.getDefaultType());
+        trustStore.load(null, null);
+        try (InputStream caInput = Files.newInputStream(Path.of(SERVICE_ACCOUNT_DIR + "ca.crt"))) {
+            int index = 0;
+            for (Certificate certificate : CertificateFactory.getInstance("X.509").generateCertificates(caInput)) {
+                trustStore.setCertificateEntry("k8s-ca-" + index++, certificate);
+            }
+        }
+
+        TrustManagerFactory trustManagerFactory = TrustManagerFactory
+                .getInstance(TrustManagerFactory.getDefaultAlgorithm());
+        trustManagerFactory.init(trustStore);
+        SSLContext sslContext = SSLContext.getInstance("TLS");
+        sslContext.init(null, trustManagerFactory.getTrustManagers(), null);
+        return sslContext;
+    }
+}
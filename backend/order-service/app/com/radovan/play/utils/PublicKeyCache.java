@@ -1,100 +1,160 @@
 package com.radovan.play.utils;
 
-import com.github.benmanes.caffeine.cache.Cache;
-import com.github.benmanes.caffeine.cache.Caffeine;
+import com.fasterxml.jackson.databind.JsonNode;
 import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
+import org.apache.pekko.actor.ActorSystem;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import play.libs.ws.WSClient;
 import play.libs.ws.WSResponse;
+import scala.concurrent.ExecutionContext;
+import scala.concurrent.duration.Duration;
 
+import java.math.BigInteger;
 import java.security.KeyFactory;
 import java.security.PublicKey;
-import java.security.spec.X509EncodedKeySpec;
+import java.security.spec.RSAPublicKeySpec;
 import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @Singleton
 public class PublicKeyCache {
     private static final Logger logger = LoggerFactory.getLogger(PublicKeyCache.class);
-    private static final String CACHE_KEY = "jwt-public-key";
+    private static final long MIN_RELOAD_INTERVAL_MILLIS = 10_000;
+    private static final long INITIAL_RETRY_MILLIS = 1_000;
+    private static final long MAX_RETRY_MILLIS = 30_000;
 
     private final WSClient wsClient;
     private final ServiceUrlProvider urlProvider;
-    private final Cache<String, PublicKey> cache;
+    private final ActorSystem actorSystem;
+    private final ExecutionContext executionContext;
+    // Nepromenljiv snimak kid -> ključ, čitaoci ga dobijaju bez zaključavanja i bez prelaska na drugu nit
+    private volatile KeySet keySet = new KeySet(Map.of(), null);
+    // Samo jedan poziv ka auth-service u isto vreme
+    private final AtomicBoolean reloading = new AtomicBoolean();
+    private volatile long lastReloadMillis;
 
     @Inject
-    public PublicKeyCache(WSClient wsClient, ServiceUrlProvider urlProvider) {
+    public PublicKeyCache(WSClient wsClient, ServiceUrlProvider urlProvider, ActorSystem actorSystem, ExecutionContext executionContext) {
         this.wsClient = wsClient;
         this.urlProvider = urlProvider;
-        this.cache = Caffeine.newBuilder()
-                .expireAfterWrite(12, TimeUnit.HOURS)
-                // Uklonjen refreshAfterWrite jer zahteva LoadingCache
-                .build();
-
+        this.actorSystem = actorSystem;
+        this.executionContext = executionContext;
+
+        // Ključevi se učitavaju pri startu bez blokiranja Guice-a i osvežavaju unapred, pre nego što ih ijedan zahtev zatraži
+        loadInitialKeys(INITIAL_RETRY_MILLIS);
+        actorSystem.scheduler().scheduleWithFixedDelay(
+                Duration.create(10, TimeUnit.MINUTES),
+                Duration.create(10, TimeUnit.MINUTES),
+                this::reloadKeys,
+                executionContext
+        );
     }
 
-    public CompletableFuture<PublicKey> getPublicKey() {
-        return CompletableFuture.supplyAsync(() -> {
-            PublicKey cachedKey = cache.getIfPresent(CACHE_KEY);
-            if (cachedKey != null) {
-                return cachedKey;
+    // Dok prvo učitavanje ne uspe svaki token se odbija, pa se pokušava ponovo sa rastućim razmakom umesto da se čeka throttle iz requestReload
+    private void loadInitialKeys(long retryMillis) {
+        reloadKeys().thenRun(() -> {
+            if (isKeyAvailable()) {
+                logger.info("Public keys loaded from auth-service");
+                return;
             }
-            return refreshPublicKey();
+
+            logger.error("Public keys are not loaded, all tokens are rejected until auth-service answers. Retrying in {} ms", retryMillis);
+            actorSystem.scheduler().scheduleOnce(
+                    Duration.create(retryMillis, TimeUnit.MILLISECONDS),
+                    () -> loadInitialKeys(Math.min(retryMillis * 2, MAX_RETRY_MILLIS)),
+                    executionContext
+            );
         });
     }
 
-    public PublicKey refreshPublicKey() {
+    // Token bez kid zaglavlja je potpisan ključem koji auth-service navodi prvi
+    public PublicKey findKey(String kid) {
+        KeySet current = keySet;
+        return kid == null ? current.defaultKey() : current.keys().get(kid);
+    }
+
+    // Nepoznat kid znači da je auth-service rotirao ključ, učitavanje ide u pozadini i ograničeno je da ne bi nastala oluja poziva
+    public void requestReload() {
+        if (System.currentTimeMillis() - lastReloadMillis >= MIN_RELOAD_INTERVAL_MILLIS) {
+            reloadKeys();
+        }
+    }
+
+    private CompletionStage<Void> reloadKeys() {
+        if (!reloading.compareAndSet(false, true)) {
+            return CompletableFuture.completedFuture(null);
+        }
+
         try {
-            PublicKey newKey = fetchAndParsePublicKey();
-            cache.put(CACHE_KEY, newKey);
-            return newKey;
+            String url = urlProvider.getAuthServiceUrl() + "/api/auth/jwks";
+            return wsClient.url(url)
+                    .setRequestTimeout(5000)
+                    .get()
+                    .thenAccept(response -> keySet = parseKeySet(response))
+                    .exceptionally(ex -> {
+                        logger.error("Failed to load public keys", ex);
+                        return null;
+                    })
+                    .whenComplete((result, ex) -> releaseReload());
         } catch (Exception e) {
-            logger.error("Failed to refresh public key", e);
-            throw new RuntimeException("Public key refresh failed", e);
+            logger.error("Failed to load public keys", e);
+            releaseReload();
+            return CompletableFuture.completedFuture(null);
         }
     }
 
-    private PublicKey fetchAndParsePublicKey() throws Exception {
-        String publicKeyPem = fetchPublicKeyFromAuthService();
-        return parsePublicKey(cleanKey(publicKeyPem));
+    private void releaseReload() {
+        lastReloadMillis = System.currentTimeMillis();
+        reloading.set(false);
     }
 
-    private String fetchPublicKeyFromAuthService() throws Exception {
-        String url = urlProvider.getAuthServiceUrl() + "/api/auth/public-key";
-        logger.debug("Fetching public key from: {}", url);
-
-        WSResponse response = wsClient.url(url)
-                .setRequestTimeout(5000)
-                .get()
-                .toCompletableFuture()
-                .join();
-
+    private KeySet parseKeySet(WSResponse response) {
         if (response.getStatus() != 200) {
             throw new RuntimeException("HTTP " + response.getStatus());
         }
 
-        return response.getBody();
-    }
+        try {
+            KeyFactory keyFactory = KeyFactory.getInstance("RSA");
+            Map<String, PublicKey> keys = new LinkedHashMap<>();
+            PublicKey defaultKey = null;
+            for (JsonNode jwk : response.asJson().path("keys")) {
+                if (!"RSA".equals(jwk.path("kty").asText())) {
+                    continue;
+                }
+                PublicKey key = keyFactory.generatePublic(
+                        new RSAPublicKeySpec(decodeUnsigned(jwk.path("n").asText()), decodeUnsigned(jwk.path("e").asText())));
+                keys.put(jwk.path("kid").asText(), key);
+                if (defaultKey == null) {
+                    defaultKey = key;
+                }
+            }
 
-    // Ostale metode (cleanKey, parsePublicKey, isKeyAvailable) ostaju iste
-    private String cleanKey(String publicKeyPem) {
-        return publicKeyPem.replace("-----BEGIN PUBLIC KEY-----", "")
-                .replace("-----END PUBLIC KEY-----", "")
-                .replaceAll("\\s+", "");
+            if (defaultKey == null) {
+                throw new RuntimeException("No RSA keys in auth-service JWKS");
+            }
+            return new KeySet(Map.copyOf(keys), defaultKey);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to parse auth-service JWKS", e);
+        }
     }
 
-    private PublicKey parsePublicKey(String keyBase64) throws Exception {
-        byte[] decodedKey = Base64.getDecoder().decode(keyBase64);
-        X509EncodedKeySpec keySpec = new X509EncodedKeySpec(decodedKey);
-        return KeyFactory.getInstance("RSA").generatePublic(keySpec);
+    private BigInteger decodeUnsigned(String base64Url) {
+        return new BigInteger(1, Base64.getUrlDecoder().decode(base64Url));
     }
 
     public boolean isKeyAvailable() {
-        return cache.getIfPresent(CACHE_KEY) != null;
+        return keySet.defaultKey() != null;
     }
 
-
-}
\ No newline at end of file
+    private record KeySet(Map<String, PublicKey> keys, PublicKey defaultKey) {
+    }
+}
@@ -0,0 +1,118 @@
+package com.radovan.play.utils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.nats.client.Dispatcher;
+import io.nats.client.Message;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import org.apache.pekko.actor.ActorSystem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import scala.concurrent.ExecutionContext;
+import scala.concurrent.duration.Duration;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// Lokalna kopija suspendovanih korisnika iz auth-service, održava se NATS događajima umesto poziva po zahtevu
+@Singleton
+public class SuspendedUserRegistry {
+    private static final Logger logger = LoggerFactory.getLogger(SuspendedUserRegistry.class);
+
+    private static final String USER_SUSPENDED_SUBJECT = "user.suspended";
+    private static final String USER_REACTIVATED_SUBJECT = "user.reactivated";
+    private static final String SNAPSHOT_SUBJECT = "user.suspended.snapshot";
+
+    private NatsUtils natsUtils;
+    private ObjectMapper objectMapper;
+    private volatile Set<String> suspendedSubjects = ConcurrentHashMap.newKeySet();
+    // Događaji koji stignu dok se čeka snimak primenjuju se i na novi skup, da ih zamena ne bi poništila
+    private final Map<String, Boolean> pendingEvents = new HashMap<>();
+    private boolean snapshotInFlight;
+
+    @Inject
+    private void initialize(NatsUtils natsUtils, ObjectMapper objectMapper, ActorSystem actorSystem, ExecutionContext executionContext) {
+        this.natsUtils = natsUtils;
+        this.objectMapper = objectMapper;
+
+        try {
+            Dispatcher dispatcher = natsUtils.getConnection().createDispatcher(this::handleMessage);
+            dispatcher.subscribe(USER_SUSPENDED_SUBJECT);
+            dispatcher.subscribe(USER_REACTIVATED_SUBJECT);
+        } catch (Exception e) {
+            logger.error("Failed to subscribe to user status events", e);
+        }
+
+        // NATS ne garantuje isporuku, periodični snimak ispravlja propuštene događaje.
+        // Prvi snimak ide odmah, ali na scheduler-u, da spor auth-service ili NATS ne zadrži pokretanje Guice-a
+        actorSystem.scheduler().scheduleWithFixedDelay(
+                Duration.Zero(),
+                Duration.create(60, TimeUnit.SECONDS),
+                this::refreshSnapshot,
+                executionContext
+        );
+    }
+
+    public boolean isSuspended(String subject) {
+        return subject != null && suspendedSubjects.contains(subject);
+    }
+
+    private void refreshSnapshot() {
+        synchronized (this) {
+            snapshotInFlight = true;
+            pendingEvents.clear();
+        }
+
+        try {
+            Message reply = natsUtils.getConnection().request(SNAPSHOT_SUBJECT, new byte[0]).get(5, TimeUnit.SECONDS);
+            JsonNode response = objectMapper.readTree(reply.getData());
+
+            Set<String> snapshot = ConcurrentHashMap.newKeySet();
+            response.path("subjects").forEach(subject -> snapshot.add(subject.asText()));
+
+            synchronized (this) {
+                pendingEvents.forEach((subject, suspended) -> {
+                    if (suspended) {
+                        snapshot.add(subject);
+                    } else {
+                        snapshot.remove(subject);
+                    }
+                });
+                suspendedSubjects = snapshot;
+            }
+        } catch (Exception e) {
+            logger.warn("Failed to fetch suspended users snapshot: {}", e.getMessage());
+        } finally {
+            synchronized (this) {
+                snapshotInFlight = false;
+                pendingEvents.clear();
+            }
+        }
+    }
+
+    private void handleMessage(Message msg) {
+        try {
+            String subject = objectMapper.readTree(msg.getData()).path("subject").asText(null);
+            if (subject != null) {
+                applyStatusChange(subject, USER_SUSPENDED_SUBJECT.equals(msg.getSubject()));
+            }
+        } catch (Exception e) {
+            logger.warn("Failed to process user status event: {}", e.getMessage());
+        }
+    }
+
+    private synchronized void applyStatusChange(String subject, boolean suspended) {
+        if (suspended) {
+            suspendedSubjects.add(subject);
+        } else {
+            suspendedSubjects.remove(subject);
+        }
+        if (snapshotInFlight) {
+            pendingEvents.put(subject, suspended);
+        }
+    }
+}
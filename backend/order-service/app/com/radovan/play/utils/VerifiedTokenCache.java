@@ -0,0 +1,60 @@
+package com.radovan.play.utils;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.radovan.play.security.JwtPrincipal;
+import jakarta.inject.Singleton;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+
+// Principal tokena čiji je potpis već proveren, unos živi najduže do exp samog tokena
+@Singleton
+public class VerifiedTokenCache {
+
+    private static final int MAX_ENTRIES = 10_000;
+
+    private final Cache<String, JwtPrincipal> cache = Caffeine.newBuilder()
+            .maximumSize(MAX_ENTRIES)
+            .expireAfter(Expiry.creating((String digest, JwtPrincipal principal) -> remainingLifetime(principal)))
+            .build();
+
+    public JwtPrincipal get(String token) {
+        JwtPrincipal principal = cache.getIfPresent(digest(token));
+        // Caffeine briše istekle unose sa malim zakašnjenjem, exp se zato proverava i ovde
+        if (principal == null || remainingLifetime(principal).isZero()) {
+            return null;
+        }
+        return principal;
+    }
+
+    // Token bez exp se ne kešira, njegova važnost ne bi imala gornju granicu
+    public void put(String token, JwtPrincipal principal) {
+        if (!remainingLifetime(principal).isZero()) {
+            cache.put(digest(token), principal);
+        }
+    }
+
+    private static Duration remainingLifetime(JwtPrincipal principal) {
+        Instant expiresAt = principal.expiresAt();
+        if (expiresAt == null) {
+            return Duration.ZERO;
+        }
+        return Duration.ofMillis(Math.max(0, expiresAt.toEpochMilli() - System.currentTimeMillis()));
+    }
+
+    // Ključ je heš tokena, sam token ne ostaje u memoriji keša
+    private static String digest(String token) {
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(messageDigest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.radovan.play.utils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.nats.client.Connection;
+import io.nats.client.Dispatcher;
+import io.nats.client.Message;
+import io.nats.client.MessageHandler;
+import io.nats.client.impl.NatsMessage;
+import org.apache.pekko.actor.ActorSystem;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SuspendedUserRegistryTest {
+
+    // Svaki zahtev za snimak dobija sledeći future iz reda, test odlučuje kada i čime se završava
+    private final BlockingQueue<CompletableFuture<Message>> snapshotReplies = new LinkedBlockingQueue<>();
+    private MessageHandler statusHandler;
+    private SuspendedUserRegistry registry;
+    private final CompletableFuture<Message> startupSnapshot = new CompletableFuture<>();
+    private ActorSystem actorSystem;
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() throws Exception {
+        Connection connection = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "createDispatcher" -> {
+                        statusHandler = (MessageHandler) args[0];
+                        yield Proxy.newProxyInstance(Dispatcher.class.getClassLoader(), new Class<?>[]{Dispatcher.class},
+                                (dispatcher, dispatcherMethod, dispatcherArgs) -> dispatcher);
+                    }
+                    case "request" -> snapshotReplies.poll(5, TimeUnit.SECONDS);
+                    default -> null;
+                });
+        NatsUtils natsUtils = new NatsUtils() {
+            @Override
+            public Connection getConnection() {
+                return connection;
+            }
+        };
+
+        actorSystem = ActorSystem.create("suspended-user-registry-test");
+        snapshotReplies.add(startupSnapshot);
+        registry = new SuspendedUserRegistry();
+        Method initialize = SuspendedUserRegistry.class.getDeclaredMethod("initialize", NatsUtils.class, ObjectMapper.class,
+                ActorSystem.class, scala.concurrent.ExecutionContext.class);
+        initialize.setAccessible(true);
+        initialize.invoke(registry, natsUtils, new ObjectMapper(), actorSystem, actorSystem.dispatcher());
+        executor = Executors.newSingleThreadExecutor();
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+        actorSystem.terminate();
+    }
+
+    @Test
+    public void initializeDoesNotWaitForTheFirstSnapshot() throws Exception {
+        // initialize se vratio iako odgovor na prvi snimak još nije stigao
+        awaitRequested();
+        assertFalse(registry.isSuspended("alice@example.com"));
+
+        completeStartupSnapshot();
+
+        assertTrue(registry.isSuspended("alice@example.com"));
+    }
+
+    @Test
+    public void startupSnapshotAndEventsAreApplied() throws Exception {
+        completeStartupSnapshot();
+
+        assertTrue(registry.isSuspended("alice@example.com"));
+        assertFalse(registry.isSuspended("bob@example.com"));
+        assertFalse(registry.isSuspended(null));
+
+        statusHandler.onMessage(event("user.suspended", "bob@example.com"));
+        statusHandler.onMessage(event("user.reactivated", "alice@example.com"));
+
+        assertTrue(registry.isSuspended("bob@example.com"));
+        assertFalse(registry.isSuspended("alice@example.com"));
+    }
+
+    @Test
+    public void eventsArrivingWhileSnapshotIsInFlightAreReplayedOntoIt() throws Exception {
+        completeStartupSnapshot();
+        CompletableFuture<Message> pendingSnapshot = new CompletableFuture<>();
+        snapshotReplies.add(pendingSnapshot);
+        Future<?> refresh = executor.submit(this::refreshSnapshot);
+        awaitRequested();
+
+        // Snimak je napravljen pre ovih događaja, pa još sadrži alice i ne sadrži carol
+        statusHandler.onMessage(event("user.reactivated", "alice@example.com"));
+        statusHandler.onMessage(event("user.suspended", "carol@example.com"));
+        pendingSnapshot.complete(snapshot("alice@example.com", "bob@example.com"));
+        refresh.get(5, TimeUnit.SECONDS);
+
+        assertFalse(registry.isSuspended("alice@example.com"));
+        assertTrue(registry.isSuspended("bob@example.com"));
+        assertTrue(registry.isSuspended("carol@example.com"));
+    }
+
+    @Test
+    public void failedSnapshotKeepsTheCurrentSet() throws Exception {
+        completeStartupSnapshot();
+        snapshotReplies.add(CompletableFuture.failedFuture(new IllegalStateException("no responders")));
+        statusHandler.onMessage(event("user.suspended", "bob@example.com"));
+
+        refreshSnapshot();
+
+        assertTrue(registry.isSuspended("alice@example.com"));
+        assertTrue(registry.isSuspended("bob@example.com"));
+    }
+
+    private Void refreshSnapshot() throws Exception {
+        Method refreshSnapshot = SuspendedUserRegistry.class.getDeclaredMethod("refreshSnapshot");
+        refreshSnapshot.setAccessible(true);
+        refreshSnapshot.invoke(registry);
+        return null;
+    }
+
+    // Prvi snimak se obrađuje na scheduler-u, čeka se da ga registry primeni i završi
+    private void completeStartupSnapshot() throws Exception {
+        awaitRequested();
+        startupSnapshot.complete(snapshot("alice@example.com"));
+        Field inFlight = SuspendedUserRegistry.class.getDeclaredField("snapshotInFlight");
+        inFlight.setAccessible(true);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (System.currentTimeMillis() < deadline) {
+            synchronized (registry) {
+                if (registry.isSuspended("alice@example.com") && !inFlight.getBoolean(registry)) {
+                    return;
+                }
+            }
+            Thread.sleep(5);
+        }
+        throw new AssertionError("Startup snapshot was not applied");
+    }
+
+    private void awaitRequested() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!snapshotReplies.isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(snapshotReplies.isEmpty());
+    }
+
+    private static Message snapshot(String... subjects) {
+        StringBuilder json = new StringBuilder("{\"subjects\":[");
+        for (int i = 0; i < subjects.length; i++) {
+            json.append(i == 0 ? "" : ",").append('"').append(subjects[i]).append('"');
+        }
+        return message("user.suspended.snapshot", json.append("]}").toString());
+    }
+
+    private static Message event(String natsSubject, String userSubject) {
+        return message(natsSubject, "{\"subject\":\"" + userSubject + "\"}");
+    }
+
+    private static Message message(String natsSubject, String json) {
+        return NatsMessage.builder().subject(natsSubject).data(json.getBytes(StandardCharsets.UTF_8)).build();
+    }
+}
@@ -0,0 +1,50 @@
+package com.radovan.play.utils;
+
+import com.radovan.play.security.JwtPrincipal;
+import org.junit.Test;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class VerifiedTokenCacheTest {
+
+    private final VerifiedTokenCache cache = new VerifiedTokenCache();
+
+    @Test
+    public void tokenIsServedWhileItIsValid() {
+        JwtPrincipal principal = principalExpiringIn(60_000);
+        cache.put("token", principal);
+
+        assertSame(principal, cache.get("token"));
+        assertNull(cache.get("other-token"));
+    }
+
+    @Test
+    public void tokenWithoutExpIsNeverCached() {
+        cache.put("token", new JwtPrincipal("user@example.com", List.of("ROLE_USER"), null));
+
+        assertNull(cache.get("token"));
+    }
+
+    @Test
+    public void expiredTokenIsNeverCached() {
+        cache.put("token", principalExpiringIn(-1_000));
+
+        assertNull(cache.get("token"));
+    }
+
+    @Test
+    public void entryIsNotServedOnceTheTokenExpires() throws InterruptedException {
+        cache.put("token", principalExpiringIn(200));
+        Thread.sleep(400);
+
+        assertNull(cache.get("token"));
+    }
+
+    private static JwtPrincipal principalExpiringIn(long millis) {
+        return new JwtPrincipal("user@example.com", List.of("ROLE_USER"), Instant.now().plusMillis(millis));
+    }
+}
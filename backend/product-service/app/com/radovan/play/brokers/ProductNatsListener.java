@@ -4,7 +4,9 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.radovan.play.dto.ProductDto;
+import com.radovan.play.dto.StockReservationDto;
 import com.radovan.play.services.ProductService;
+import com.radovan.play.utils.JwtUtil;
 import com.radovan.play.utils.NatsUtils;
 import io.nats.client.Connection;
 import io.nats.client.Dispatcher;
@@ -14,6 +16,9 @@ import io.nats.client.impl.Headers;
 import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
 
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Singleton
@@ -24,16 +29,20 @@ public class ProductNatsListener {
     private static final String ApplicationJson = "application/json";
     private static final String ProductUpdatePrefix = "product.update.";
     private static final String ProductGetPrefix = "product.get.";
+    private static final String ProductReserveBatchSubject = "product.reserveBatch";
+    private static final String ProductDecrementStockPrefix = "product.decrementStock.";
 
     private  ProductService productService;
     private  NatsUtils natsUtils;
     private  ObjectMapper objectMapper;
+    private  JwtUtil jwtUtil;
 
     @Inject
-    private void initialize(ProductService productService, NatsUtils natsUtils, ObjectMapper objectMapper) {
+    private void initialize(ProductService productService, NatsUtils natsUtils, ObjectMapper objectMapper, JwtUtil jwtUtil) {
         this.productService = productService;
         this.natsUtils = natsUtils;
         this.objectMapper = objectMapper;
+        this.jwtUtil = jwtUtil;
         initListeners();
     }
 
@@ -46,6 +55,8 @@ public class ProductNatsListener {
 
             dispatcher.subscribe("product.update.*");
             dispatcher.subscribe("product.get.*");
+            dispatcher.subscribe(ProductReserveBatchSubject);
+            dispatcher.subscribe("product.decrementStock.*");
         } catch (Exception e) {
             System.err.println("PRODUCT SERVICE INIT ERROR: " + e.getMessage());
             throw new RuntimeException("NATS initialization failed", e);
@@ -59,6 +70,10 @@ public class ProductNatsListener {
                 handleUpdateRequest(msg);
             } else if (subject.startsWith(ProductGetPrefix)) {
                 handleGetRequest(msg);
+            } else if (subject.equals(ProductReserveBatchSubject)) {
+                handleReserveBatchRequest(msg);
+            } else if (subject.startsWith(ProductDecrementStockPrefix)) {
+                handleDecrementStockRequest(msg);
             }
         } catch (Exception e) {
             System.err.println("PRODUCT SERVICE ERROR: " + e.getMessage());
@@ -104,6 +119,78 @@ public class ProductNatsListener {
         }
     }
 
+    private void handleReserveBatchRequest(Message msg) {
+        try {
+            JsonNode payload = objectMapper.readTree(msg.getData());
+            if (!payload.has("items") || !payload.get("items").isArray()) {
+                throw new RuntimeException("Missing 'items' field");
+            }
+            requireValidToken(payload);
+
+            // Lines for the same product are merged so each row is locked and checked once
+            Map<Integer, Integer> quantities = new LinkedHashMap<>();
+            for (JsonNode item : payload.get("items")) {
+                if (!item.has("productId") || !item.has("quantity")) {
+                    throw new RuntimeException("Reservation line is missing required fields");
+                }
+                // Svaka stavka se proverava pre spajanja, negativna količina bi inače povećala zalihe
+                if (item.get("quantity").asInt() < 1) {
+                    throw new RuntimeException("The quantity must be at least 1 for product " + item.get("productId").asInt());
+                }
+                quantities.merge(item.get("productId").asInt(), item.get("quantity").asInt(), Integer::sum);
+            }
+
+            List<StockReservationDto> results = productService.reserveStock(quantities);
+
+            ObjectNode response = objectMapper.createObjectNode();
+            response.put("reserved", results.stream().allMatch(StockReservationDto::getReserved));
+            response.set("items", objectMapper.valueToTree(results));
+            natsUtils.getConnection().publish(msg.getReplyTo(), objectMapper.writeValueAsBytes(response));
+
+        } catch (Exception ex) {
+            sendErrorResponse(msg.getReplyTo(), "Reservation failed: " + ex.getMessage(), 500);
+        }
+    }
+
+    private void handleDecrementStockRequest(Message msg) {
+        try {
+            int productId = extractIdFromSubject(msg.getSubject(), ProductDecrementStockPrefix);
+            JsonNode payload = objectMapper.readTree(msg.getData());
+
+            if (!payload.has("quantity")) {
+                throw new RuntimeException("Missing 'quantity' field");
+            }
+            requireValidToken(payload);
+
+            int quantity = payload.get("quantity").asInt();
+            Boolean decremented = productService.decrementStock(productId, quantity);
+
+            ObjectNode response = objectMapper.createObjectNode();
+            response.put("productId", productId);
+            response.put("quantity", quantity);
+            response.put("decremented", decremented);
+            natsUtils.getConnection().publish(msg.getReplyTo(), objectMapper.writeValueAsBytes(response));
+
+        } catch (Exception ex) {
+            sendErrorResponse(msg.getReplyTo(), "Stock decrement failed: " + ex.getMessage(), 500);
+        }
+    }
+
+    // Poruke koje menjaju zalihe moraju nositi važeći token, kao i product.update
+    private void requireValidToken(JsonNode payload) {
+        if (!payload.has("Authorization")) {
+            throw new RuntimeException("Missing Authorization token");
+        }
+
+        String jwtToken = payload.get("Authorization").asText();
+        if (jwtToken.startsWith("Bearer ")) {
+            jwtToken = jwtToken.substring(7).trim();
+        }
+        if (jwtUtil.verify(jwtToken).join().isEmpty()) {
+            throw new RuntimeException("Invalid Authorization token");
+        }
+    }
+
     private int extractIdFromSubject(String subject, String prefix) {
         try {
             return Integer.parseInt(subject.replace(prefix, ""));
@@ -1,6 +1,7 @@
 package com.radovan.play.brokers;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.radovan.play.utils.NatsUtils;
 import jakarta.inject.Inject;
@@ -12,6 +13,7 @@ public class ProductNatsSender {
     private static final String ContentType = "application/json";
     private static final String CartItemsRefreshPrefix = "cart.updateAllByProductId.";
     private static final String CartItemsDeletePrefix = "cart.removeAllByProductId.";
+    private static final String GatewayCacheInvalidateSubject = "gateway.cache.invalidate";
 
     private  NatsUtils natsUtils;
     private  ObjectMapper objectMapper;
@@ -22,10 +24,12 @@ public class ProductNatsSender {
         this.objectMapper = objectMapper;
     }
 
-    public void sendCartUpdateRequest(Integer productId, String jwtToken) {
+    public void sendCartUpdateRequest(Integer productId, Float productPrice, Float discount, String jwtToken) {
         try {
             ObjectNode messagePayload = objectMapper.createObjectNode();
             messagePayload.put("Product-ID", productId);
+            messagePayload.put("productPrice", productPrice);
+            messagePayload.put("discount", discount);
             messagePayload.put("Authorization", jwtToken);
 
             String subject = CartItemsRefreshPrefix + productId;
@@ -51,4 +55,21 @@ public class ProductNatsSender {
             e.printStackTrace();
         }
     }
-}
\ No newline at end of file
+
+    // Gateway briše keširane odgovore čije putanje počinju nekim od ovih prefiksa
+    public void sendCacheInvalidation(String... pathPrefixes) {
+        try {
+            ObjectNode messagePayload = objectMapper.createObjectNode();
+            ArrayNode paths = messagePayload.putArray("paths");
+            for (String pathPrefix : pathPrefixes) {
+                paths.add(pathPrefix);
+            }
+
+            byte[] payload = objectMapper.writeValueAsBytes(messagePayload);
+
+            natsUtils.getConnection().publish(GatewayCacheInvalidateSubject, payload);
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -1,8 +1,8 @@
 package com.radovan.play.controllers;
 
-import com.radovan.play.brokers.ProductNatsSender;
 import com.radovan.play.dto.ProductDto;
 import com.radovan.play.dto.ProductImageDto;
+import com.radovan.play.dto.ProductPageDto;
 import com.radovan.play.exceptions.DataNotValidatedException;
 import com.radovan.play.exceptions.FileUploadException;
 import com.radovan.play.security.JwtAuthAction;
@@ -11,6 +11,9 @@ import com.radovan.play.services.ProductImageService;
 import com.radovan.play.services.ProductService;
 import com.radovan.play.utils.TokenUtils;
 import jakarta.inject.Inject;
+import org.apache.pekko.stream.javadsl.Source;
+import org.apache.pekko.stream.javadsl.StreamConverters;
+import org.apache.pekko.util.ByteString;
 import play.data.Form;
 import play.data.FormFactory;
 import play.libs.Json;
@@ -19,28 +22,42 @@ import play.mvc.Http;
 import play.mvc.Result;
 import play.mvc.With;
 
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
 
 @With(JwtAuthAction.class)
 public class ProductController extends Controller {
 
+    private static final int IMAGE_CHUNK_SIZE = 64 * 1024;
+
     private ProductService productService;
     private ProductImageService imageService;
 
     private FormFactory formFactory;
-    private ProductNatsSender productNatsSender;
 
     @Inject
-    private void initialize(ProductService productService, ProductImageService imageService, FormFactory formFactory, ProductNatsSender productNatsSender) {
+    private void initialize(ProductService productService, ProductImageService imageService, FormFactory formFactory) {
         this.productService = productService;
         this.imageService = imageService;
         this.formFactory = formFactory;
-        this.productNatsSender = productNatsSender;
     }
 
-    public Result listAllProducts(){
-        List<ProductDto> allProducts = productService.listAll();
-        return ok(Json.toJson(allProducts));
+    public Result listAllProducts(Optional<Integer> after, Optional<Integer> limit, Optional<Integer> categoryId){
+        // Without paging parameters the full list is kept for existing clients
+        if (after.isEmpty() && limit.isEmpty() && categoryId.isEmpty()) {
+            List<ProductDto> allProducts = productService.listAll();
+            return ok(Json.toJson(allProducts));
+        }
+
+        ProductPageDto page = productService.listPage(after.orElse(null), limit.orElse(null), categoryId.orElse(null));
+        return ok(Json.toJson(page));
     }
 
     @RoleSecured({"ROLE_ADMIN"})
@@ -67,9 +84,6 @@ public class ProductController extends Controller {
         }
         ProductDto productDto = form.get();
         ProductDto updatedProduct = productService.updateProduct(productDto, id, TokenUtils.provideToken(request));
-        String jwtToken = request.headers().get("Authorization").orElse(null);
-        System.out.println("JWT Token: " + jwtToken);
-        productNatsSender.sendCartUpdateRequest(id,jwtToken);
         return ok("Product with id " + updatedProduct.getProductId() + " has been updated!");
     }
 
@@ -97,6 +111,49 @@ public class ProductController extends Controller {
     }
 
 
+    public Result getProductImage(Http.Request request, Integer id) {
+        ProductImageDto image = imageService.getImageMetadata(id);
+        Optional<Instant> lastModified = Optional.ofNullable(image.getLastModified())
+                .map(timestamp -> timestamp.toInstant().truncatedTo(ChronoUnit.SECONDS));
+        String etag = "\"" + image.getId() + "-" + image.getSize()
+                + lastModified.map(instant -> "-" + instant.getEpochSecond()).orElse("") + "\"";
+
+        if (isNotModified(request, etag, lastModified)) {
+            return withCacheHeaders(status(NOT_MODIFIED), etag, lastModified);
+        }
+
+        // The blob is pulled from the database in chunks while the response is written
+        Source<ByteString, ?> data = StreamConverters.fromInputStream(() -> imageService.openImageData(image.getId()), IMAGE_CHUNK_SIZE);
+        return withCacheHeaders(ok().streamed(data, Optional.ofNullable(image.getSize()), Optional.ofNullable(image.getContentType())), etag, lastModified);
+    }
+
+    private boolean isNotModified(Http.Request request, String etag, Optional<Instant> lastModified) {
+        Optional<String> ifNoneMatch = request.header(IF_NONE_MATCH);
+        if (ifNoneMatch.isPresent()) {
+            return ifNoneMatch.get().equals("*") || Arrays.stream(ifNoneMatch.get().split(","))
+                    .map(String::trim)
+                    .anyMatch(tag -> tag.equals(etag) || tag.equals("W/" + etag));
+        }
+
+        Optional<String> ifModifiedSince = request.header(IF_MODIFIED_SINCE);
+        if (ifModifiedSince.isPresent() && lastModified.isPresent()) {
+            try {
+                Instant since = ZonedDateTime.parse(ifModifiedSince.get(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+                return !lastModified.get().isAfter(since);
+            } catch (DateTimeParseException e) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private Result withCacheHeaders(Result result, String etag, Optional<Instant> lastModified) {
+        Result withTag = result.withHeader(ETAG, etag).withHeader(CACHE_CONTROL, "private, no-cache");
+        return lastModified
+                .map(instant -> withTag.withHeader(LAST_MODIFIED, DateTimeFormatter.RFC_1123_DATE_TIME.format(instant.atZone(ZoneOffset.UTC))))
+                .orElse(withTag);
+    }
+
     public Result getAllImages(){
         List<ProductImageDto> allImages = imageService.listAll();
         return ok(Json.toJson(allImages));
@@ -75,6 +75,7 @@ public class TempConverter {
 
     public ProductImageDto productImageEntityToDto(ProductImageEntity image) {
         ProductImageDto returnValue = mapper.map(image, ProductImageDto.class);
+        // product je LAZY proxy i posle zatvaranja sesije, čita se samo id koji proxy vraća bez učitavanja
         Optional<ProductEntity> productOptional = Optional.ofNullable(image.getProduct());
         if (productOptional.isPresent()) {
             returnValue.setProductId(productOptional.get().getProductId());
@@ -2,6 +2,7 @@ package com.radovan.play.dto;
 
 
 import java.io.Serializable;
+import java.sql.Timestamp;
 
 import play.data.validation.Constraints;
 
@@ -20,6 +21,8 @@ public class ProductImageDto implements Serializable {
 
     private Long size;
 
+    private Timestamp lastModified;
+
     private byte[] data;
 
     @Constraints.Required
@@ -57,6 +60,14 @@ public class ProductImageDto implements Serializable {
         this.size = size;
     }
 
+    public Timestamp getLastModified() {
+        return lastModified;
+    }
+
+    public void setLastModified(Timestamp lastModified) {
+        this.lastModified = lastModified;
+    }
+
     public byte[] getData() {
         return data;
     }
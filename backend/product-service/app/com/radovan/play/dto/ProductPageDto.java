@@ -0,0 +1,34 @@
+package com.radovan.play.dto;
+
+import java.io.Serializable;
+import java.util.List;
+
+public class ProductPageDto implements Serializable {
+
+    /**
+     *
+     */
+    private static final long serialVersionUID = 1L;
+
+    private List<ProductSummaryDto> items;
+
+    // Id of the last product on this page, null when there is nothing left to fetch
+    private Integer nextCursor;
+
+    public List<ProductSummaryDto> getItems() {
+        return items;
+    }
+
+    public void setItems(List<ProductSummaryDto> items) {
+        this.items = items;
+    }
+
+    public Integer getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(Integer nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+}
@@ -0,0 +1,131 @@
+package com.radovan.play.dto;
+
+import java.io.Serializable;
+
+public class ProductSummaryDto implements Serializable {
+
+    /**
+     *
+     */
+    private static final long serialVersionUID = 1L;
+
+    private Integer productId;
+
+    private String productDescription;
+
+    private String productBrand;
+
+    private String productModel;
+
+    private String productName;
+
+    private Float productPrice;
+
+    private Integer unitStock;
+
+    private Float discount;
+
+    private Integer imageId;
+
+    private Integer productCategoryId;
+
+    public ProductSummaryDto() {
+    }
+
+    // Used by the criteria projection, argument order has to match the selected columns
+    public ProductSummaryDto(Integer productId, String productDescription, String productBrand, String productModel,
+                             String productName, Float productPrice, Integer unitStock, Float discount,
+                             Integer imageId, Integer productCategoryId) {
+        this.productId = productId;
+        this.productDescription = productDescription;
+        this.productBrand = productBrand;
+        this.productModel = productModel;
+        this.productName = productName;
+        this.productPrice = productPrice;
+        this.unitStock = unitStock;
+        this.discount = discount;
+        this.imageId = imageId;
+        this.productCategoryId = productCategoryId;
+    }
+
+    public Integer getProductId() {
+        return productId;
+    }
+
+    public void setProductId(Integer productId) {
+        this.productId = productId;
+    }
+
+    public String getProductDescription() {
+        return productDescription;
+    }
+
+    public void setProductDescription(String productDescription) {
+        this.productDescription = productDescription;
+    }
+
+    public String getProductBrand() {
+        return productBrand;
+    }
+
+    public void setProductBrand(String productBrand) {
+        this.productBrand = productBrand;
+    }
+
+    public String getProductModel() {
+        return productModel;
+    }
+
+    public void setProductModel(String productModel) {
+        this.productModel = productModel;
+    }
+
+    public String getProductName() {
+        return productName;
+    }
+
+    public void setProductName(String productName) {
+        this.productName = productName;
+    }
+
+    public Float getProductPrice() {
+        return productPrice;
+    }
+
+    public void setProductPrice(Float productPrice) {
+        this.productPrice = productPrice;
+    }
+
+    public Integer getUnitStock() {
+        return unitStock;
+    }
+
+    public void setUnitStock(Integer unitStock) {
+        this.unitStock = unitStock;
+    }
+
+    public Float getDiscount() {
+        return discount;
+    }
+
+    public void setDiscount(Float discount) {
+        this.discount = discount;
+    }
+
+    public Integer getImageId() {
+        return imageId;
+    }
+
+    public void setImageId(Integer imageId) {
+        this.imageId = imageId;
+    }
+
+    public Integer getProductCategoryId() {
+        return productCategoryId;
+    }
+
+    public void setProductCategoryId(Integer productCategoryId) {
+        this.productCategoryId = productCategoryId;
+    }
+
+}
@@ -0,0 +1,82 @@
+package com.radovan.play.dto;
+
+import java.io.Serializable;
+
+public class StockReservationDto implements Serializable {
+
+    /**
+     *
+     */
+    private static final long serialVersionUID = 1L;
+
+    private Integer productId;
+
+    private Integer quantity;
+
+    private Boolean reserved;
+
+    private Integer unitStock;
+
+    private String productName;
+
+    private Float productPrice;
+
+    private Float discount;
+
+    public Integer getProductId() {
+        return productId;
+    }
+
+    public void setProductId(Integer productId) {
+        this.productId = productId;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(Integer quantity) {
+        this.quantity = quantity;
+    }
+
+    public Boolean getReserved() {
+        return reserved;
+    }
+
+    public void setReserved(Boolean reserved) {
+        this.reserved = reserved;
+    }
+
+    public Integer getUnitStock() {
+        return unitStock;
+    }
+
+    public void setUnitStock(Integer unitStock) {
+        this.unitStock = unitStock;
+    }
+
+    public String getProductName() {
+        return productName;
+    }
+
+    public void setProductName(String productName) {
+        this.productName = productName;
+    }
+
+    public Float getProductPrice() {
+        return productPrice;
+    }
+
+    public void setProductPrice(Float productPrice) {
+        this.productPrice = productPrice;
+    }
+
+    public Float getDiscount() {
+        return discount;
+    }
+
+    public void setDiscount(Float discount) {
+        this.discount = discount;
+    }
+
+}
@@ -0,0 +1,47 @@
+package com.radovan.play.entity;
+
+import java.io.Serializable;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Lob;
+import jakarta.persistence.Table;
+import org.hibernate.annotations.Immutable;
+
+// Read-only view of the image bytes, mapped on the same table so they are only loaded when explicitly queried
+@Entity
+@Immutable
+@Table(name = "product_images")
+public class ProductImageDataEntity implements Serializable {
+
+    /**
+     *
+     */
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @Column(name = "id")
+    private Integer id;
+
+    @Lob
+    @Column(name = "data")
+    private byte[] data;
+
+    public Integer getId() {
+        return id;
+    }
+
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
+    public byte[] getData() {
+        return data;
+    }
+
+    public void setData(byte[] data) {
+        this.data = data;
+    }
+
+}
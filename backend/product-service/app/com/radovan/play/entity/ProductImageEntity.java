@@ -1,6 +1,7 @@
 package com.radovan.play.entity;
 
 import java.io.Serializable;
+import java.sql.Timestamp;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
@@ -9,7 +10,6 @@ import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
-import jakarta.persistence.Lob;
 import jakarta.persistence.OneToOne;
 import jakarta.persistence.Table;
 
@@ -34,10 +34,11 @@ public class ProductImageEntity implements Serializable {
 
     private Long size;
 
-    @Lob
-    private byte[] data;
+    @Column(name = "last_modified")
+    private Timestamp lastModified;
 
-    @OneToOne(fetch = FetchType.EAGER)
+    // The bytes are mapped by ProductImageDataEntity, so loading an image or a product never pulls the large object
+    @OneToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "product_id", nullable = false)
     private ProductEntity product;
 
@@ -73,12 +74,12 @@ public class ProductImageEntity implements Serializable {
         this.size = size;
     }
 
-    public byte[] getData() {
-        return data;
+    public Timestamp getLastModified() {
+        return lastModified;
     }
 
-    public void setData(byte[] data) {
-        this.data = data;
+    public void setLastModified(Timestamp lastModified) {
+        this.lastModified = lastModified;
     }
 
     public ProductEntity getProduct() {
@@ -1,5 +1,6 @@
 package com.radovan.play.filters;
 
+import com.radovan.play.security.JwtPrincipal;
 import com.radovan.play.security.SecurityAttrs;
 import com.radovan.play.utils.JwtUtil;
 import com.typesafe.config.Config;
@@ -12,7 +13,6 @@ import play.mvc.Http;
 import play.mvc.Result;
 import play.mvc.Results;
 
-import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -51,39 +51,21 @@ public class SecurityFilter extends Filter {
             return unauthorizedResponse("Missing authorization token");
         }
 
-        // 3. Verifikuj token i ekstrahuj podatke
-        return jwtUtil.validateToken(token.get())
-                .thenCompose(isValid -> {
-                    if (!isValid) {
+        // 3. Jedna provera potpisa, postojeći zahtev dobija samo atribute
+        return jwtUtil.verify(token.get())
+                .thenCompose(principalOpt -> {
+                    if (principalOpt.isEmpty()) {
                         return unauthorizedResponse("Invalid token");
                     }
 
-                    return jwtUtil.extractRoles(token.get())
-                            .thenCompose(rolesOpt -> jwtUtil.extractUsername(token.get())
-                                    .thenCompose(userIdOpt -> {
-                                        if (userIdOpt.isEmpty()) {
-                                            return unauthorizedResponse("Invalid user in token");
-                                        }
-
-                                        List<String> roles = rolesOpt.orElse(Collections.emptyList());
-                                        String userId = userIdOpt.get();
-
-                                        // 4. Kreiraj novi Request sa atributima
-                                        Http.Request newRequest = new Http.RequestBuilder()
-                                                .uri(requestHeader.uri())
-                                                .method(requestHeader.method())
-                                                .remoteAddress(requestHeader.remoteAddress())
-                                                .headers(requestHeader.headers())
-                                                .attrs(
-                                                        requestHeader.attrs()
-                                                                .put(SecurityAttrs.ROLES, roles)
-                                                                .put(SecurityAttrs.USER_ID, userId)
-                                                )
-                                                .build();
-
-                                        return next.apply(newRequest);
-                                    })
-                            );
+                    JwtPrincipal principal = principalOpt.get();
+                    if (principal.subject() == null) {
+                        return unauthorizedResponse("Invalid user in token");
+                    }
+
+                    return next.apply(requestHeader
+                            .addAttr(SecurityAttrs.ROLES, principal.roles())
+                            .addAttr(SecurityAttrs.USER_ID, principal.subject()));
                 });
     }
 
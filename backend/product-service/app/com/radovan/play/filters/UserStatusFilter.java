@@ -1,55 +1,40 @@
 package com.radovan.play.filters;
 
-import com.radovan.play.utils.ServiceUrlProvider;
+import com.radovan.play.security.SecurityAttrs;
+import com.radovan.play.utils.SuspendedUserRegistry;
 import jakarta.inject.Inject;
 import org.apache.pekko.stream.Materializer;
-import play.libs.ws.WSClient;
 import play.mvc.Filter;
 import play.mvc.Http;
 import play.mvc.Result;
 import play.mvc.Results;
 
-
-import java.util.concurrent.CompletionStage;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.function.Function;
 
 public class UserStatusFilter extends Filter {
 
-    private final WSClient wsClient;
-    private final ServiceUrlProvider urlProvider;
+    private final SuspendedUserRegistry suspendedUserRegistry;
 
     @Inject
-    public UserStatusFilter(Materializer mat, WSClient wsClient, ServiceUrlProvider urlProvider) {
+    public UserStatusFilter(Materializer mat, SuspendedUserRegistry suspendedUserRegistry) {
         super(mat);
-        this.wsClient = wsClient;
-        this.urlProvider = urlProvider;
+        this.suspendedUserRegistry = suspendedUserRegistry;
     }
 
+    // SecurityFilter je već postavio USER_ID, provera je samo pretraga lokalnog skupa
     @Override
     public CompletionStage<Result> apply(Function<Http.RequestHeader, CompletionStage<Result>> nextFilter, Http.RequestHeader request) {
 
-        String authToken = request.headers().get("Authorization").orElse(null);
+        Optional<String> userId = request.attrs().getOptional(SecurityAttrs.USER_ID);
 
-        if (authToken == null || !authToken.startsWith("Bearer ")) {
-            return nextFilter.apply(request);
+        if (userId.isPresent() && suspendedUserRegistry.isSuspended(userId.get())) {
+            return CompletableFuture.completedFuture(Results.status(451, "Account access restricted"));
         }
 
-        return wsClient.url(urlProvider.getAuthServiceUrl() + "/api/auth/me")
-                .addHeader("Authorization", authToken)
-                .get()
-                .thenCompose(response -> {
-                    String responseBody = response.getBody();
-
-                    if (response.getStatus() == 451 || responseBody.contains("Account suspended")) {
-                        return CompletableFuture.completedFuture(Results.status(451, "Account access restricted"));
-                    }
-
-                    return nextFilter.apply(request);
-                })
-                .exceptionally(ex -> {
-                    return (Result) nextFilter.apply(request);
-                });
+        return nextFilter.apply(request);
     }
 
 
@@ -23,9 +23,12 @@ import com.radovan.play.services.impl.ProductImageServiceImpl;
 import com.radovan.play.services.impl.ProductServiceImpl;
 import com.radovan.play.services.impl.PrometheusServiceImpl;
 import com.radovan.play.utils.JwtUtil;
+import com.radovan.play.utils.K8sServicePortResolver;
 import com.radovan.play.utils.NatsUtils;
 import com.radovan.play.utils.PublicKeyCache;
 import com.radovan.play.utils.ServiceUrlProvider;
+import com.radovan.play.utils.SuspendedUserRegistry;
+import com.radovan.play.utils.VerifiedTokenCache;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.prometheusmetrics.PrometheusConfig;
 import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
@@ -52,6 +55,9 @@ public class AutoBindModule extends AbstractModule {
         bind(JwtUtil.class).asEagerSingleton();
         bind(NatsUtils.class).asEagerSingleton();
         bind(PublicKeyCache.class).asEagerSingleton();
+        bind(VerifiedTokenCache.class).asEagerSingleton();
+        bind(SuspendedUserRegistry.class).asEagerSingleton();
+        bind(K8sServicePortResolver.class).asEagerSingleton();
         bind(ServiceUrlProvider.class).asEagerSingleton();
 
         // Bind NATS components
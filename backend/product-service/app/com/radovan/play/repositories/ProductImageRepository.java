@@ -1,8 +1,12 @@
 package com.radovan.play.repositories;
 
+import com.radovan.play.dto.ProductImageDto;
 import com.radovan.play.entity.ProductImageEntity;
 
+import java.io.InputStream;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public interface ProductImageRepository {
@@ -16,4 +20,12 @@ public interface ProductImageRepository {
     void deleteById(Integer imageId);
 
     Optional<ProductImageEntity> findById(Integer imageId);
+
+    ProductImageEntity saveWithData(ProductImageEntity imageEntity, Path dataFile);
+
+    Optional<ProductImageDto> findMetadataByProductId(Integer productId);
+
+    Optional<InputStream> openDataStream(Integer imageId);
+
+    Map<Integer, byte[]> readAllData();
 }
@@ -1,8 +1,11 @@
 package com.radovan.play.repositories;
 
+import com.radovan.play.dto.ProductSummaryDto;
+import com.radovan.play.dto.StockReservationDto;
 import com.radovan.play.entity.ProductEntity;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public interface ProductRepository {
@@ -16,4 +19,10 @@ public interface ProductRepository {
     List<ProductEntity> listAllByCategoryId(Integer categoryId);
 
     List<ProductEntity> listAll();
+
+    List<ProductSummaryDto> listSummaries(Integer afterId, Integer limit, Integer categoryId);
+
+    List<StockReservationDto> reserveStock(Map<Integer, Integer> quantities);
+
+    boolean decrementStock(Integer productId, Integer quantity);
 }
@@ -1,10 +1,13 @@
 package com.radovan.play.repositories.impl;
 
+import com.radovan.play.dto.ProductImageDto;
+import com.radovan.play.entity.ProductImageDataEntity;
 import com.radovan.play.entity.ProductImageEntity;
 import com.radovan.play.repositories.ProductImageRepository;
 import com.radovan.play.services.PrometheusService;
 import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
+import jakarta.persistence.Tuple;
 import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.CriteriaDelete;
 import jakarta.persistence.criteria.CriteriaQuery;
@@ -13,9 +16,22 @@ import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hibernate.Transaction;
 
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Blob;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Singleton
 public class ProductImageRepositoryImpl implements ProductImageRepository {
@@ -109,4 +125,138 @@ public class ProductImageRepositoryImpl implements ProductImageRepository {
             return results.isEmpty() ? Optional.empty() : Optional.of(results.get(0));
         });
     }
+
+    @Override
+    public ProductImageEntity saveWithData(ProductImageEntity imageEntity, Path dataFile) {
+        return withSession(session -> {
+            ProductImageEntity storedImage;
+            if (imageEntity.getId() == null) {
+                session.persist(imageEntity);
+                storedImage = imageEntity;
+            } else {
+                storedImage = session.merge(imageEntity);
+            }
+            session.flush();
+
+            // The upload is copied from the temporary file into the large object in chunks, never as a whole array
+            session.doWork(connection -> {
+                try (InputStream data = Files.newInputStream(dataFile);
+                     PreparedStatement statement = connection.prepareStatement("UPDATE product_images SET data = ? WHERE id = ?")) {
+                    statement.setBlob(1, data, Files.size(dataFile));
+                    statement.setInt(2, storedImage.getId());
+                    statement.executeUpdate();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            return storedImage;
+        });
+    }
+
+    @Override
+    public Optional<ProductImageDto> findMetadataByProductId(Integer productId) {
+        return withSession(session -> {
+            CriteriaBuilder cb = session.getCriteriaBuilder();
+            CriteriaQuery<Tuple> query = cb.createTupleQuery();
+            Root<ProductImageEntity> root = query.from(ProductImageEntity.class);
+            query.multiselect(
+                    root.get("id"),
+                    root.get("name"),
+                    root.get("contentType"),
+                    root.get("size"),
+                    root.get("lastModified"));
+            query.where(cb.equal(root.get("product").get("productId"), productId));
+
+            List<Tuple> results = session.createQuery(query).getResultList();
+            if (results.isEmpty()) {
+                return Optional.empty();
+            }
+
+            Tuple row = results.get(0);
+            ProductImageDto image = new ProductImageDto();
+            image.setId(row.get(0, Integer.class));
+            image.setName(row.get(1, String.class));
+            image.setContentType(row.get(2, String.class));
+            image.setSize(row.get(3, Long.class));
+            image.setLastModified(row.get(4, Timestamp.class));
+            image.setProductId(productId);
+            return Optional.of(image);
+        });
+    }
+
+    @Override
+    public Optional<InputStream> openDataStream(Integer imageId) {
+        prometheusService.updateDatabaseQueryCount();
+
+        // The session stays open until the caller closes the stream, large objects can only be read inside a transaction
+        Session session = sessionFactory.openSession();
+        Transaction tx = session.beginTransaction();
+        try {
+            Blob blob = session.doReturningWork(connection -> {
+                try (PreparedStatement statement = connection.prepareStatement("SELECT data FROM product_images WHERE id = ?")) {
+                    statement.setInt(1, imageId);
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        return resultSet.next() ? resultSet.getBlob(1) : null;
+                    }
+                }
+            });
+
+            if (blob == null) {
+                tx.commit();
+                session.close();
+                return Optional.empty();
+            }
+
+            return Optional.of(new SessionBoundInputStream(blob.getBinaryStream(), session, tx));
+        } catch (SQLException | RuntimeException e) {
+            tx.rollback();
+            session.close();
+            throw e instanceof RuntimeException runtimeException ? runtimeException : new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public Map<Integer, byte[]> readAllData() {
+        return withSession(session -> {
+            CriteriaBuilder cb = session.getCriteriaBuilder();
+            CriteriaQuery<ProductImageDataEntity> query = cb.createQuery(ProductImageDataEntity.class);
+            Root<ProductImageDataEntity> root = query.from(ProductImageDataEntity.class);
+            query.where(cb.isNotNull(root.get("data")));
+            return session.createQuery(query).getResultList().stream()
+                    .collect(Collectors.toMap(ProductImageDataEntity::getId, ProductImageDataEntity::getData));
+        });
+    }
+
+    // Ends the read transaction and releases the connection once the blob has been consumed
+    private static final class SessionBoundInputStream extends FilterInputStream {
+
+        private final Session session;
+        private final Transaction tx;
+        private boolean closed;
+
+        private SessionBoundInputStream(InputStream in, Session session, Transaction tx) {
+            super(in);
+            this.session = session;
+            this.tx = tx;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                super.close();
+            } finally {
+                try {
+                    if (tx.isActive()) {
+                        tx.commit();
+                    }
+                } finally {
+                    session.close();
+                }
+            }
+        }
+    }
 }
@@ -1,20 +1,31 @@
 package com.radovan.play.repositories.impl;
 
+import com.radovan.play.dto.ProductSummaryDto;
+import com.radovan.play.dto.StockReservationDto;
 import com.radovan.play.entity.ProductEntity;
+import com.radovan.play.entity.ProductImageEntity;
 import com.radovan.play.repositories.ProductRepository;
 import com.radovan.play.services.PrometheusService;
 import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
+import jakarta.persistence.LockModeType;
 import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
 import jakarta.persistence.criteria.Root;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hibernate.Transaction;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Singleton
 public class ProductRepositoryImpl implements ProductRepository {
@@ -55,6 +66,46 @@ public class ProductRepositoryImpl implements ProductRepository {
         });
     }
 
+    @Override
+    public List<ProductSummaryDto> listSummaries(Integer afterId, Integer limit, Integer categoryId) {
+        return withSession(session -> {
+            CriteriaBuilder cb = session.getCriteriaBuilder();
+            CriteriaQuery<ProductSummaryDto> cq = cb.createQuery(ProductSummaryDto.class);
+            Root<ProductEntity> root = cq.from(ProductEntity.class);
+
+            // Only the image id is selected, the image bytes never leave the database
+            Join<ProductEntity, ProductImageEntity> image = root.join("image", JoinType.LEFT);
+
+            cq.select(cb.construct(ProductSummaryDto.class,
+                    root.get("productId"),
+                    root.get("productDescription"),
+                    root.get("productBrand"),
+                    root.get("productModel"),
+                    root.get("productName"),
+                    root.get("productPrice"),
+                    root.get("unitStock"),
+                    root.get("discount"),
+                    image.get("id"),
+                    root.get("productCategory").get("productCategoryId")));
+
+            List<Predicate> predicates = new ArrayList<>();
+            if (afterId != null) {
+                predicates.add(cb.greaterThan(root.get("productId"), afterId));
+            }
+            if (categoryId != null) {
+                predicates.add(cb.equal(root.get("productCategory").get("productCategoryId"), categoryId));
+            }
+            cq.where(predicates.toArray(new Predicate[0]));
+
+            // Keyset pagination, each page seeks past the last seen id instead of counting skipped rows
+            cq.orderBy(cb.asc(root.get("productId")));
+
+            return session.createQuery(cq)
+                    .setMaxResults(limit)
+                    .getResultList();
+        });
+    }
+
     @Override
     public ProductEntity save(ProductEntity productEntity) {
         return withSession(session -> {
@@ -108,4 +159,75 @@ public class ProductRepositoryImpl implements ProductRepository {
             return results.isEmpty() ? Optional.empty() : Optional.of(results.get(0));
         });
     }
+
+    @Override
+    public List<StockReservationDto> reserveStock(Map<Integer, Integer> quantities) {
+        return withSession(session -> {
+            CriteriaBuilder cb = session.getCriteriaBuilder();
+            CriteriaQuery<ProductEntity> cq = cb.createQuery(ProductEntity.class);
+            Root<ProductEntity> root = cq.from(ProductEntity.class);
+            cq.where(root.get("productId").in(quantities.keySet()));
+
+            // Lock rows in id order so concurrent checkouts cannot deadlock each other
+            cq.orderBy(cb.asc(root.get("productId")));
+            cq.select(root);
+
+            Map<Integer, ProductEntity> lockedProducts = session.createQuery(cq)
+                    .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                    .getResultList()
+                    .stream()
+                    .collect(Collectors.toMap(ProductEntity::getProductId, Function.identity()));
+
+            List<StockReservationDto> results = new ArrayList<>();
+            boolean allReserved = true;
+            for (Map.Entry<Integer, Integer> line : quantities.entrySet()) {
+                ProductEntity product = lockedProducts.get(line.getKey());
+                StockReservationDto result = new StockReservationDto();
+                result.setProductId(line.getKey());
+                result.setQuantity(line.getValue());
+
+                if (product == null) {
+                    result.setReserved(false);
+                    result.setUnitStock(0);
+                } else {
+                    result.setReserved(product.getUnitStock() >= line.getValue());
+                    result.setUnitStock(product.getUnitStock());
+                    result.setProductName(product.getProductName());
+                    result.setProductPrice(product.getProductPrice());
+                    result.setDiscount(product.getDiscount());
+                }
+
+                allReserved &= result.getReserved();
+                results.add(result);
+            }
+
+            // Stock is only touched when every line can be served, otherwise nothing changes
+            if (allReserved) {
+                for (StockReservationDto result : results) {
+                    ProductEntity product = lockedProducts.get(result.getProductId());
+                    product.setUnitStock(product.getUnitStock() - result.getQuantity());
+                    result.setUnitStock(product.getUnitStock());
+                }
+            }
+
+            return results;
+        });
+    }
+
+    @Override
+    public boolean decrementStock(Integer productId, Integer quantity) {
+        return withSession(session -> {
+            CriteriaBuilder cb = session.getCriteriaBuilder();
+            CriteriaUpdate<ProductEntity> update = cb.createCriteriaUpdate(ProductEntity.class);
+            Root<ProductEntity> root = update.from(ProductEntity.class);
+
+            // Single conditional UPDATE, the stock check and the write happen atomically in the database
+            update.set(root.<Integer>get("unitStock"), cb.diff(root.<Integer>get("unitStock"), quantity));
+            update.where(
+                    cb.equal(root.get("productId"), productId),
+                    cb.ge(root.<Integer>get("unitStock"), quantity)
+            );
+            return session.createQuery(update).executeUpdate() == 1;
+        });
+    }
 }
@@ -28,17 +28,18 @@ public class JwtAuthAction extends Action.Simple {
         token = token.substring(7); // 🏗 Uklanjamo "Bearer " prefix
 
 
-        return jwtUtil.extractUsername(token).thenCombine(jwtUtil.extractRoles(token), (userIdOpt, rolesOpt) -> {
+        // Filter je token već proverio, pa se principal ovde čita iz keša bez blokiranja niti
+        return jwtUtil.verify(token).thenCompose(principalOpt -> {
 
-            if (userIdOpt.isEmpty() || rolesOpt.isEmpty() || rolesOpt.get().isEmpty()) {
-                return unauthorized("Invalid token");
+            if (principalOpt.isEmpty() || principalOpt.get().subject() == null || principalOpt.get().roles().isEmpty()) {
+                return CompletableFuture.completedFuture(unauthorized("Invalid token"));
             }
 
-            // ✅ Kreiramo novu promenljivu jer `request` ne može biti direktno modifikovan u lambda izrazu
-            Http.Request updatedRequest = request.addAttr(SecurityAttrs.USER_ID, userIdOpt.get())
-                    .addAttr(SecurityAttrs.ROLES, rolesOpt.get());
+            JwtPrincipal principal = principalOpt.get();
+            Http.Request updatedRequest = request.addAttr(SecurityAttrs.USER_ID, principal.subject())
+                    .addAttr(SecurityAttrs.ROLES, principal.roles());
 
-            return delegate.call(updatedRequest).toCompletableFuture().join(); // ✅ Prosleđujemo izmenjen `request`
+            return delegate.call(updatedRequest); // ✅ Prosleđujemo izmenjen `request`
         });
     }
-}
\ No newline at end of file
+}
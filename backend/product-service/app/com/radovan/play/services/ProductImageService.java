@@ -2,6 +2,7 @@ package com.radovan.play.services;
 
 import com.radovan.play.dto.ProductImageDto;
 
+import java.io.InputStream;
 import java.util.List;
 
 public interface ProductImageService {
@@ -11,4 +12,8 @@ public interface ProductImageService {
     ProductImageDto addImage(play.mvc.Http.MultipartFormData.FilePart<play.libs.Files.TemporaryFile> file, Integer productId);
 
     List<ProductImageDto> listAll();
+
+    ProductImageDto getImageMetadata(Integer productId);
+
+    InputStream openImageData(Integer imageId);
 }
@@ -1,9 +1,12 @@
 package com.radovan.play.services;
 
 import com.radovan.play.dto.ProductDto;
+import com.radovan.play.dto.ProductPageDto;
+import com.radovan.play.dto.StockReservationDto;
 import play.mvc.Http;
 
 import java.util.List;
+import java.util.Map;
 
 public interface ProductService {
 
@@ -17,7 +20,13 @@ public interface ProductService {
 
     List<ProductDto> listAll();
 
+    ProductPageDto listPage(Integer afterId, Integer limit, Integer categoryId);
+
     List<ProductDto> listAllByCategoryId(Integer categoryId);
 
     void deleteProductsByCategoryId(Integer categoryId,String jwtToken);
+
+    List<StockReservationDto> reserveStock(Map<Integer, Integer> quantities);
+
+    Boolean decrementStock(Integer productId, Integer quantity);
 }
\ No newline at end of file
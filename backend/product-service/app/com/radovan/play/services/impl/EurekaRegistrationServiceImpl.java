@@ -48,7 +48,7 @@ public class EurekaRegistrationServiceImpl implements EurekaRegistrationService
             System.out.println("IP Address: " + ipAddr);
 
             String appName = "product-service";
-            String instanceId = appName + "-01";
+            String instanceId = appName + "-" + hostname; // Jedinstven po replici, inače se replike međusobno prepisuju
             int port = 9000;
 
             // Kreiranje podataka za registraciju
@@ -1,5 +1,6 @@
 package com.radovan.play.services.impl;
 
+import com.radovan.play.brokers.ProductNatsSender;
 import com.radovan.play.converter.TempConverter;
 import com.radovan.play.dto.ProductCategoryDto;
 import com.radovan.play.entity.ProductCategoryEntity;
@@ -19,16 +20,21 @@ import java.util.stream.Collectors;
 @Singleton
 public class ProductCategoryServiceImpl implements ProductCategoryService {
 
+    private static final String CATEGORIES_PATH = "/api/categories";
+    private static final String PRODUCTS_PATH = "/api/products";
+
     private Provider<TempConverter> tempConverterProvider;
     private Provider<ProductCategoryRepository> categoryRepositoryProvider;
     private Provider<ProductService> productServiceProvider;
+    private Provider<ProductNatsSender> productNatsSenderProvider;
 
     @Inject
     private void initialize(Provider<TempConverter> tempConverterProvider, Provider<ProductCategoryRepository> categoryRepositoryProvider,
-                            Provider<ProductService> productServiceProvider ) {
+                            Provider<ProductService> productServiceProvider, Provider<ProductNatsSender> productNatsSenderProvider) {
         this.tempConverterProvider = tempConverterProvider;
         this.categoryRepositoryProvider = categoryRepositoryProvider;
         this.productServiceProvider = productServiceProvider;
+        this.productNatsSenderProvider = productNatsSenderProvider;
     }
 
     @Override
@@ -39,6 +45,7 @@ public class ProductCategoryServiceImpl implements ProductCategoryService {
         }
         ProductCategoryEntity categoryEntity = tempConverterProvider.get().categoryDtoToEntity(category);
         ProductCategoryEntity storedCategory = categoryRepositoryProvider.get().save(categoryEntity);
+        productNatsSenderProvider.get().sendCacheInvalidation(CATEGORIES_PATH);
         return tempConverterProvider.get().categoryEntityToDto(storedCategory);
     }
 
@@ -61,6 +68,7 @@ public class ProductCategoryServiceImpl implements ProductCategoryService {
         category.setProductCategoryId(currentCategory.getProductCategoryId());
         ProductCategoryEntity updatedCategory = categoryRepositoryProvider.get()
                 .saveAndFlush(tempConverterProvider.get().categoryDtoToEntity(category));
+        productNatsSenderProvider.get().sendCacheInvalidation(CATEGORIES_PATH, PRODUCTS_PATH);
         return tempConverterProvider.get().categoryEntityToDto(updatedCategory);
     }
 
@@ -69,6 +77,7 @@ public class ProductCategoryServiceImpl implements ProductCategoryService {
         getCategoryById(categoryId);
         productServiceProvider.get().deleteProductsByCategoryId(categoryId,jwtToken);
         categoryRepositoryProvider.get().deleteById(categoryId);
+        productNatsSenderProvider.get().sendCacheInvalidation(CATEGORIES_PATH, PRODUCTS_PATH);
     }
 
     @Override
@@ -1,10 +1,12 @@
 package com.radovan.play.services.impl;
 
+import com.radovan.play.brokers.ProductNatsSender;
 import com.radovan.play.converter.TempConverter;
 import com.radovan.play.dto.ProductDto;
 import com.radovan.play.dto.ProductImageDto;
 import com.radovan.play.entity.ProductImageEntity;
 import com.radovan.play.exceptions.FileUploadException;
+import com.radovan.play.exceptions.InstanceUndefinedException;
 import com.radovan.play.repositories.ProductImageRepository;
 import com.radovan.play.services.ProductImageService;
 import com.radovan.play.services.ProductService;
@@ -13,9 +15,12 @@ import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
 
 
-import java.nio.file.Files;
+import java.io.InputStream;
 import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Instant;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -23,18 +28,22 @@ import java.util.stream.Collectors;
 @Singleton
 public class ProductImageServiceImpl implements ProductImageService {
 
+    private static final String PRODUCTS_PATH = "/api/products";
+
     private ProductImageRepository imageRepository;
     private ProductService productService;
     private TempConverter tempConverter;
     private FileValidator fileValidator;
+    private ProductNatsSender productNatsSender;
 
     @Inject
     private void initialize(ProductImageRepository imageRepository, ProductService productService,
-                                   TempConverter tempConverter, FileValidator fileValidator) {
+                                   TempConverter tempConverter, FileValidator fileValidator, ProductNatsSender productNatsSender) {
         this.imageRepository = imageRepository;
         this.productService = productService;
         this.tempConverter = tempConverter;
         this.fileValidator = fileValidator;
+        this.productNatsSender = productNatsSender;
     }
 
     @Override
@@ -50,17 +59,17 @@ public class ProductImageServiceImpl implements ProductImageService {
             image.setName(Objects.requireNonNull(file.getFilename()));
             image.setContentType(file.getContentType());
             image.setSize(file.getFileSize());
+            image.setLastModified(Timestamp.from(Instant.now()));
 
-            // Read file content as byte array using path() method
+            // Play has already spooled the upload to a temporary file, the repository streams it from there
             Path path = file.getRef().path();
-            byte[] fileData = Files.readAllBytes(path);
-            image.setData(fileData);
 
             Optional<Integer> imageIdOptional = Optional.ofNullable(product.getImageId());
             imageIdOptional.ifPresent(image::setId);
 
             ProductImageEntity imageEntity = tempConverter.productImageDtoToEntity(image);
-            ProductImageEntity storedImage = imageRepository.save(imageEntity);
+            ProductImageEntity storedImage = imageRepository.saveWithData(imageEntity, path);
+            productNatsSender.sendCacheInvalidation(PRODUCTS_PATH);
 
             return tempConverter.productImageEntityToDto(storedImage);
         } catch (Exception e) {
@@ -71,11 +80,30 @@ public class ProductImageServiceImpl implements ProductImageService {
     @Override
     public List<ProductImageDto> listAll() {
         List<ProductImageEntity> allImages = imageRepository.listAll();
-        return allImages.stream().map(tempConverter::productImageEntityToDto).collect(Collectors.toList());
+        // Entities no longer carry the bytes, this legacy listing reads them explicitly in one query
+        Map<Integer, byte[]> allData = imageRepository.readAllData();
+        return allImages.stream().map(imageEntity -> {
+            ProductImageDto image = tempConverter.productImageEntityToDto(imageEntity);
+            image.setData(allData.get(imageEntity.getId()));
+            return image;
+        }).collect(Collectors.toList());
+    }
+
+    @Override
+    public ProductImageDto getImageMetadata(Integer productId) {
+        return imageRepository.findMetadataByProductId(productId)
+                .orElseThrow(() -> new InstanceUndefinedException("The image has not been found!"));
+    }
+
+    @Override
+    public InputStream openImageData(Integer imageId) {
+        return imageRepository.openDataStream(imageId)
+                .orElseThrow(() -> new InstanceUndefinedException("The image has not been found!"));
     }
 
     @Override
     public void deleteImage(Integer imageId) {
         imageRepository.deleteById(imageId);
+        productNatsSender.sendCacheInvalidation(PRODUCTS_PATH);
     }
 }
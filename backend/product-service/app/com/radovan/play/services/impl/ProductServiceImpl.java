@@ -3,7 +3,11 @@ package com.radovan.play.services.impl;
 import com.radovan.play.brokers.ProductNatsSender;
 import com.radovan.play.converter.TempConverter;
 import com.radovan.play.dto.ProductDto;
+import com.radovan.play.dto.ProductPageDto;
+import com.radovan.play.dto.ProductSummaryDto;
+import com.radovan.play.dto.StockReservationDto;
 import com.radovan.play.entity.ProductEntity;
+import com.radovan.play.exceptions.DataNotValidatedException;
 import com.radovan.play.exceptions.InstanceUndefinedException;
 import com.radovan.play.repositories.ProductRepository;
 import com.radovan.play.services.ProductCategoryService;
@@ -12,11 +16,16 @@ import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
 
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Singleton
 public class ProductServiceImpl implements ProductService {
 
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final String PRODUCTS_PATH = "/api/products";
+
     private ProductRepository productRepository;
     private TempConverter tempConverter;
     private ProductCategoryService categoryService;
@@ -34,6 +43,7 @@ public class ProductServiceImpl implements ProductService {
     public ProductDto addProduct(ProductDto product) {
         categoryService.getCategoryById(product.getProductCategoryId());
         ProductEntity storedProduct = productRepository.save(tempConverter.productDtoToEntity(product));
+        productNatsSender.sendCacheInvalidation(PRODUCTS_PATH);
         return tempConverter.productEntityToDto(storedProduct);
     }
 
@@ -57,9 +67,14 @@ public class ProductServiceImpl implements ProductService {
         ProductEntity updatedProduct = productRepository.save(tempConverter.productDtoToEntity(product));
 
         // ✅ Šaljemo NATS poruku ka `cart-service` da ažurira sve CartItem-e povezane sa ovim proizvodom
-        //natsUtils.getConnection().publish("cart.updateAllByProductId." + productId, new byte[0]);
+        ProductDto storedProduct = tempConverter.productEntityToDto(updatedProduct);
+        if (!storedProduct.getProductPrice().equals(currentProduct.getProductPrice())
+                || !storedProduct.getDiscount().equals(currentProduct.getDiscount())) {
+            productNatsSender.sendCartUpdateRequest(productId, storedProduct.getProductPrice(), storedProduct.getDiscount(), jwtToken);
+        }
+        productNatsSender.sendCacheInvalidation(PRODUCTS_PATH);
 
-        return tempConverter.productEntityToDto(updatedProduct);
+        return storedProduct;
     }
 
 
@@ -71,6 +86,7 @@ public class ProductServiceImpl implements ProductService {
         //natsUtils.getConnection().publish("cart.removeAllByProductId." + productId, new byte[0]);
         productNatsSender.sendCartDeleteRequest(productId,jwtToken);
         productRepository.deleteById(productId);
+        productNatsSender.sendCacheInvalidation(PRODUCTS_PATH);
     }
 
 
@@ -82,6 +98,24 @@ public class ProductServiceImpl implements ProductService {
         return allProducts.stream().map(tempConverter::productEntityToDto).collect(Collectors.toList());
     }
 
+    @Override
+    public ProductPageDto listPage(Integer afterId, Integer limit, Integer categoryId) {
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : limit;
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new DataNotValidatedException("The limit must be between 1 and " + MAX_PAGE_SIZE + "!");
+        }
+
+        // One extra row tells us whether another page exists without a count query
+        List<ProductSummaryDto> rows = productRepository.listSummaries(afterId, pageSize + 1, categoryId);
+        boolean hasMore = rows.size() > pageSize;
+        List<ProductSummaryDto> items = hasMore ? rows.subList(0, pageSize) : rows;
+
+        ProductPageDto page = new ProductPageDto();
+        page.setItems(items);
+        page.setNextCursor(hasMore ? items.get(items.size() - 1).getProductId() : null);
+        return page;
+    }
+
     @Override
     public List<ProductDto> listAllByCategoryId(Integer categoryId) {
         List<ProductEntity> allProducts = productRepository.listAllByCategoryId(categoryId);
@@ -93,4 +127,37 @@ public class ProductServiceImpl implements ProductService {
         List<ProductDto> allProducts = listAllByCategoryId(categoryId);
         allProducts.forEach((product) -> deleteProduct(product.getProductId(),jwtToken));
     }
+
+    @Override
+    public List<StockReservationDto> reserveStock(Map<Integer, Integer> quantities) {
+        if (quantities.isEmpty()) {
+            return List.of();
+        }
+        // Cela rezervacija se odbija ako bilo koja stavka nije ispravna, kao kod decrementStock
+        quantities.forEach((productId, quantity) -> {
+            if (quantity == null || quantity < 1) {
+                throw new DataNotValidatedException("The quantity must be at least 1!");
+            }
+        });
+        List<StockReservationDto> reservations = productRepository.reserveStock(quantities);
+        // Briše se samo keš rezervisanih proizvoda, liste kataloga osvežava TTL gateway keša
+        if (reservations.stream().allMatch(StockReservationDto::getReserved)) {
+            productNatsSender.sendCacheInvalidation(reservations.stream()
+                    .map(reservation -> PRODUCTS_PATH + "/" + reservation.getProductId())
+                    .toArray(String[]::new));
+        }
+        return reservations;
+    }
+
+    @Override
+    public Boolean decrementStock(Integer productId, Integer quantity) {
+        if (quantity == null || quantity < 1) {
+            throw new DataNotValidatedException("The quantity must be at least 1!");
+        }
+        Boolean decremented = productRepository.decrementStock(productId, quantity);
+        if (Boolean.TRUE.equals(decremented)) {
+            productNatsSender.sendCacheInvalidation(PRODUCTS_PATH + "/" + productId);
+        }
+        return decremented;
+    }
 }
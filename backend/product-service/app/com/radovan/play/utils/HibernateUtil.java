@@ -50,6 +50,7 @@ public class HibernateUtil {
             // ➕ Dodaj sve entity klase
             configuration.addAnnotatedClass(com.radovan.play.entity.ProductCategoryEntity.class);
             configuration.addAnnotatedClass(com.radovan.play.entity.ProductImageEntity.class);
+            configuration.addAnnotatedClass(com.radovan.play.entity.ProductImageDataEntity.class);
             configuration.addAnnotatedClass(com.radovan.play.entity.ProductEntity.class);
             // Dodaj još po potrebi...
 
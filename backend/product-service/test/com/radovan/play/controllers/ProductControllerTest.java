@@ -0,0 +1,105 @@
+package com.radovan.play.controllers;
+
+import com.radovan.play.dto.ProductImageDto;
+import com.radovan.play.services.ProductImageService;
+import org.junit.Before;
+import org.junit.Test;
+import play.mvc.Http;
+import play.mvc.Result;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+// Uslovni zahtevi za sliku se rešavaju samo iz metapodataka, sadržaj se ne otvara
+public class ProductControllerTest {
+
+    private static final Instant LAST_MODIFIED = Instant.parse("2026-03-01T10:15:30Z");
+    private static final String ETAG = "\"4-2048-" + LAST_MODIFIED.getEpochSecond() + "\"";
+
+    private final List<String> imageServiceCalls = new ArrayList<>();
+    private ProductController controller;
+
+    @Before
+    public void setUp() throws Exception {
+        ProductImageDto image = new ProductImageDto();
+        image.setId(4);
+        image.setProductId(1);
+        image.setSize(2048L);
+        image.setContentType("image/png");
+        image.setLastModified(Timestamp.from(LAST_MODIFIED.plusMillis(250)));
+
+        ProductImageService imageService = (ProductImageService) Proxy.newProxyInstance(
+                ProductImageService.class.getClassLoader(), new Class<?>[]{ProductImageService.class}, (proxy, method, args) -> {
+                    imageServiceCalls.add(method.getName());
+                    return method.getName().equals("getImageMetadata") ? image : null;
+                });
+        controller = new ProductController();
+        initialize(controller, null, imageService, null);
+    }
+
+    @Test
+    public void matchingEtagAnswersNotModified() {
+        Result result = controller.getProductImage(request(Http.HeaderNames.IF_NONE_MATCH, "\"other\", W/" + ETAG), 1);
+
+        assertEquals(Http.Status.NOT_MODIFIED, result.status());
+        assertEquals(Optional.of(ETAG), result.header(Http.HeaderNames.ETAG));
+        assertEquals(List.of("getImageMetadata"), imageServiceCalls);
+    }
+
+    @Test
+    public void unchangedSinceLastModifiedAnswersNotModified() {
+        Result result = controller.getProductImage(request(Http.HeaderNames.IF_MODIFIED_SINCE, "Sun, 1 Mar 2026 10:15:30 GMT"), 1);
+
+        assertEquals(Http.Status.NOT_MODIFIED, result.status());
+        assertEquals(Optional.of("Sun, 1 Mar 2026 10:15:30 GMT"), result.header(Http.HeaderNames.LAST_MODIFIED));
+    }
+
+    @Test
+    public void staleEtagWinsOverLastModified() {
+        Http.Request request = new Http.RequestBuilder()
+                .header(Http.HeaderNames.IF_NONE_MATCH, "\"other\"")
+                .header(Http.HeaderNames.IF_MODIFIED_SINCE, "Sun, 1 Mar 2026 10:15:30 GMT")
+                .build();
+
+        Result result = controller.getProductImage(request, 1);
+
+        assertEquals(Http.Status.OK, result.status());
+    }
+
+    @Test
+    public void changedImageIsStreamedWithItsLengthAndType() {
+        Result result = controller.getProductImage(request(Http.HeaderNames.IF_MODIFIED_SINCE, "Sat, 28 Feb 2026 10:15:30 GMT"), 1);
+
+        assertEquals(Http.Status.OK, result.status());
+        assertEquals(Optional.of(2048L), result.body().contentLength());
+        assertEquals(Optional.of("image/png"), result.contentType());
+        assertEquals(Optional.of(ETAG), result.header(Http.HeaderNames.ETAG));
+        assertTrue(result.header(Http.HeaderNames.CACHE_CONTROL).orElseThrow().contains("no-cache"));
+        // Sadržaj se otvara tek kada Play počne da šalje telo odgovora
+        assertEquals(List.of("getImageMetadata"), imageServiceCalls);
+    }
+
+    private static Http.Request request(String header, String value) {
+        return new Http.RequestBuilder().header(header, value).build();
+    }
+
+    // Zavisnosti se ubacuju kroz privatni @Inject initialize, kao što to radi Guice
+    private static void initialize(Object target, Object... dependencies) throws Exception {
+        for (Method method : target.getClass().getDeclaredMethods()) {
+            if (method.getName().equals("initialize") && method.getParameterCount() == dependencies.length) {
+                method.setAccessible(true);
+                method.invoke(target, dependencies);
+                return;
+            }
+        }
+        throw new IllegalArgumentException("No initialize method on " + target.getClass());
+    }
+}
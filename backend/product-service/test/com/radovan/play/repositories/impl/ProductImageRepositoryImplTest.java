@@ -0,0 +1,229 @@
+package com.radovan.play.repositories.impl;
+
+import com.radovan.play.converter.TempConverter;
+import com.radovan.play.dto.ProductDto;
+import com.radovan.play.dto.ProductImageDto;
+import com.radovan.play.entity.ProductCategoryEntity;
+import com.radovan.play.entity.ProductEntity;
+import com.radovan.play.entity.ProductImageDataEntity;
+import com.radovan.play.entity.ProductImageEntity;
+import com.radovan.play.modules.MapperModule;
+import com.radovan.play.services.PrometheusService;
+import com.radovan.play.services.impl.ProductImageServiceImpl;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.hibernate.stat.Statistics;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+// Slike se čitaju preko prave Hibernate mape nad H2 bazom, konverzija ide van sesije kao u servisima
+public class ProductImageRepositoryImplTest {
+
+    private static final byte[] IMAGE_BYTES = "image-bytes".getBytes();
+
+    private final List<String> executedSql = new CopyOnWriteArrayList<>();
+    private SessionFactory sessionFactory;
+    private ProductRepositoryImpl productRepository;
+    private ProductImageRepositoryImpl imageRepository;
+    private TempConverter tempConverter;
+    private Integer productId;
+    private Integer imageId;
+
+    @Before
+    public void setUp() throws Exception {
+        Configuration configuration = new Configuration();
+        configuration.setProperty("hibernate.connection.url", "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        configuration.setProperty("hibernate.hbm2ddl.auto", "create-drop");
+        configuration.setProperty("hibernate.generate_statistics", "true");
+        configuration.setProperty("hibernate.session.events.log", "false");
+        configuration.getProperties().put("hibernate.session_factory.statement_inspector",
+                (StatementInspector) sql -> {
+                    executedSql.add(sql);
+                    return sql;
+                });
+        configuration.addAnnotatedClass(ProductCategoryEntity.class);
+        configuration.addAnnotatedClass(ProductImageEntity.class);
+        configuration.addAnnotatedClass(ProductImageDataEntity.class);
+        configuration.addAnnotatedClass(ProductEntity.class);
+        sessionFactory = configuration.buildSessionFactory();
+
+        PrometheusService prometheusService = (PrometheusService) Proxy.newProxyInstance(
+                PrometheusService.class.getClassLoader(), new Class<?>[]{PrometheusService.class}, (proxy, method, args) -> null);
+        productRepository = new ProductRepositoryImpl();
+        initialize(productRepository, sessionFactory, prometheusService);
+        imageRepository = new ProductImageRepositoryImpl();
+        initialize(imageRepository, sessionFactory, prometheusService);
+        tempConverter = new TempConverter();
+        initialize(tempConverter, new MapperModule().getMapper(), imageRepository, null, productRepository);
+
+        storeProductWithImage();
+    }
+
+    @After
+    public void tearDown() {
+        sessionFactory.close();
+    }
+
+    @Test
+    public void productLookupDoesNotReadImageBytes() {
+        executedSql.clear();
+
+        ProductDto product = tempConverter.productEntityToDto(productRepository.findById(productId).orElseThrow());
+
+        assertEquals(imageId, product.getImageId());
+        assertFalse(executedSql.toString(), executedSql.stream().anyMatch(sql -> sql.contains(".data")));
+    }
+
+    @Test
+    public void imageListingIsConvertedOutsideTheSession() throws Exception {
+        ProductImageServiceImpl imageService = new ProductImageServiceImpl();
+        initialize(imageService, imageRepository, null, tempConverter, null, null);
+
+        List<ProductImageDto> images = imageService.listAll();
+
+        assertEquals(1, images.size());
+        assertEquals(productId, images.get(0).getProductId());
+        assertArrayEquals(IMAGE_BYTES, images.get(0).getData());
+    }
+
+    @Test
+    public void replacedImageIsConvertedOutsideTheSession() throws Exception {
+        ProductImageDto image = new ProductImageDto();
+        image.setId(imageId);
+        image.setProductId(productId);
+        image.setName("replaced.png");
+        image.setContentType("image/png");
+        image.setSize((long) IMAGE_BYTES.length);
+        image.setLastModified(Timestamp.from(Instant.now()));
+
+        Path upload = Files.createTempFile("product-image", ".png");
+        try {
+            Files.write(upload, IMAGE_BYTES);
+            ProductImageEntity storedImage = imageRepository.saveWithData(tempConverter.productImageDtoToEntity(image), upload);
+
+            assertEquals(productId, tempConverter.productImageEntityToDto(storedImage).getProductId());
+        } finally {
+            Files.delete(upload);
+        }
+    }
+
+    @Test
+    public void imageLookupsAreConvertedOutsideTheSession() {
+        assertEquals(productId, tempConverter.productImageEntityToDto(imageRepository.findById(imageId).orElseThrow()).getProductId());
+        assertEquals(productId, tempConverter.productImageEntityToDto(imageRepository.findByProductId(productId).orElseThrow()).getProductId());
+    }
+
+    @Test
+    public void dataStreamReturnsStoredBytesAndReleasesTheSessionOnClose() throws Exception {
+        Statistics statistics = sessionFactory.getStatistics();
+        statistics.clear();
+
+        try (InputStream data = imageRepository.openDataStream(imageId).orElseThrow()) {
+            assertArrayEquals(IMAGE_BYTES, data.readAllBytes());
+            assertEquals(1, statistics.getSessionOpenCount() - statistics.getSessionCloseCount());
+        }
+
+        assertEquals(statistics.getSessionOpenCount(), statistics.getSessionCloseCount());
+    }
+
+    @Test
+    public void missingImageHasNoStreamAndNoOpenSession() {
+        Statistics statistics = sessionFactory.getStatistics();
+        statistics.clear();
+
+        assertTrue(imageRepository.openDataStream(imageId + 1000).isEmpty());
+        assertEquals(statistics.getSessionOpenCount(), statistics.getSessionCloseCount());
+    }
+
+    @Test
+    public void metadataLookupDoesNotReadImageBytes() {
+        executedSql.clear();
+
+        ProductImageDto metadata = imageRepository.findMetadataByProductId(productId).orElseThrow();
+
+        assertEquals(imageId, metadata.getId());
+        assertEquals(Long.valueOf(IMAGE_BYTES.length), metadata.getSize());
+        assertEquals("image/png", metadata.getContentType());
+        assertFalse(executedSql.toString(), executedSql.stream().anyMatch(sql -> sql.contains("data")));
+    }
+
+    private void storeProductWithImage() throws Exception {
+        ProductCategoryEntity category = new ProductCategoryEntity();
+        category.setName("Phones");
+
+        ProductEntity product = new ProductEntity();
+        product.setProductName("Phone");
+        product.setProductDescription("Phone description");
+        product.setProductBrand("Brand");
+        product.setProductModel("Model");
+        product.setProductPrice(199.99f);
+        product.setUnitStock(10);
+        product.setDiscount(0f);
+        product.setProductCategory(category);
+
+        ProductImageEntity image = new ProductImageEntity();
+        image.setName("phone.png");
+        image.setContentType("image/png");
+        image.setSize((long) IMAGE_BYTES.length);
+        image.setLastModified(Timestamp.from(Instant.now()));
+        image.setProduct(product);
+
+        inTransaction(session -> {
+            session.persist(category);
+            session.persist(product);
+            return null;
+        });
+
+        Path upload = Files.createTempFile("product-image", ".png");
+        try {
+            Files.write(upload, IMAGE_BYTES);
+            imageRepository.saveWithData(image, upload);
+        } finally {
+            Files.delete(upload);
+        }
+        productId = product.getProductId();
+        imageId = image.getId();
+    }
+
+    private <T> T inTransaction(Function<Session, T> work) {
+        try (Session session = sessionFactory.openSession()) {
+            Transaction tx = session.beginTransaction();
+            T result = work.apply(session);
+            tx.commit();
+            return result;
+        }
+    }
+
+    // Zavisnosti se ubacuju kroz privatni @Inject initialize, kao što to radi Guice
+    private static void initialize(Object target, Object... dependencies) throws Exception {
+        for (Method method : target.getClass().getDeclaredMethods()) {
+            if (method.getName().equals("initialize") && method.getParameterCount() == dependencies.length) {
+                method.setAccessible(true);
+                method.invoke(target, dependencies);
+                return;
+            }
+        }
+        throw new IllegalArgumentException("No initialize method on " + target.getClass());
+    }
+}
@@ -0,0 +1,342 @@
+package com.radovan.play.repositories.impl;
+
+import com.radovan.play.converter.TempConverter;
+import com.radovan.play.dto.ProductDto;
+import com.radovan.play.entity.ProductCategoryEntity;
+import com.radovan.play.entity.ProductEntity;
+import com.radovan.play.entity.ProductImageDataEntity;
+import com.radovan.play.entity.ProductImageEntity;
+import com.radovan.play.modules.MapperModule;
+import com.radovan.play.services.PrometheusService;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.Lob;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.OneToOne;
+import jakarta.persistence.Table;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.cfg.Configuration;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.text.DecimalFormat;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Obrada product.get (findById + productEntityToDto) za proizvod sa jednom slikom, nad H2 bazom u memoriji.
+// "baseline" je mapiranje pre izmene: @Lob data na ProductImageEntity i EAGER product, pa svako čitanje
+// proizvoda učitava i bajtove slike. "current" koristi stvarne entitete, ProductRepositoryImpl i TempConverter.
+// Sa -prof gc alokacija po pozivu je u gc.alloc.rate.norm.
+// Pokretanje: sbt "Test/runMain org.openjdk.jmh.Main ProductLookupBenchmark -prof gc"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductLookupBenchmark {
+
+    @Param({"102400", "1048576"})
+    private int imageBytes;
+
+    private SessionFactory baselineSessionFactory;
+    private SessionFactory currentSessionFactory;
+    private ProductRepositoryImpl productRepository;
+    private TempConverter tempConverter;
+    private ModelMapper mapper;
+    private final DecimalFormat decfor = new DecimalFormat("0.00");
+    private Integer baselineProductId;
+    private Integer currentProductId;
+
+    @Setup
+    public void setUp() throws Exception {
+        byte[] data = new byte[imageBytes];
+        ThreadLocalRandom.current().nextBytes(data);
+        PrometheusService prometheusService = (PrometheusService) Proxy.newProxyInstance(
+                PrometheusService.class.getClassLoader(), new Class<?>[]{PrometheusService.class}, (proxy, method, args) -> null);
+        mapper = new MapperModule().getMapper();
+
+        baselineSessionFactory = sessionFactory(ProductCategoryEntity.class, BaselineProductEntity.class, BaselineProductImageEntity.class);
+        baselineProductId = storeBaselineProduct(data);
+
+        currentSessionFactory = sessionFactory(ProductCategoryEntity.class, ProductEntity.class, ProductImageEntity.class, ProductImageDataEntity.class);
+        productRepository = new ProductRepositoryImpl();
+        initialize(productRepository, currentSessionFactory, prometheusService);
+        ProductImageRepositoryImpl imageRepository = new ProductImageRepositoryImpl();
+        initialize(imageRepository, currentSessionFactory, prometheusService);
+        tempConverter = new TempConverter();
+        initialize(tempConverter, mapper, imageRepository, null, productRepository);
+        currentProductId = storeCurrentProduct(imageRepository, data);
+    }
+
+    @TearDown
+    public void tearDown() {
+        baselineSessionFactory.close();
+        currentSessionFactory.close();
+    }
+
+    @Benchmark
+    public ProductDto baseline() {
+        BaselineProductEntity product;
+        try (Session session = baselineSessionFactory.openSession()) {
+            Transaction tx = session.beginTransaction();
+            CriteriaBuilder cb = session.getCriteriaBuilder();
+            CriteriaQuery<BaselineProductEntity> cq = cb.createQuery(BaselineProductEntity.class);
+            Root<BaselineProductEntity> root = cq.from(BaselineProductEntity.class);
+            cq.where(cb.equal(root.get("productId"), baselineProductId));
+            List<BaselineProductEntity> results = session.createQuery(cq).getResultList();
+            tx.commit();
+            product = results.get(0);
+        }
+
+        // Isto što TempConverter.productEntityToDto radi sa proizvodom
+        ProductDto returnValue = mapper.map(product, ProductDto.class);
+        returnValue.setProductPrice(Float.valueOf(decfor.format(returnValue.getProductPrice())));
+        returnValue.setDiscount(Float.valueOf(decfor.format(returnValue.getDiscount())));
+        if (product.getImage() != null) {
+            returnValue.setImageId(product.getImage().getId());
+        }
+        returnValue.setProductCategoryId(product.getProductCategory().getProductCategoryId());
+        return returnValue;
+    }
+
+    @Benchmark
+    public ProductDto current() {
+        return tempConverter.productEntityToDto(productRepository.findById(currentProductId).orElseThrow());
+    }
+
+    private Integer storeBaselineProduct(byte[] data) {
+        ProductCategoryEntity category = category();
+        BaselineProductEntity product = new BaselineProductEntity();
+        fill(product);
+        product.productCategory = category;
+        BaselineProductImageEntity image = new BaselineProductImageEntity();
+        image.name = "phone.png";
+        image.contentType = "image/png";
+        image.size = (long) data.length;
+        image.lastModified = Timestamp.from(Instant.now());
+        image.data = data;
+        image.product = product;
+
+        try (Session session = baselineSessionFactory.openSession()) {
+            Transaction tx = session.beginTransaction();
+            session.persist(category);
+            session.persist(product);
+            session.persist(image);
+            tx.commit();
+        }
+        return product.productId;
+    }
+
+    private Integer storeCurrentProduct(ProductImageRepositoryImpl imageRepository, byte[] data) throws Exception {
+        ProductCategoryEntity category = category();
+        ProductEntity product = new ProductEntity();
+        product.setProductName("Phone");
+        product.setProductDescription("Phone description");
+        product.setProductBrand("Brand");
+        product.setProductModel("Model");
+        product.setProductPrice(199.99f);
+        product.setUnitStock(10);
+        product.setDiscount(0f);
+        product.setProductCategory(category);
+        try (Session session = currentSessionFactory.openSession()) {
+            Transaction tx = session.beginTransaction();
+            session.persist(category);
+            session.persist(product);
+            tx.commit();
+        }
+
+        ProductImageEntity image = new ProductImageEntity();
+        image.setName("phone.png");
+        image.setContentType("image/png");
+        image.setSize((long) data.length);
+        image.setLastModified(Timestamp.from(Instant.now()));
+        image.setProduct(product);
+        Path upload = Files.createTempFile("product-image", ".png");
+        try {
+            Files.write(upload, data);
+            imageRepository.saveWithData(image, upload);
+        } finally {
+            Files.delete(upload);
+        }
+        return product.getProductId();
+    }
+
+    private static ProductCategoryEntity category() {
+        ProductCategoryEntity category = new ProductCategoryEntity();
+        category.setName("Phones");
+        return category;
+    }
+
+    private static void fill(BaselineProductEntity product) {
+        product.productName = "Phone";
+        product.productDescription = "Phone description";
+        product.productBrand = "Brand";
+        product.productModel = "Model";
+        product.productPrice = 199.99f;
+        product.unitStock = 10;
+        product.discount = 0f;
+    }
+
+    private static SessionFactory sessionFactory(Class<?>... entities) {
+        Configuration configuration = new Configuration();
+        configuration.setProperty("hibernate.connection.url", "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        configuration.setProperty("hibernate.hbm2ddl.auto", "create-drop");
+        for (Class<?> entity : entities) {
+            configuration.addAnnotatedClass(entity);
+        }
+        return configuration.buildSessionFactory();
+    }
+
+    // Zavisnosti se ubacuju kroz privatni @Inject initialize, kao što to radi Guice
+    private static void initialize(Object target, Object... dependencies) throws Exception {
+        for (Method method : target.getClass().getDeclaredMethods()) {
+            if (method.getName().equals("initialize") && method.getParameterCount() == dependencies.length) {
+                method.setAccessible(true);
+                method.invoke(target, dependencies);
+                return;
+            }
+        }
+        throw new IllegalArgumentException("No initialize method on " + target.getClass());
+    }
+
+    // Proizvod kakav je bio pre izmene, slika se učitava zajedno sa njim
+    @Entity
+    @Table(name = "products")
+    public static class BaselineProductEntity {
+
+        @Id
+        @Column(name = "id")
+        @GeneratedValue(strategy = GenerationType.IDENTITY)
+        private Integer productId;
+
+        @Column(name = "description", nullable = false, length = 100)
+        private String productDescription;
+
+        @Column(name = "product_brand", nullable = false, length = 40)
+        private String productBrand;
+
+        @Column(name = "product_model", nullable = false, length = 40)
+        private String productModel;
+
+        @Column(name = "product_name", nullable = false, length = 40)
+        private String productName;
+
+        @Column(name = "price", nullable = false)
+        private Float productPrice;
+
+        @Column(name = "unit", nullable = false)
+        private Integer unitStock;
+
+        @Column(nullable = false)
+        private Float discount;
+
+        @OneToOne(fetch = FetchType.EAGER, orphanRemoval = true, mappedBy = "product")
+        private BaselineProductImageEntity image;
+
+        @ManyToOne(fetch = FetchType.EAGER)
+        @JoinColumn(name = "category_id", nullable = false)
+        private ProductCategoryEntity productCategory;
+
+        public Integer getProductId() {
+            return productId;
+        }
+
+        public String getProductDescription() {
+            return productDescription;
+        }
+
+        public String getProductBrand() {
+            return productBrand;
+        }
+
+        public String getProductModel() {
+            return productModel;
+        }
+
+        public String getProductName() {
+            return productName;
+        }
+
+        public Float getProductPrice() {
+            return productPrice;
+        }
+
+        public Integer getUnitStock() {
+            return unitStock;
+        }
+
+        public Float getDiscount() {
+            return discount;
+        }
+
+        public BaselineProductImageEntity getImage() {
+            return image;
+        }
+
+        public ProductCategoryEntity getProductCategory() {
+            return productCategory;
+        }
+    }
+
+    // Slika kakva je bila pre izmene: bajtovi u istom entitetu i EAGER veza ka proizvodu
+    @Entity
+    @Table(name = "product_images")
+    public static class BaselineProductImageEntity {
+
+        @Id
+        @GeneratedValue(strategy = GenerationType.SEQUENCE)
+        @Column(name = "id")
+        private Integer id;
+
+        private String name;
+
+        @Column(name = "content_type")
+        private String contentType;
+
+        private Long size;
+
+        @Column(name = "last_modified")
+        private Timestamp lastModified;
+
+        @Lob
+        private byte[] data;
+
+        @OneToOne(fetch = FetchType.EAGER)
+        @JoinColumn(name = "product_id", nullable = false)
+        private BaselineProductEntity product;
+
+        public Integer getId() {
+            return id;
+        }
+    }
+}
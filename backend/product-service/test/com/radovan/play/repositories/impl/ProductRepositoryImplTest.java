@@ -0,0 +1,189 @@
+package com.radovan.play.repositories.impl;
+
+import com.radovan.play.dto.StockReservationDto;
+import com.radovan.play.entity.ProductCategoryEntity;
+import com.radovan.play.entity.ProductEntity;
+import com.radovan.play.entity.ProductImageDataEntity;
+import com.radovan.play.entity.ProductImageEntity;
+import com.radovan.play.services.PrometheusService;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.Configuration;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+// Rezervacija i umanjenje zaliha nad pravom H2 bazom, stanje se uvek proverava novim čitanjem
+public class ProductRepositoryImplTest {
+
+    private SessionFactory sessionFactory;
+    private ProductRepositoryImpl productRepository;
+    private Integer phoneId;
+    private Integer tabletId;
+
+    @Before
+    public void setUp() throws Exception {
+        Configuration configuration = new Configuration();
+        configuration.setProperty("hibernate.connection.url", "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        configuration.setProperty("hibernate.hbm2ddl.auto", "create-drop");
+        configuration.addAnnotatedClass(ProductCategoryEntity.class);
+        configuration.addAnnotatedClass(ProductImageEntity.class);
+        configuration.addAnnotatedClass(ProductImageDataEntity.class);
+        configuration.addAnnotatedClass(ProductEntity.class);
+        sessionFactory = configuration.buildSessionFactory();
+
+        PrometheusService prometheusService = (PrometheusService) Proxy.newProxyInstance(
+                PrometheusService.class.getClassLoader(), new Class<?>[]{PrometheusService.class}, (proxy, method, args) -> null);
+        productRepository = new ProductRepositoryImpl();
+        initialize(productRepository, sessionFactory, prometheusService);
+
+        ProductCategoryEntity category = new ProductCategoryEntity();
+        category.setName("Electronics");
+        ProductEntity phone = product("Phone", 10, category);
+        ProductEntity tablet = product("Tablet", 2, category);
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            session.persist(category);
+            session.persist(phone);
+            session.persist(tablet);
+            session.getTransaction().commit();
+        }
+        phoneId = phone.getProductId();
+        tabletId = tablet.getProductId();
+    }
+
+    @After
+    public void tearDown() {
+        sessionFactory.close();
+    }
+
+    @Test
+    public void reservationTakesEveryLineWhenAllFit() {
+        List<StockReservationDto> reservations = productRepository.reserveStock(quantities(phoneId, 3, tabletId, 2));
+
+        assertTrue(reservations.stream().allMatch(StockReservationDto::getReserved));
+        assertEquals(Integer.valueOf(7), reservations.get(0).getUnitStock());
+        assertEquals(Integer.valueOf(0), reservations.get(1).getUnitStock());
+        assertEquals(7, stockOf(phoneId));
+        assertEquals(0, stockOf(tabletId));
+    }
+
+    @Test
+    public void reservationChangesNothingWhenOneLineDoesNotFit() {
+        List<StockReservationDto> reservations = productRepository.reserveStock(quantities(phoneId, 3, tabletId, 5));
+
+        assertTrue(reservations.get(0).getReserved());
+        assertFalse(reservations.get(1).getReserved());
+        assertEquals(Integer.valueOf(2), reservations.get(1).getUnitStock());
+        assertEquals(10, stockOf(phoneId));
+        assertEquals(2, stockOf(tabletId));
+    }
+
+    @Test
+    public void reservationChangesNothingWhenAProductIsMissing() {
+        List<StockReservationDto> reservations = productRepository.reserveStock(quantities(phoneId, 1, 9999, 1));
+
+        assertFalse(reservations.get(1).getReserved());
+        assertEquals(10, stockOf(phoneId));
+    }
+
+    @Test
+    public void decrementSucceedsWhileStockIsSufficient() {
+        assertTrue(productRepository.decrementStock(phoneId, 4));
+        assertTrue(productRepository.decrementStock(phoneId, 6));
+
+        assertEquals(0, stockOf(phoneId));
+    }
+
+    @Test
+    public void decrementIsRefusedWithoutTouchingStock() {
+        assertFalse(productRepository.decrementStock(tabletId, 3));
+        assertFalse(productRepository.decrementStock(9999, 1));
+
+        assertEquals(2, stockOf(tabletId));
+    }
+
+    @Test
+    public void concurrentDecrementsNeverOversell() throws Exception {
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                Callable<Boolean> decrement = () -> {
+                    start.await();
+                    return productRepository.decrementStock(phoneId, 3);
+                };
+                results.add(executor.submit(decrement));
+            }
+            start.countDown();
+
+            int decremented = 0;
+            for (Future<Boolean> result : results) {
+                if (result.get()) {
+                    decremented++;
+                }
+            }
+            assertEquals(3, decremented);
+            assertEquals(1, stockOf(phoneId));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private int stockOf(Integer productId) {
+        try (Session session = sessionFactory.openSession()) {
+            return session.get(ProductEntity.class, productId).getUnitStock();
+        }
+    }
+
+    private static Map<Integer, Integer> quantities(Integer firstId, int firstQuantity, Integer secondId, int secondQuantity) {
+        Map<Integer, Integer> quantities = new LinkedHashMap<>();
+        quantities.put(firstId, firstQuantity);
+        quantities.put(secondId, secondQuantity);
+        return quantities;
+    }
+
+    private static ProductEntity product(String name, int unitStock, ProductCategoryEntity category) {
+        ProductEntity product = new ProductEntity();
+        product.setProductName(name);
+        product.setProductDescription(name + " description");
+        product.setProductBrand("Brand");
+        product.setProductModel("Model");
+        product.setProductPrice(199.99f);
+        product.setUnitStock(unitStock);
+        product.setDiscount(0f);
+        product.setProductCategory(category);
+        return product;
+    }
+
+    // Zavisnosti se ubacuju kroz privatni @Inject initialize, kao što to radi Guice
+    private static void initialize(Object target, Object... dependencies) throws Exception {
+        for (Method method : target.getClass().getDeclaredMethods()) {
+            if (method.getName().equals("initialize") && method.getParameterCount() == dependencies.length) {
+                method.setAccessible(true);
+                method.invoke(target, dependencies);
+                return;
+            }
+        }
+        throw new IllegalArgumentException("No initialize method on " + target.getClass());
+    }
+}
@@ -0,0 +1,120 @@
+package com.radovan.play.services.impl;
+
+import com.radovan.play.brokers.ProductNatsSender;
+import com.radovan.play.dto.StockReservationDto;
+import com.radovan.play.exceptions.DataNotValidatedException;
+import com.radovan.play.repositories.ProductRepository;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+// Repozitorijum je stub, proverava se samo validacija i slanje invalidacije keša
+public class ProductServiceImplTest {
+
+    private final List<String> repositoryCalls = new ArrayList<>();
+    private final List<String> invalidatedPaths = new ArrayList<>();
+    private ProductServiceImpl productService;
+    private List<StockReservationDto> reservations;
+    private boolean decremented;
+
+    @Before
+    public void setUp() throws Exception {
+        ProductRepository productRepository = (ProductRepository) Proxy.newProxyInstance(
+                ProductRepository.class.getClassLoader(), new Class<?>[]{ProductRepository.class}, (proxy, method, args) -> {
+                    repositoryCalls.add(method.getName());
+                    return switch (method.getName()) {
+                        case "reserveStock" -> reservations;
+                        case "decrementStock" -> decremented;
+                        default -> throw new UnsupportedOperationException(method.getName());
+                    };
+                });
+        productService = new ProductServiceImpl();
+        initialize(productService, productRepository, null, null, new RecordingNatsSender());
+    }
+
+    @Test
+    public void reservationWithNonPositiveQuantityIsRejectedBeforeTheDatabase() {
+        Map<Integer, Integer> quantities = new LinkedHashMap<>();
+        quantities.put(1, 2);
+        quantities.put(2, 0);
+
+        assertThrows(DataNotValidatedException.class, () -> productService.reserveStock(quantities));
+        assertThrows(DataNotValidatedException.class, () -> productService.reserveStock(Map.of(1, -3)));
+        assertTrue(repositoryCalls.isEmpty());
+    }
+
+    @Test
+    public void successfulReservationInvalidatesEveryReservedProduct() {
+        reservations = List.of(reservation(1, true), reservation(2, true));
+
+        productService.reserveStock(Map.of(1, 1, 2, 1));
+
+        assertEquals(List.of("/api/products/1", "/api/products/2"), invalidatedPaths);
+    }
+
+    @Test
+    public void refusedReservationInvalidatesNothing() {
+        reservations = List.of(reservation(1, true), reservation(2, false));
+
+        List<StockReservationDto> result = productService.reserveStock(Map.of(1, 1, 2, 5));
+
+        assertFalse(result.get(1).getReserved());
+        assertTrue(invalidatedPaths.isEmpty());
+    }
+
+    @Test
+    public void decrementWithNonPositiveQuantityIsRejectedBeforeTheDatabase() {
+        assertThrows(DataNotValidatedException.class, () -> productService.decrementStock(1, 0));
+        assertThrows(DataNotValidatedException.class, () -> productService.decrementStock(1, null));
+        assertTrue(repositoryCalls.isEmpty());
+    }
+
+    @Test
+    public void refusedDecrementInvalidatesNothing() {
+        decremented = false;
+        assertFalse(productService.decrementStock(1, 5));
+        assertTrue(invalidatedPaths.isEmpty());
+
+        decremented = true;
+        assertTrue(productService.decrementStock(1, 5));
+        assertEquals(List.of("/api/products/1"), invalidatedPaths);
+    }
+
+    private static StockReservationDto reservation(Integer productId, boolean reserved) {
+        StockReservationDto reservation = new StockReservationDto();
+        reservation.setProductId(productId);
+        reservation.setReserved(reserved);
+        return reservation;
+    }
+
+    private final class RecordingNatsSender extends ProductNatsSender {
+
+        @Override
+        public void sendCacheInvalidation(String... pathPrefixes) {
+            invalidatedPaths.addAll(List.of(pathPrefixes));
+        }
+    }
+
+    // Zavisnosti se ubacuju kroz privatni @Inject initialize, kao što to radi Guice
+    private static void initialize(Object target, Object... dependencies) throws Exception {
+        for (Method method : target.getClass().getDeclaredMethods()) {
+            if (method.getName().equals("initialize") && method.getParameterCount() == dependencies.length) {
+                method.setAccessible(true);
+                method.invoke(target, dependencies);
+                return;
+            }
+        }
+        throw new IllegalArgumentException("No initialize method on " + target.getClass());
+    }
+}